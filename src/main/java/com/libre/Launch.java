@@ -29,15 +29,36 @@
  */
 package com.libre;
 
+import com.google.common.base.Joiner;
+import com.google.common.base.Supplier;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
 import com.jcabi.manifests.Manifests;
+import com.jcabi.s3.Bucket;
 import com.jcabi.s3.Region;
 import com.jcabi.s3.retry.ReBucket;
 import com.libre.om.Base;
+import com.libre.om.Search;
+import com.libre.om.SrBase;
+import com.libre.om.WbBase;
 import com.libre.om.aws.AwsBase;
+import com.libre.om.aws.CdBucket;
+import com.libre.om.aws.McBucket;
+import com.libre.om.aws.PlBucket;
+import com.libre.om.aws.Reconciliation;
 import com.libre.om.mock.MkBase;
 import com.libre.takes.TkApp;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.takes.http.Exit;
 import org.takes.http.FtCLI;
 
@@ -48,19 +69,65 @@ import org.takes.http.FtCLI;
  * @version $Id$
  * @since 0.1
  */
+@SuppressWarnings("PMD.DoNotUseThreads")
 public final class Launch {
 
+    /**
+     * Command line option with the size of the disk cache, in bytes.
+     */
+    private static final String CACHE = "--cache=";
+
+    /**
+     * Command line option with the directory for write-behind staging.
+     */
+    private static final String STAGING = "--staging=";
+
+    /**
+     * Command line option with the maximum total size of staged documents,
+     * in bytes.
+     */
+    private static final String STAGING_MAX = "--staging-max=";
+
+    /**
+     * Command line option with hours between reconciliations of indexes
+     * of users, zero to never reconcile them.
+     */
+    private static final String RECONCILE = "--reconcile=";
+
+    /**
+     * Command line option with the number of entries in every cache of
+     * metadata of objects, zero to not cache metadata.
+     */
+    private static final String METAS = "--metas=";
+
+    /**
+     * Command line option with seconds to keep cached metadata.
+     */
+    private static final String METAS_TTL = "--metas-ttl=";
+
+    /**
+     * Command line option with the maximum total weight of catalogs of
+     * names kept in memory for search, zero to not keep them.
+     */
+    private static final String SEARCH = "--search=";
+
     /**
      * Arguments.
      */
     private final transient Iterable<String> arguments;
 
+    /**
+     * Caches of metadata made, to report how well they work.
+     */
+    private final transient Collection<McBucket> caches;
+
     /**
      * Ctor.
      * @param args Command line args
      */
     public Launch(final String[] args) {
         this.arguments = Arrays.asList(args);
+        this.caches = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -77,8 +144,21 @@ public final class Launch {
      * @throws IOException If fails
      */
     public void exec() throws IOException {
+        final Collection<McBucket> metas = this.caches;
         new FtCLI(
-            new TkApp(Launch.base()),
+            new TkApp(
+                this.base(),
+                new Supplier<String>() {
+                    @Override
+                    public String get() {
+                        final Collection<String> stats = new LinkedList<>();
+                        for (final McBucket cache : metas) {
+                            stats.add(cache.stats());
+                        }
+                        return Joiner.on('\n').join(stats);
+                    }
+                }
+            ),
             this.arguments
         ).start(Exit.NEVER);
     }
@@ -86,22 +166,150 @@ public final class Launch {
     /**
      * Base.
      * @return Base
+     * @throws IOException If fails
      */
-    private static Base base() {
+    private Base base() throws IOException {
         final String key = Manifests.read("libre-AwsKey");
         final Base base;
         if (key.startsWith("AAAA") || key.startsWith("${")) {
             base = new MkBase();
         } else {
-            base = new AwsBase(
+            Bucket bucket = new PlBucket(
                 new ReBucket(
                     new Region.Simple(
                         key, Manifests.read("libre-AwsSecret")
                     ).bucket(Manifests.read("libre-Bucket"))
                 )
             );
+            bucket = this.metas(bucket);
+            final long cache = this.cache();
+            if (cache > 0L) {
+                bucket = new CdBucket(
+                    bucket,
+                    Files.createTempDirectory("libre-cache").toFile(),
+                    cache
+                );
+            }
+            this.reconcile(bucket);
+            final String staging = this.option(Launch.STAGING);
+            if (staging.isEmpty()) {
+                base = new AwsBase(bucket);
+            } else {
+                final String max = this.option(Launch.STAGING_MAX);
+                long bytes = WbBase.MAX;
+                if (!max.isEmpty()) {
+                    bytes = Long.parseLong(max);
+                }
+                base = new WbBase(
+                    new AwsBase(bucket),
+                    Files.createDirectories(Paths.get(staging)).toFile(),
+                    bytes
+                );
+            }
+        }
+        return this.search(base);
+    }
+
+    /**
+     * Search documents by names, keeping catalogs of them in memory.
+     * @param base Base
+     * @return Base with search
+     */
+    private Base search(final Base base) {
+        final String option = this.option(Launch.SEARCH);
+        long max = Search.MAX;
+        if (!option.isEmpty()) {
+            max = Long.parseLong(option);
+        }
+        return new SrBase(base, new Search(max, (long) Tv.TEN));
+    }
+
+    /**
+     * Reconcile indexes of users in background, from time to time.
+     * @param bucket Bucket
+     */
+    private void reconcile(final Bucket bucket) {
+        final String option = this.option(Launch.RECONCILE);
+        long hours = (long) Tv.TWENTY + (long) Tv.FOUR;
+        if (!option.isEmpty()) {
+            hours = Long.parseLong(option);
+        }
+        if (hours > 0L) {
+            Executors.newSingleThreadScheduledExecutor(
+                new VerboseThreads(Reconciliation.class)
+            ).scheduleWithFixedDelay(
+                new VerboseRunnable(new Reconciliation(bucket), true),
+                1L, hours, TimeUnit.HOURS
+            );
+        }
+    }
+
+    /**
+     * Cache metadata of objects, and report how well it works from
+     * time to time and on the admin page.
+     * @param bucket Bucket
+     * @return Bucket with metadata cached, or the same one
+     */
+    private Bucket metas(final Bucket bucket) {
+        final String option = this.option(Launch.METAS);
+        long max = (long) Tv.TEN * (long) Tv.THOUSAND;
+        if (!option.isEmpty()) {
+            max = Long.parseLong(option);
+        }
+        final String ttl = this.option(Launch.METAS_TTL);
+        long seconds = (long) Tv.SIXTY;
+        if (!ttl.isEmpty()) {
+            seconds = Long.parseLong(ttl);
+        }
+        Bucket cached = bucket;
+        if (max > 0L) {
+            final McBucket metas = new McBucket(bucket, max, seconds);
+            Executors.newSingleThreadScheduledExecutor(
+                new VerboseThreads(McBucket.class)
+            ).scheduleWithFixedDelay(
+                new VerboseRunnable(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            Logger.info(McBucket.class, "%s", metas.stats());
+                        }
+                    },
+                    true
+                ),
+                1L, 1L, TimeUnit.HOURS
+            );
+            this.caches.add(metas);
+            cached = metas;
+        }
+        return cached;
+    }
+
+    /**
+     * Size of the local disk cache of documents, in bytes.
+     * @return Bytes, zero if the cache is disabled
+     */
+    private long cache() {
+        final String size = this.option(Launch.CACHE);
+        long bytes = 0L;
+        if (!size.isEmpty()) {
+            bytes = Long.parseLong(size);
+        }
+        return bytes;
+    }
+
+    /**
+     * Value of a command line option.
+     * @param prefix Prefix of the option, with the equals sign
+     * @return Value or empty if the option is absent
+     */
+    private String option(final String prefix) {
+        String value = "";
+        for (final String arg : this.arguments) {
+            if (arg.startsWith(prefix)) {
+                value = arg.substring(prefix.length());
+            }
         }
-        return base;
+        return value;
     }
 
 }
@@ -60,6 +60,44 @@ public interface Attributes {
      */
     Date created() throws IOException;
 
+    /**
+     * Timestamp of the last modification of the content.
+     * @return Date in UTC.
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    Date modified() throws IOException;
+
+    /**
+     * Opaque validator of the content, which changes every time
+     * the content changes. It is cheap to get, since the content
+     * is not read.
+     * @return Entity tag, without quotes
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    String etag() throws IOException;
+
+    /**
+     * Checksum of the content, recorded when it was written, so it is
+     * cheap to get, like the entity tag.
+     * @param algorithm Name of the algorithm, "MD5" or "SHA-256"
+     * @return Checksum in lower case hex or empty if it is not known
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    String checksum(String algorithm) throws IOException;
+
+    /**
+     * Content coding the content is stored in, like "deflate", as it
+     * is named in HTTP. The size and the checksums are of the content
+     * as it was written, no matter how it is stored.
+     * @return Content coding, "identity" if it is stored as it is
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    String encoding() throws IOException;
+
     /**
      * Whether given document is public.
      * @return True if it is public, false if it is private.
@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Names of documents of a user, searchable by a part of a name.
+ *
+ * <p>A query of three characters or longer finds names containing it,
+ * a shorter one finds names starting with it, ignoring case both times.
+ * Names are kept sorted, for short queries, and every three characters
+ * in a row of every name point to the names they are in, for longer
+ * ones. A long query only checks names having its rarest three
+ * characters in a row, in order, until enough of them are found, so it
+ * takes about as long as the number of names it checks, not as all
+ * names of the user. Names are found in alphabetical order, ignoring case.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class Catalog {
+
+    /**
+     * Length of parts of names indexed.
+     */
+    private static final int GRAM = 3;
+
+    /**
+     * Names by names in lower case.
+     */
+    private final transient NavigableMap<String, SortedSet<String>> names;
+
+    /**
+     * Names in lower case by parts of them.
+     */
+    private final transient Map<String, NavigableSet<String>> grams;
+
+    /**
+     * Number of names and their parts indexed.
+     */
+    private transient int size;
+
+    /**
+     * Ctor.
+     * @param all All names
+     */
+    public Catalog(final Iterable<String> all) {
+        this.names = new TreeMap<>();
+        this.grams = new HashMap<>(0);
+        for (final String name : all) {
+            this.add(name);
+        }
+    }
+
+    /**
+     * Add a name.
+     * @param name Name of a document
+     */
+    public void add(final String name) {
+        synchronized (this.names) {
+            final String lower = Catalog.lower(name);
+            SortedSet<String> same = this.names.get(lower);
+            if (same == null) {
+                same = new TreeSet<>();
+                this.names.put(lower, same);
+                for (final String gram : Catalog.grams(lower)) {
+                    NavigableSet<String> keys = this.grams.get(gram);
+                    if (keys == null) {
+                        keys = new TreeSet<>();
+                        this.grams.put(gram, keys);
+                    }
+                    if (keys.add(lower)) {
+                        ++this.size;
+                    }
+                }
+            }
+            if (same.add(name)) {
+                ++this.size;
+            }
+        }
+    }
+
+    /**
+     * Remove a name.
+     * @param name Name of a document
+     */
+    public void remove(final String name) {
+        synchronized (this.names) {
+            final String lower = Catalog.lower(name);
+            final SortedSet<String> same = this.names.get(lower);
+            if (same != null && same.remove(name)) {
+                --this.size;
+                if (same.isEmpty()) {
+                    this.names.remove(lower);
+                    for (final String gram : Catalog.grams(lower)) {
+                        final NavigableSet<String> keys = this.grams.get(gram);
+                        if (keys != null && keys.remove(lower)) {
+                            --this.size;
+                            if (keys.isEmpty()) {
+                                this.grams.remove(gram);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find names.
+     * @param query Part of a name
+     * @param limit Maximum number of names to find
+     * @return Names found, in alphabetical order
+     */
+    public List<String> find(final String query, final int limit) {
+        final String text = Catalog.lower(query);
+        final List<String> found = new ArrayList<>(0);
+        synchronized (this.names) {
+            for (final String lower : this.candidates(text)) {
+                if (found.size() >= limit) {
+                    break;
+                }
+                if (Catalog.matches(lower, text)) {
+                    for (final String name : this.names.get(lower)) {
+                        if (found.size() < limit) {
+                            found.add(name);
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Number of names and their parts indexed, which is about how much
+     * memory the catalog takes.
+     * @return Weight
+     */
+    public int weight() {
+        synchronized (this.names) {
+            return this.size;
+        }
+    }
+
+    /**
+     * Find names in a list, the same way a catalog of them would.
+     * @param all All names
+     * @param query Part of a name
+     * @param limit Maximum number of names to find
+     * @return Names found, in alphabetical order
+     */
+    public static List<String> find(final Iterable<String> all,
+        final String query, final int limit) {
+        final Catalog catalog = new Catalog(Collections.<String>emptyList());
+        final String text = Catalog.lower(query);
+        for (final String name : all) {
+            if (Catalog.matches(Catalog.lower(name), text)) {
+                catalog.add(name);
+            }
+        }
+        return catalog.find(query, limit);
+    }
+
+    /**
+     * Names in lower case, which may match the query, in order.
+     * @param text Query in lower case
+     * @return Names in lower case
+     */
+    private Collection<String> candidates(final String text) {
+        final Collection<String> keys;
+        if (text.isEmpty()) {
+            keys = Collections.emptyList();
+        } else if (text.length() < Catalog.GRAM) {
+            keys = this.names.subMap(
+                text, true, text.concat(String.valueOf(Character.MAX_VALUE)),
+                false
+            ).keySet();
+        } else {
+            Collection<String> rarest = null;
+            for (final String gram : Catalog.grams(text)) {
+                Collection<String> posted = this.grams.get(gram);
+                if (posted == null) {
+                    posted = Collections.emptyList();
+                }
+                if (rarest == null || posted.size() < rarest.size()) {
+                    rarest = posted;
+                }
+            }
+            keys = rarest;
+        }
+        return keys;
+    }
+
+    /**
+     * Does the name match the query?
+     * @param lower Name in lower case
+     * @param text Query in lower case
+     * @return TRUE if it matches
+     */
+    private static boolean matches(final String lower, final String text) {
+        final boolean matches;
+        if (text.isEmpty()) {
+            matches = false;
+        } else if (text.length() < Catalog.GRAM) {
+            matches = lower.startsWith(text);
+        } else {
+            matches = lower.contains(text);
+        }
+        return matches;
+    }
+
+    /**
+     * All parts of the name, which are indexed.
+     * @param lower Name in lower case
+     * @return Parts, without duplicates
+     */
+    private static Collection<String> grams(final String lower) {
+        final Collection<String> grams = new TreeSet<>();
+        for (int pos = 0; pos + Catalog.GRAM <= lower.length(); ++pos) {
+            grams.add(lower.substring(pos, pos + Catalog.GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Text in lower case.
+     * @param text Text
+     * @return The same text in lower case
+     */
+    private static String lower(final String text) {
+        return text.toLowerCase(Locale.ENGLISH);
+    }
+
+}
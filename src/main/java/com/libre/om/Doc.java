@@ -71,10 +71,31 @@ public interface Doc {
      */
     void read(OutputStream output) throws IOException;
 
+    /**
+     * Read a range of its content into this output stream.
+     * @param output Output stream
+     * @param offset Position of the first byte to read
+     * @param length Maximum number of bytes to read
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    void read(OutputStream output, long offset, long length)
+        throws IOException;
+
+    /**
+     * Read its entire content as it is stored, in the content coding
+     * of {@link Attributes#encoding()}, into this output stream.
+     * @param output Output stream
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    void encoded(OutputStream output) throws IOException;
+
     /**
      * Write its entire content from this input stream.
      * @param input Input stream
-     * @param size Size of the stream in bytes
+     * @param size Size of the stream in bytes, or a negative number
+     *  if it is not known until the end of the stream
      * @throws IOException If fails
      */
     void write(InputStream input, long size) throws IOException;
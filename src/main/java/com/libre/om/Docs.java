@@ -32,6 +32,7 @@ package com.libre.om;
 import com.jcabi.aspects.Immutable;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Docs.
@@ -50,6 +51,18 @@ public interface Docs {
      */
     List<String> names() throws IOException;
 
+    /**
+     * A page of names, in alphabetical order, which works as a cursor:
+     * the last name of a page is where the next one starts.
+     * @param after Name after which the page starts, or an empty string
+     *  to start from the first document
+     * @param limit Maximum number of names in the page
+     * @return Names, not more than the limit
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    List<String> names(String after, int limit) throws IOException;
+
     /**
      * Get document by name.
      * @param name Name of the document, e.g. "/my/files/picture.gif"
@@ -58,6 +71,33 @@ public interface Docs {
      */
     Doc doc(String name) throws IOException;
 
+    /**
+     * A page of documents, by their names, ready to be listed.
+     *
+     * <p>Their attributes, friends and short URLs may be taken from
+     * an index, which is cheaper than asking every document, but may be
+     * a bit behind the documents. Use {@link #doc(String)} for anything
+     * else but listing.
+     *
+     * @param after Name after which the page starts, as in
+     *  {@link #names(String, int)}
+     * @param limit Maximum number of documents in the page
+     * @return Documents by names, in alphabetical order
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    Map<String, Doc> snapshot(String after, int limit) throws IOException;
+
+    /**
+     * Names of documents found by a part of the name, see {@link Catalog}.
+     * @param query Part of a name, ignoring case
+     * @param limit Maximum number of names to find
+     * @return Names, in alphabetical order
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    List<String> find(String query, int limit) throws IOException;
+
     /**
      * Total amount of bytes stored in my account. This information
      * would be useful and should be present in the top line of every page.
@@ -79,6 +79,17 @@ public final class SafeDoc implements Doc {
         this.decorated.read(output);
     }
 
+    @Override
+    public void read(final OutputStream output, final long offset,
+        final long length) throws IOException {
+        this.decorated.read(output, offset, length);
+    }
+
+    @Override
+    public void encoded(final OutputStream output) throws IOException {
+        this.decorated.encoded(output);
+    }
+
     @Override
     public void write(final InputStream input, final long size)
         throws IOException {
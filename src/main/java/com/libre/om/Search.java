@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jcabi.aspects.Tv;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalogs of names of documents of users, kept in memory of the node.
+ *
+ * <p>A catalog of a user is built from names of the documents when it's
+ * needed for the first time, and is changed when documents are written
+ * or deleted on this node, see {@link SrBase}. Documents changed on
+ * other nodes, or shared by friends, are not found until the catalog is
+ * built again, which happens after the time to keep catalogs, ten minutes
+ * by default. Catalogs together don't take more than the given weight,
+ * see {@link Catalog#weight()}, measured when they are built; catalogs
+ * used least recently are dropped first. A catalog that grows by more
+ * than a quarter of its measured weight on this node is dropped too, to
+ * be built and measured again. A unit of weight takes about forty bytes
+ * of heap, so the default limit of a million units keeps catalogs within
+ * some forty megabytes.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class Search {
+
+    /**
+     * Default maximum total weight of catalogs.
+     */
+    public static final long MAX = (long) Tv.MILLION;
+
+    /**
+     * Catalogs by URNs of users.
+     */
+    private final transient Cache<String, Search.Weighed> catalogs;
+
+    /**
+     * Ctor.
+     */
+    public Search() {
+        this(Search.MAX, (long) Tv.TEN);
+    }
+
+    /**
+     * Ctor.
+     * @param max Maximum total weight of catalogs
+     * @param minutes Time to keep a catalog, in minutes
+     */
+    public Search(final long max, final long minutes) {
+        this.catalogs = CacheBuilder.newBuilder()
+            .maximumWeight(max)
+            .weigher(
+                new Weigher<String, Search.Weighed>() {
+                    @Override
+                    public int weigh(final String urn,
+                        final Search.Weighed cat) {
+                        return cat.weight();
+                    }
+                }
+            )
+            .expireAfterWrite(minutes, TimeUnit.MINUTES)
+            .build();
+    }
+
+    /**
+     * Catalog of the user, built from names of the documents if it's not
+     * in memory; a few requests of the user share one build.
+     * @param urn URN of the user
+     * @param docs Documents of the user
+     * @return Catalog
+     * @throws IOException If fails
+     */
+    public Catalog catalog(final String urn, final Docs docs)
+        throws IOException {
+        try {
+            return this.catalogs.get(
+                urn,
+                new Callable<Search.Weighed>() {
+                    @Override
+                    public Search.Weighed call() throws IOException {
+                        return new Search.Weighed(new Catalog(docs.names()));
+                    }
+                }
+            ).catalog();
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        } catch (final UncheckedExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * The document was written.
+     * @param urn URN of the user
+     * @param name Name of the document
+     */
+    public void written(final String urn, final String name) {
+        final Search.Weighed catalog = this.catalogs.getIfPresent(urn);
+        if (catalog != null) {
+            catalog.catalog().add(name);
+            if (catalog.outgrown()) {
+                this.catalogs.invalidate(urn);
+            }
+        }
+    }
+
+    /**
+     * The document was deleted.
+     * @param urn URN of the user
+     * @param name Name of the document
+     */
+    public void deleted(final String urn, final String name) {
+        final Search.Weighed catalog = this.catalogs.getIfPresent(urn);
+        if (catalog != null) {
+            catalog.catalog().remove(name);
+        }
+    }
+
+    /**
+     * Catalog with the weight it had when it was built.
+     */
+    private static final class Weighed {
+        /**
+         * Catalog.
+         */
+        private final transient Catalog cat;
+        /**
+         * Weight measured when it was built.
+         */
+        private final transient int measured;
+        /**
+         * Ctor.
+         * @param catalog Catalog
+         */
+        Weighed(final Catalog catalog) {
+            this.cat = catalog;
+            this.measured = catalog.weight();
+        }
+        /**
+         * Catalog.
+         * @return Catalog
+         */
+        public Catalog catalog() {
+            return this.cat;
+        }
+        /**
+         * Weight measured when it was built.
+         * @return Weight
+         */
+        public int weight() {
+            return this.measured;
+        }
+        /**
+         * Has it grown by more than a quarter since it was measured?
+         * @return TRUE if it has to be measured again
+         */
+        public boolean outgrown() {
+            return this.cat.weight() - this.measured
+                > Math.max(this.measured / Tv.FOUR, Tv.HUNDRED);
+        }
+    }
+
+}
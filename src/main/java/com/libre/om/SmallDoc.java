@@ -46,6 +46,12 @@ import lombok.ToString;
 @ToString
 @EqualsAndHashCode(of = "decorated")
 public final class SmallDoc implements Doc {
+    /**
+     * Maximum size of documents of users, in bytes.
+     * @since 0.5
+     */
+    public static final long LARGE = 250_000_000L;
+
     /**
      * Decorated.
      */
@@ -93,6 +99,17 @@ public final class SmallDoc implements Doc {
         this.decorated.read(output);
     }
 
+    @Override
+    public void read(final OutputStream output, final long offset,
+        final long length) throws IOException {
+        this.decorated.read(output, offset, length);
+    }
+
+    @Override
+    public void encoded(final OutputStream output) throws IOException {
+        this.decorated.encoded(output);
+    }
+
     @Override
     public void write(final InputStream input, final long size)
         throws IOException {
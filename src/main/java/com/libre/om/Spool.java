@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Spool of uploaded content, in memory or on disk.
+ *
+ * <p>Content that fits into one buffer is kept in memory. Buffers are
+ * reused and there is a limited number of them, shared by all uploads
+ * of the node. Larger content, or content that arrives when all
+ * buffers are busy, goes to a temporary file. Thus, memory taken by
+ * uploads doesn't depend on their number or size. The class is
+ * thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class Spool {
+
+    /**
+     * Spool of the node: 48 buffers of 1Mb.
+     */
+    public static final Spool NODE = new Spool(1 << 20, 48);
+
+    /**
+     * Size of a buffer, in bytes.
+     */
+    private final transient int chunk;
+
+    /**
+     * Permits to hold a buffer.
+     */
+    private final transient Semaphore permits;
+
+    /**
+     * Buffers released and ready to be used again.
+     */
+    private final transient Queue<byte[]> free;
+
+    /**
+     * Ctor.
+     * @param size Size of a buffer, in bytes
+     * @param total Maximum number of buffers in memory
+     */
+    public Spool(final int size, final int total) {
+        this.chunk = size;
+        this.permits = new Semaphore(total);
+        this.free = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Read the beginning of the stream.
+     *
+     * <p>The stream is not closed and may be read further, if the content
+     * has exactly {@code max} bytes.
+     *
+     * @param input Stream
+     * @param max Maximum number of bytes to read
+     * @return Content, which must be closed
+     * @throws IOException If fails
+     */
+    public Spool.Content read(final InputStream input, final long max)
+        throws IOException {
+        byte[] buffer = null;
+        if (this.permits.tryAcquire()) {
+            buffer = this.free.poll();
+            if (buffer == null) {
+                buffer = new byte[this.chunk];
+            }
+        }
+        final Spool.Content content;
+        if (buffer == null) {
+            content = Spool.spill(input, new byte[0], 0, max);
+        } else {
+            final int len;
+            try {
+                len = IOUtils.read(
+                    input, buffer, 0, (int) Math.min((long) this.chunk, max)
+                );
+            } catch (final IOException ex) {
+                this.release(buffer);
+                throw ex;
+            }
+            if (len < this.chunk || (long) len == max) {
+                content = new Spool.Memory(this, buffer, len);
+            } else {
+                try {
+                    content = Spool.spill(input, buffer, len, max);
+                } finally {
+                    this.release(buffer);
+                }
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Return the buffer to the spool.
+     * @param buffer Buffer
+     */
+    private void release(final byte[] buffer) {
+        this.free.offer(buffer);
+        this.permits.release();
+    }
+
+    /**
+     * Read the beginning of the stream into a temporary file.
+     * @param input Stream
+     * @param head Bytes already read from the stream
+     * @param len Number of them
+     * @param max Maximum number of bytes in the file
+     * @return Content
+     * @throws IOException If fails
+     */
+    private static Spool.Content spill(final InputStream input,
+        final byte[] head, final int len, final long max) throws IOException {
+        final File file = File.createTempFile("spool-", ".tmp");
+        final long size;
+        try (final OutputStream output = new FileOutputStream(file)) {
+            output.write(head, 0, len);
+            size = (long) len
+                + IOUtils.copyLarge(input, output, 0L, max - (long) len);
+        } catch (final IOException ex) {
+            FileUtils.deleteQuietly(file);
+            throw ex;
+        }
+        return new Spool.Disk(file, size);
+    }
+
+    /**
+     * Spooled content.
+     */
+    public interface Content extends Closeable {
+        /**
+         * Size of the content.
+         * @return Bytes
+         */
+        long size();
+        /**
+         * Read the content.
+         * @return Stream, to be read before the content is closed
+         * @throws IOException If fails
+         */
+        InputStream stream() throws IOException;
+    }
+
+    /**
+     * Content in a buffer.
+     */
+    private static final class Memory implements Spool.Content {
+        /**
+         * Spool.
+         */
+        private final transient Spool spool;
+        /**
+         * Buffer.
+         */
+        private final transient byte[] buffer;
+        /**
+         * Size of the content.
+         */
+        private final transient int length;
+        /**
+         * The buffer is returned to the spool.
+         */
+        private final transient AtomicBoolean closed;
+        /**
+         * Ctor.
+         * @param owner Spool
+         * @param buf Buffer
+         * @param len Size of the content
+         */
+        Memory(final Spool owner, final byte[] buf, final int len) {
+            this.spool = owner;
+            this.buffer = buf;
+            this.length = len;
+            this.closed = new AtomicBoolean();
+        }
+        @Override
+        public long size() {
+            return (long) this.length;
+        }
+        @Override
+        public InputStream stream() {
+            return new ByteArrayInputStream(this.buffer, 0, this.length);
+        }
+        @Override
+        public void close() {
+            if (this.closed.compareAndSet(false, true)) {
+                this.spool.release(this.buffer);
+            }
+        }
+    }
+
+    /**
+     * Content in a file.
+     */
+    private static final class Disk implements Spool.Content {
+        /**
+         * File.
+         */
+        private final transient File file;
+        /**
+         * Size of the content.
+         */
+        private final transient long length;
+        /**
+         * Ctor.
+         * @param path File
+         * @param len Size of the content
+         */
+        Disk(final File path, final long len) {
+            this.file = path;
+            this.length = len;
+        }
+        @Override
+        public long size() {
+            return this.length;
+        }
+        @Override
+        public InputStream stream() throws IOException {
+            return new FileInputStream(this.file);
+        }
+        @Override
+        public void close() {
+            FileUtils.deleteQuietly(this.file);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import java.io.IOException;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Base with documents searchable by parts of their names.
+ *
+ * <p>{@link Docs#find(String, int)} looks in a catalog of names kept in
+ * memory, see {@link Search}, instead of listing all documents of the
+ * user. Documents written and deleted through this base change the
+ * catalog right away.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+public final class SrBase implements Base {
+
+    /**
+     * Original base.
+     */
+    private final transient Base origin;
+
+    /**
+     * Catalogs of names.
+     */
+    private final transient Search search;
+
+    /**
+     * Ctor.
+     * @param base Original base
+     */
+    public SrBase(final Base base) {
+        this(base, new Search());
+    }
+
+    /**
+     * Ctor.
+     * @param base Original base
+     * @param srch Catalogs of names
+     */
+    public SrBase(final Base base, final Search srch) {
+        this.origin = base;
+        this.search = srch;
+    }
+
+    @Override
+    public User user(final String urn) throws IOException {
+        return new SrUser(this.origin.user(urn), this.search);
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Document of {@link SrBase}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+final class SrDoc implements Doc {
+
+    /**
+     * Original document.
+     */
+    private final transient Doc origin;
+
+    /**
+     * Catalogs of names.
+     */
+    private final transient Search search;
+
+    /**
+     * URN of the user.
+     */
+    private final transient String user;
+
+    /**
+     * Name of the document.
+     */
+    private final transient String label;
+
+    /**
+     * Ctor.
+     * @param doc Original document
+     * @param srch Catalogs of names
+     * @param urn URN of the user
+     * @param name Name of the document
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    SrDoc(final Doc doc, final Search srch, final String urn,
+        final String name) {
+        this.origin = doc;
+        this.search = srch;
+        this.user = urn;
+        this.label = name;
+    }
+
+    @Override
+    public boolean exists() throws IOException {
+        return this.origin.exists();
+    }
+
+    @Override
+    public void delete() throws IOException {
+        this.origin.delete();
+        this.search.deleted(this.user, this.label);
+    }
+
+    @Override
+    public Friends friends() throws IOException {
+        return this.origin.friends();
+    }
+
+    @Override
+    public void read(final OutputStream output) throws IOException {
+        this.origin.read(output);
+    }
+
+    @Override
+    public void read(final OutputStream output, final long offset,
+        final long length) throws IOException {
+        this.origin.read(output, offset, length);
+    }
+
+    @Override
+    public void encoded(final OutputStream output) throws IOException {
+        this.origin.encoded(output);
+    }
+
+    @Override
+    public void write(final InputStream input, final long size)
+        throws IOException {
+        this.origin.write(input, size);
+        this.search.written(this.user, this.label);
+    }
+
+    @Override
+    public String shortUrl() {
+        return this.origin.shortUrl();
+    }
+
+    @Override
+    public Attributes attributes() throws IOException {
+        return this.origin.attributes();
+    }
+
+}
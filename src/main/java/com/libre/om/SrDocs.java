@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Documents of {@link SrBase}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = { "origin", "user" })
+final class SrDocs implements Docs {
+
+    /**
+     * Original documents.
+     */
+    private final transient Docs origin;
+
+    /**
+     * Catalogs of names.
+     */
+    private final transient Search search;
+
+    /**
+     * URN of the user.
+     */
+    private final transient String user;
+
+    /**
+     * Ctor.
+     * @param docs Original documents
+     * @param srch Catalogs of names
+     * @param urn URN of the user
+     */
+    SrDocs(final Docs docs, final Search srch, final String urn) {
+        this.origin = docs;
+        this.search = srch;
+        this.user = urn;
+    }
+
+    @Override
+    public List<String> names() throws IOException {
+        return this.origin.names();
+    }
+
+    @Override
+    public List<String> names(final String after, final int limit)
+        throws IOException {
+        return this.origin.names(after, limit);
+    }
+
+    @Override
+    public Doc doc(final String name) throws IOException {
+        return new SrDoc(
+            this.origin.doc(name), this.search, this.user, name
+        );
+    }
+
+    @Override
+    public Map<String, Doc> snapshot(final String after, final int limit)
+        throws IOException {
+        return this.origin.snapshot(after, limit);
+    }
+
+    @Override
+    public List<String> find(final String query, final int limit)
+        throws IOException {
+        return this.search.catalog(this.user, this.origin).find(query, limit);
+    }
+
+    @Override
+    public long size() throws IOException {
+        return this.origin.size();
+    }
+
+}
@@ -0,0 +1,723 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import com.google.common.base.Joiner;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.Striped;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Documents written to a local directory and not yet flushed
+ * to the original base.
+ *
+ * <p>A document is staged as two files: its body and a small head with
+ * the user, the name and checksums of the body. Both are synced to disk
+ * before {@link #stage(String, String, InputStream, long, long)} returns,
+ * so staged documents survive a restart and are flushed again by the
+ * next instance. Flushes of the same document never overlap and only the
+ * latest staged version is flushed. The body is sent to the original
+ * base without the lock of the document, which is taken only to see
+ * whether the version is still the latest, so staging and deleting other
+ * documents never wait for a flush. A document deleted while its flush
+ * was on the way is deleted again after it.
+ *
+ * <p>A flush that fails with an {@link IOException} is retried, with
+ * a growing delay, until it succeeds or a newer version or a deletion
+ * replaces it, since the user was told it's saved. Limits of the original
+ * base are checked before staging, see {@link WbDocs#doc(String)}, so
+ * any other failure means the document can't be written at all, for
+ * example because it became a document shared by a friend; after a few
+ * attempts, the version is logged as an error and moved to the "dead"
+ * directory, where it waits for an administrator and doesn't take space
+ * of staging anymore. Staged bodies take not more than the given number
+ * of bytes together; a document that doesn't fit is refused.
+ * The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class Staging {
+
+    /**
+     * Longest delay between retries, in seconds.
+     */
+    private static final long PATIENCE = 300L;
+
+    /**
+     * Size of the buffer for copying, in bytes.
+     */
+    private static final int BUFFER = 65_536;
+
+    /**
+     * Attempts to flush a version failing with a runtime exception.
+     */
+    private static final int DOOMED = 3;
+
+    /**
+     * Original base.
+     */
+    private final transient Base origin;
+
+    /**
+     * Directory with staged files.
+     */
+    private final transient File dir;
+
+    /**
+     * Maximum total size of staged bodies, in bytes.
+     */
+    private final transient long max;
+
+    /**
+     * Total size of staged bodies, in bytes.
+     */
+    private final transient AtomicLong used;
+
+    /**
+     * Latest staged versions by keys of documents.
+     */
+    private final transient ConcurrentMap<String, Staging.Entry> pending;
+
+    /**
+     * Versions being flushed by keys of documents.
+     */
+    private final transient ConcurrentMap<String, Staging.Entry> flushing;
+
+    /**
+     * Locks of documents.
+     */
+    private final transient Striped<Lock> locks;
+
+    /**
+     * Threads flushing documents.
+     */
+    private final transient ScheduledExecutorService flushers;
+
+    /**
+     * Ctor.
+     * @param base Original base
+     * @param path Directory with staged files, may have some already
+     * @param threads Number of threads flushing documents
+     * @param bytes Maximum total size of staged bodies
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    Staging(final Base base, final File path, final int threads,
+        final long bytes) throws IOException {
+        this.origin = base;
+        this.dir = path;
+        this.max = bytes;
+        this.used = new AtomicLong();
+        this.pending = new ConcurrentHashMap<>(0);
+        this.flushing = new ConcurrentHashMap<>(0);
+        this.locks = Striped.lock(Tv.HUNDRED);
+        this.flushers = Executors.newScheduledThreadPool(
+            threads, new VerboseThreads(Staging.class)
+        );
+        this.recover();
+    }
+
+    /**
+     * Stage the document and schedule its flush.
+     * @param urn URN of the user
+     * @param name Name of the document
+     * @param input Body of the document
+     * @param declared Size of the body, or a negative number if it is not
+     *  known until the end of the stream
+     * @param replaced Size of the original document it replaces, in bytes
+     * @return Staged version
+     * @throws IOException If fails, the body is empty, isn't of the
+     *  declared size, or doesn't fit
+     * @checkstyle ParameterNumberCheck (4 lines)
+     */
+    public Staging.Entry stage(final String urn, final String name,
+        final InputStream input, final long declared, final long replaced)
+        throws IOException {
+        final String uid = UUID.randomUUID().toString();
+        final File body = new File(this.dir, String.format("%s.body", uid));
+        final MessageDigest sha = Staging.digest("SHA-256");
+        final MessageDigest md5 = Staging.digest("MD5");
+        final InputStream content = new DigestInputStream(
+            new DigestInputStream(input, md5), sha
+        );
+        final byte[] buffer = new byte[Staging.BUFFER];
+        long size = 0L;
+        try (final FileOutputStream output = new FileOutputStream(body)) {
+            while (true) {
+                final int len = content.read(buffer);
+                if (len < 0) {
+                    break;
+                }
+                this.reserve((long) len);
+                size += (long) len;
+                output.write(buffer, 0, len);
+            }
+            Staging.check(size, declared);
+            output.getFD().sync();
+        } catch (final IOException ex) {
+            this.used.addAndGet(-size);
+            FileUtils.deleteQuietly(body);
+            throw ex;
+        }
+        final Staging.Entry entry = new Staging.Entry(
+            urn, name, body, size, replaced, new Date(),
+            BaseEncoding.base16().lowerCase().encode(md5.digest()),
+            BaseEncoding.base16().lowerCase().encode(sha.digest())
+        );
+        final File temp = new File(this.dir, String.format("%s.tmp", uid));
+        try (final FileOutputStream output = new FileOutputStream(temp)) {
+            output.write(entry.lines().getBytes(StandardCharsets.UTF_8));
+            output.getFD().sync();
+        }
+        Files.move(
+            temp.toPath(), entry.head().toPath(),
+            StandardCopyOption.ATOMIC_MOVE
+        );
+        final Lock lock = this.lock(urn, name);
+        lock.lock();
+        try {
+            final Staging.Entry before = this.pending.put(entry.key(), entry);
+            if (before != null) {
+                Logger.info(this, "%s replaced by %s", before, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+        this.schedule(entry, 0);
+        Logger.info(this, "%s staged", entry);
+        return entry;
+    }
+
+    /**
+     * The latest staged version of the document.
+     * @param urn URN of the user
+     * @param name Name of the document
+     * @return Staged version or NULL if there is none
+     */
+    public Staging.Entry staged(final String urn, final String name) {
+        return this.pending.get(Staging.key(urn, name));
+    }
+
+    /**
+     * Staged versions of all documents of the user.
+     * @param urn URN of the user
+     * @return Staged versions
+     */
+    public Collection<Staging.Entry> staged(final String urn) {
+        final Collection<Staging.Entry> entries = new ArrayList<>(0);
+        for (final Staging.Entry entry : this.pending.values()) {
+            if (entry.urn().equals(urn)) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Lock of the document, to change it without a flush in the middle.
+     * @param urn URN of the user
+     * @param name Name of the document
+     * @return Lock
+     */
+    public Lock lock(final String urn, final String name) {
+        return this.locks.get(Staging.key(urn, name));
+    }
+
+    /**
+     * Drop the staged version of the document, if there is one; the lock
+     * of the document must be held.
+     * @param urn URN of the user
+     * @param name Name of the document
+     * @return TRUE if it was there
+     */
+    public boolean drop(final String urn, final String name) {
+        final Staging.Entry entry = this.pending.remove(
+            Staging.key(urn, name)
+        );
+        if (entry != null) {
+            entry.drop();
+            this.discard(entry);
+            Logger.info(this, "%s dropped", entry);
+        }
+        return entry != null;
+    }
+
+    /**
+     * Schedule a flush.
+     * @param entry Staged version
+     * @param attempt Number of failed attempts before
+     */
+    private void schedule(final Staging.Entry entry, final int attempt) {
+        this.flushers.schedule(
+            new Runnable() {
+                @Override
+                public void run() {
+                    Staging.this.flush(entry, attempt);
+                }
+            },
+            Math.min(Staging.PATIENCE, (1L << Math.min(attempt, Tv.TEN)) - 1L),
+            TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * Flush the staged version, unless there is a newer one, or wait
+     * until the flush of an older one ends.
+     * @param entry Staged version
+     * @param attempt Number of failed attempts before
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void flush(final Staging.Entry entry, final int attempt) {
+        if (this.flushing.putIfAbsent(entry.key(), entry) == null) {
+            try {
+                this.send(entry);
+            } catch (final IOException ex) {
+                Logger.warn(
+                    this, "%s failed to flush, attempt #%d: %[exception]s",
+                    entry, attempt + 1, ex
+                );
+                this.schedule(entry, attempt + 1);
+            // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final RuntimeException ex) {
+                Logger.error(
+                    this, "%s can't be flushed, attempt #%d: %[exception]s",
+                    entry, attempt + 1, ex
+                );
+                if (attempt + 1 < Staging.DOOMED) {
+                    this.schedule(entry, attempt + 1);
+                } else {
+                    this.bury(entry);
+                }
+            } finally {
+                this.flushing.remove(entry.key(), entry);
+            }
+        } else {
+            this.schedule(entry, 1);
+        }
+    }
+
+    /**
+     * Send the staged version to the original base, if it's the latest
+     * one, and forget it.
+     * @param entry Staged version
+     * @throws IOException If fails
+     */
+    private void send(final Staging.Entry entry) throws IOException {
+        if (this.pending.get(entry.key()) == entry) {
+            final Doc doc = this.origin.user(entry.urn()).docs()
+                .doc(entry.name());
+            try (final InputStream input = new FileInputStream(
+                entry.body()
+            )) {
+                doc.write(input, entry.size());
+            }
+            final Lock lock = this.locks.get(entry.key());
+            lock.lock();
+            try {
+                if (this.pending.remove(entry.key(), entry)) {
+                    Logger.info(this, "%s flushed", entry);
+                } else if (entry.dropped()) {
+                    doc.delete();
+                    Logger.info(this, "%s deleted while flushed", entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        this.discard(entry);
+    }
+
+    /**
+     * Move the staged version, which can't be flushed, out of the way,
+     * unless there is a newer one.
+     * @param entry Staged version
+     */
+    private void bury(final Staging.Entry entry) {
+        final Lock lock = this.locks.get(entry.key());
+        lock.lock();
+        try {
+            if (this.pending.remove(entry.key(), entry)) {
+                final File dead = new File(this.dir, "dead");
+                try {
+                    FileUtils.moveFileToDirectory(entry.head(), dead, true);
+                    FileUtils.moveFileToDirectory(entry.body(), dead, true);
+                    this.used.addAndGet(-entry.size());
+                    Logger.error(
+                        this, "%s given up, its files are in %s",
+                        entry, dead
+                    );
+                } catch (final IOException ex) {
+                    Logger.error(
+                        this, "%s given up and lost: %[exception]s",
+                        entry, ex
+                    );
+                }
+            }
+            this.discard(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take space for more bytes of a body being staged.
+     * @param bytes How many
+     * @throws IOException If there is no space
+     */
+    private void reserve(final long bytes) throws IOException {
+        if (this.used.addAndGet(bytes) > this.max) {
+            this.used.addAndGet(-bytes);
+            throw new IOException(
+                String.format(
+                    "staging is full, %d bytes of %d are taken, try later",
+                    this.used.get(), this.max
+                )
+            );
+        }
+    }
+
+    /**
+     * Delete files of the staged version and free its space, once.
+     * @param entry Staged version
+     */
+    private void discard(final Staging.Entry entry) {
+        if (entry.delete()) {
+            this.used.addAndGet(-entry.size());
+        }
+    }
+
+    /**
+     * Make sure the body is of the declared size and not empty.
+     * @param size Size of the body, in bytes
+     * @param declared Declared size or a negative number
+     * @throws IOException If it's not
+     */
+    private static void check(final long size, final long declared)
+        throws IOException {
+        if (size == 0L) {
+            throw new IOException("the document size should be greater 0");
+        }
+        if (declared >= 0L && size != declared) {
+            throw new IOException(
+                String.format(
+                    "%d bytes received, while %d were declared",
+                    size, declared
+                )
+            );
+        }
+    }
+
+    /**
+     * Pick up documents staged before a restart.
+     * @throws IOException If fails
+     */
+    private void recover() throws IOException {
+        final File[] heads = this.dir.listFiles();
+        if (heads != null) {
+            Arrays.sort(heads);
+            for (final File head : heads) {
+                if (head.getName().endsWith(".head")) {
+                    this.restore(head);
+                } else if (head.getName().endsWith(".tmp")) {
+                    FileUtils.deleteQuietly(head);
+                }
+            }
+        }
+        for (final Staging.Entry entry : this.pending.values()) {
+            this.schedule(entry, 0);
+        }
+        Logger.info(this, "%d documents recovered", this.pending.size());
+    }
+
+    /**
+     * Restore a staged version from its head.
+     * @param head Head file
+     * @throws IOException If fails
+     */
+    private void restore(final File head) throws IOException {
+        final List<String> lines = Files.readAllLines(
+            head.toPath(), StandardCharsets.UTF_8
+        );
+        final File body = new File(
+            this.dir, head.getName().replaceAll("\\.head$", ".body")
+        );
+        long replaced = 0L;
+        if (lines.size() > Tv.FIVE) {
+            replaced = Long.parseLong(lines.get(Tv.FIVE));
+        }
+        final Staging.Entry entry = new Staging.Entry(
+            lines.get(0), lines.get(1), body, body.length(), replaced,
+            new Date(Long.parseLong(lines.get(2))),
+            lines.get(Tv.THREE), lines.get(Tv.FOUR)
+        );
+        final Staging.Entry before = this.pending.get(entry.key());
+        if (before == null || before.time().before(entry.time())) {
+            this.pending.put(entry.key(), entry);
+            this.used.addAndGet(entry.size());
+            if (before != null) {
+                this.discard(before);
+            }
+        } else {
+            entry.delete();
+        }
+    }
+
+    /**
+     * Key of the document.
+     * @param urn URN of the user
+     * @param name Name of the document
+     * @return Key
+     */
+    private static String key(final String urn, final String name) {
+        return String.format("%s/%s", urn, name);
+    }
+
+    /**
+     * New digest.
+     * @param algorithm Name of the algorithm
+     * @return Digest
+     */
+    private static MessageDigest digest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Staged version of a document.
+     */
+    static final class Entry {
+        /**
+         * URN of the user.
+         */
+        private final transient String user;
+        /**
+         * Name of the document.
+         */
+        private final transient String label;
+        /**
+         * File with the body.
+         */
+        private final transient File file;
+        /**
+         * Size of the body.
+         */
+        private final transient long bytes;
+        /**
+         * Size of the original document it replaces.
+         */
+        private final transient long before;
+        /**
+         * When it was staged.
+         */
+        private final transient long date;
+        /**
+         * MD5 of the body, in hex.
+         */
+        private final transient String md5;
+        /**
+         * SHA-256 of the body, in hex.
+         */
+        private final transient String sha;
+        /**
+         * It was dropped.
+         */
+        private final transient AtomicBoolean gone;
+        /**
+         * Ctor.
+         * @param urn URN of the user
+         * @param name Name of the document
+         * @param body File with the body
+         * @param size Size of the body
+         * @param replaced Size of the original document it replaces
+         * @param time When it was staged
+         * @param mdf MD5 of the body
+         * @param hash SHA-256 of the body
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Entry(final String urn, final String name, final File body,
+            final long size, final long replaced, final Date time,
+            final String mdf, final String hash) {
+            this.user = urn;
+            this.label = name;
+            this.file = body;
+            this.bytes = size;
+            this.before = replaced;
+            this.date = time.getTime();
+            this.md5 = mdf;
+            this.sha = hash;
+            this.gone = new AtomicBoolean();
+        }
+        @Override
+        public String toString() {
+            return this.key();
+        }
+        /**
+         * URN of the user.
+         * @return URN
+         */
+        public String urn() {
+            return this.user;
+        }
+        /**
+         * Name of the document.
+         * @return Name
+         */
+        public String name() {
+            return this.label;
+        }
+        /**
+         * File with the body.
+         * @return File
+         */
+        public File body() {
+            return this.file;
+        }
+        /**
+         * Size of the body.
+         * @return Bytes
+         */
+        public long size() {
+            return this.bytes;
+        }
+        /**
+         * Size of the original document it replaces, when it was staged.
+         * @return Bytes, zero if there was none
+         */
+        public long replaced() {
+            return this.before;
+        }
+        /**
+         * When it was staged.
+         * @return Date
+         */
+        public Date time() {
+            return new Date(this.date);
+        }
+        /**
+         * Checksum of the body.
+         * @param algorithm Name of the algorithm, "MD5" or "SHA-256"
+         * @return Checksum in lower case hex or empty if it is not known
+         */
+        public String checksum(final String algorithm) {
+            final String hash;
+            if ("MD5".equals(algorithm)) {
+                hash = this.md5;
+            } else if ("SHA-256".equals(algorithm)) {
+                hash = this.sha;
+            } else {
+                hash = "";
+            }
+            return hash;
+        }
+        /**
+         * Key of the document.
+         * @return Key
+         */
+        String key() {
+            return Staging.key(this.user, this.label);
+        }
+        /**
+         * Content of the head file.
+         * @return Lines
+         */
+        String lines() {
+            return Joiner.on('\n').join(
+                this.user, this.label, this.date, this.md5, this.sha,
+                this.before
+            );
+        }
+        /**
+         * File with the head.
+         * @return File
+         */
+        File head() {
+            return new File(
+                this.file.getParentFile(),
+                this.file.getName().replaceAll("\\.body$", ".head")
+            );
+        }
+        /**
+         * Mark it as dropped.
+         */
+        void drop() {
+            this.gone.set(true);
+        }
+        /**
+         * Was it dropped?
+         * @return TRUE if it was
+         */
+        boolean dropped() {
+            return this.gone.get();
+        }
+        /**
+         * Delete files of this version.
+         * @return TRUE if the body was there
+         */
+        boolean delete() {
+            FileUtils.deleteQuietly(this.head());
+            return FileUtils.deleteQuietly(this.file);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import java.io.IOException;
+import java.net.URLConnection;
+import java.util.Date;
+
+/**
+ * Attributes of a staged version of a document.
+ *
+ * <p>The entity tag is the SHA-256 of the body, the same as the one
+ * {@link com.libre.om.aws.AwsAttributes} reports after the flush, so
+ * clients don't download the document again when it's flushed.
+ * Visibility belongs to the original document.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class WbAttributes implements Attributes {
+
+    /**
+     * Staged version.
+     */
+    private final transient Staging.Entry entry;
+
+    /**
+     * Original document.
+     */
+    private final transient Doc origin;
+
+    /**
+     * Ctor.
+     * @param staged Staged version
+     * @param doc Original document
+     */
+    WbAttributes(final Staging.Entry staged, final Doc doc) {
+        this.entry = staged;
+        this.origin = doc;
+    }
+
+    @Override
+    public long size() {
+        return this.entry.size();
+    }
+
+    @Override
+    public String type() {
+        String type = URLConnection.guessContentTypeFromName(
+            this.entry.name()
+        );
+        if (type == null) {
+            type = "application/octet-stream";
+        }
+        return type;
+    }
+
+    @Override
+    public Date created() throws IOException {
+        final Date created;
+        if (this.origin.exists()) {
+            created = this.origin.attributes().created();
+        } else {
+            created = this.entry.time();
+        }
+        return created;
+    }
+
+    @Override
+    public Date modified() {
+        return this.entry.time();
+    }
+
+    @Override
+    public String etag() {
+        return this.entry.checksum("SHA-256");
+    }
+
+    @Override
+    public String checksum(final String algorithm) {
+        return this.entry.checksum(algorithm);
+    }
+
+    @Override
+    public String encoding() {
+        return "identity";
+    }
+
+    @Override
+    public boolean visible() throws IOException {
+        return this.origin.exists() && this.origin.attributes().visible();
+    }
+
+    @Override
+    public void show(final boolean shown) throws IOException {
+        this.origin.attributes().show(shown);
+    }
+
+}
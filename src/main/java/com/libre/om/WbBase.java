@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import java.io.File;
+import java.io.IOException;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Base that writes documents behind, through a local staging directory.
+ *
+ * <p>{@link Doc#write(java.io.InputStream, long)} returns as soon as
+ * the body is synced to the local disk, and a few threads flush it to
+ * the original base later. Until then the staged version is seen by
+ * reads and listings of the user, see {@link Staging}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+public final class WbBase implements Base {
+
+    /**
+     * Default maximum total size of staged bodies, in bytes.
+     */
+    public static final long MAX = 10_000_000_000L;
+
+    /**
+     * Original base.
+     */
+    private final transient Base origin;
+
+    /**
+     * Staged documents.
+     */
+    private final transient Staging staging;
+
+    /**
+     * Ctor.
+     * @param base Original base
+     * @param dir Staging directory, documents left there are flushed
+     * @throws IOException If fails
+     */
+    public WbBase(final Base base, final File dir) throws IOException {
+        this(base, dir, WbBase.MAX);
+    }
+
+    /**
+     * Ctor.
+     * @param base Original base
+     * @param dir Staging directory, documents left there are flushed
+     * @param max Maximum total size of staged bodies, in bytes
+     * @throws IOException If fails
+     */
+    public WbBase(final Base base, final File dir, final long max)
+        throws IOException {
+        this(base, dir, 4, max);
+    }
+
+    /**
+     * Ctor.
+     * @param base Original base
+     * @param dir Staging directory, documents left there are flushed
+     * @param threads Number of threads flushing documents
+     * @param max Maximum total size of staged bodies, in bytes
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public WbBase(final Base base, final File dir, final int threads,
+        final long max) throws IOException {
+        this.origin = base;
+        this.staging = new Staging(base, dir, threads, max);
+    }
+
+    @Override
+    public User user(final String urn) throws IOException {
+        return new WbUser(this.origin.user(urn), this.staging);
+    }
+
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import com.jcabi.log.Logger;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Lock;
+import lombok.EqualsAndHashCode;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Document of {@link WbBase}.
+ *
+ * <p>The staged version, if there is one, is newer than the original
+ * document, so it is read instead. Its file may be deleted right after
+ * a flush, and then the original document has the same content.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+final class WbDoc implements Doc {
+
+    /**
+     * Original document.
+     */
+    private final transient Doc origin;
+
+    /**
+     * Staged documents.
+     */
+    private final transient Staging staging;
+
+    /**
+     * URN of the user.
+     */
+    private final transient String user;
+
+    /**
+     * Name of the document.
+     */
+    private final transient String label;
+
+    /**
+     * Ctor.
+     * @param doc Original document
+     * @param stg Staged documents
+     * @param urn URN of the user
+     * @param name Name of the document
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    WbDoc(final Doc doc, final Staging stg, final String urn,
+        final String name) {
+        this.origin = doc;
+        this.staging = stg;
+        this.user = urn;
+        this.label = name;
+    }
+
+    @Override
+    public boolean exists() throws IOException {
+        return this.staging.staged(this.user, this.label) != null
+            || this.origin.exists();
+    }
+
+    @Override
+    public void delete() throws IOException {
+        final Lock lock = this.staging.lock(this.user, this.label);
+        lock.lock();
+        try {
+            if (!this.staging.drop(this.user, this.label)
+                || this.origin.exists()) {
+                this.origin.delete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Friends friends() throws IOException {
+        return this.origin.friends();
+    }
+
+    @Override
+    public void read(final OutputStream output) throws IOException {
+        final InputStream input = this.staged();
+        if (input == null) {
+            this.origin.read(output);
+        } else {
+            try (final InputStream body = input) {
+                IOUtils.copyLarge(body, output);
+            }
+        }
+    }
+
+    @Override
+    public void read(final OutputStream output, final long offset,
+        final long length) throws IOException {
+        final InputStream input = this.staged();
+        if (input == null) {
+            this.origin.read(output, offset, length);
+        } else {
+            try (final InputStream body = input) {
+                IOUtils.copyLarge(body, output, offset, length);
+            }
+        }
+    }
+
+    @Override
+    public void encoded(final OutputStream output) throws IOException {
+        final InputStream input = this.staged();
+        if (input == null) {
+            this.origin.encoded(output);
+        } else {
+            try (final InputStream body = input) {
+                IOUtils.copyLarge(body, output);
+            }
+        }
+    }
+
+    @Override
+    public void write(final InputStream input, final long size)
+        throws IOException {
+        long replaced = 0L;
+        if (this.origin.exists()) {
+            if (!this.origin.friends().leader()) {
+                throw new IllegalStateException("you can't write to this doc");
+            }
+            replaced = this.origin.attributes().size();
+        }
+        this.staging.stage(this.user, this.label, input, size, replaced);
+    }
+
+    @Override
+    public String shortUrl() {
+        return this.origin.shortUrl();
+    }
+
+    @Override
+    public Attributes attributes() throws IOException {
+        final Staging.Entry entry = this.staging.staged(this.user, this.label);
+        final Attributes attrs;
+        if (entry == null) {
+            attrs = this.origin.attributes();
+        } else {
+            attrs = new WbAttributes(entry, this.origin);
+        }
+        return attrs;
+    }
+
+    /**
+     * Body of the staged version, if it is still there.
+     * @return Stream or NULL if there is no staged version
+     */
+    private InputStream staged() {
+        final Staging.Entry entry = this.staging.staged(this.user, this.label);
+        InputStream input = null;
+        if (entry != null) {
+            try {
+                input = new FileInputStream(entry.body());
+            } catch (final FileNotFoundException ex) {
+                Logger.info(this, "%s flushed while being read", entry);
+            }
+        }
+        return input;
+    }
+
+}
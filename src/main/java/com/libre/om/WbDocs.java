@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Documents of {@link WbBase}, including staged ones.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = { "origin", "user" })
+final class WbDocs implements Docs {
+
+    /**
+     * Original documents.
+     */
+    private final transient Docs origin;
+
+    /**
+     * Staged documents.
+     */
+    private final transient Staging staging;
+
+    /**
+     * URN of the user.
+     */
+    private final transient String user;
+
+    /**
+     * Ctor.
+     * @param docs Original documents
+     * @param stg Staged documents
+     * @param urn URN of the user
+     */
+    WbDocs(final Docs docs, final Staging stg, final String urn) {
+        this.origin = docs;
+        this.staging = stg;
+        this.user = urn;
+    }
+
+    @Override
+    public List<String> names() throws IOException {
+        final Collection<String> names = new LinkedHashSet<>(
+            this.origin.names()
+        );
+        for (final Staging.Entry entry : this.staging.staged(this.user)) {
+            names.add(entry.name());
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The document has the same limits as documents of the original
+     * base, so a body which would fail to flush is refused before it's
+     * staged.
+     */
+    @Override
+    public Doc doc(final String name) throws IOException {
+        return new SafeDoc(
+            new SmallDoc(
+                new WbDoc(
+                    this.origin.doc(name), this.staging, this.user, name
+                ),
+                SmallDoc.LARGE
+            )
+        );
+    }
+
+    @Override
+    public List<String> names(final String after, final int limit)
+        throws IOException {
+        final SortedSet<String> names = new TreeSet<>(
+            this.origin.names(after, limit)
+        );
+        for (final Staging.Entry entry : this.staging.staged(this.user)) {
+            if (entry.name().compareTo(after) > 0) {
+                names.add(entry.name());
+            }
+        }
+        return new ArrayList<>(names).subList(
+            0, Math.min(limit, names.size())
+        );
+    }
+
+    @Override
+    public Map<String, Doc> snapshot(final String after, final int limit)
+        throws IOException {
+        final SortedMap<String, Doc> docs = new TreeMap<>(
+            this.origin.snapshot(after, limit)
+        );
+        for (final Staging.Entry entry : this.staging.staged(this.user)) {
+            if (entry.name().compareTo(after) > 0) {
+                docs.put(entry.name(), this.doc(entry.name()));
+            }
+        }
+        final Map<String, Doc> page = new LinkedHashMap<>(0);
+        for (final Map.Entry<String, Doc> doc : docs.entrySet()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.put(doc.getKey(), doc.getValue());
+        }
+        return page;
+    }
+
+    @Override
+    public List<String> find(final String query, final int limit)
+        throws IOException {
+        final Collection<String> names = new LinkedHashSet<>(
+            this.origin.find(query, limit)
+        );
+        for (final Staging.Entry entry : this.staging.staged(this.user)) {
+            names.add(entry.name());
+        }
+        return Catalog.find(names, query, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Every staged document adds its size and takes away the size of
+     * the original document it replaces, as it was when staged, so the
+     * original base is asked only for its total.
+     */
+    @Override
+    public long size() throws IOException {
+        long total = this.origin.size();
+        for (final Staging.Entry entry : this.staging.staged(this.user)) {
+            total += entry.size() - entry.replaced();
+        }
+        return total;
+    }
+
+}
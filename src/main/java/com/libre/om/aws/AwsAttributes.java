@@ -35,6 +35,7 @@ import com.amazonaws.util.DateUtils;
 import com.libre.om.Attributes;
 import java.io.IOException;
 import java.util.Date;
+import java.util.regex.Pattern;
 import lombok.EqualsAndHashCode;
 
 /**
@@ -52,6 +53,11 @@ public final class AwsAttributes implements Attributes {
      */
     private static final String VISIBLE_ATTR = "visible";
 
+    /**
+     * Entity tag of an object uploaded in one piece, which is its MD5.
+     */
+    private static final Pattern PLAIN = Pattern.compile("[0-9a-f]{32}");
+
     /**
      * AWS document metadata.
      */
@@ -67,7 +73,14 @@ public final class AwsAttributes implements Attributes {
 
     @Override
     public long size() throws IOException {
-        return this.meta.getContentLength();
+        final String size = this.meta.getUserMetaDataOf(Blobs.SIZE);
+        final long bytes;
+        if (size == null) {
+            bytes = this.meta.getContentLength();
+        } else {
+            bytes = Long.parseLong(size);
+        }
+        return bytes;
     }
 
     @Override
@@ -88,6 +101,49 @@ public final class AwsAttributes implements Attributes {
         return dat;
     }
 
+    @Override
+    public Date modified() throws IOException {
+        return this.meta.getLastModified();
+    }
+
+    @Override
+    public String etag() throws IOException {
+        String etag = this.meta.getUserMetaDataOf(Blobs.HEADER);
+        if (etag == null) {
+            etag = this.meta.getETag();
+        }
+        return etag;
+    }
+
+    @Override
+    public String checksum(final String algorithm) throws IOException {
+        String hash = null;
+        if ("SHA-256".equals(algorithm)) {
+            hash = this.meta.getUserMetaDataOf(Blobs.HEADER);
+        } else if ("MD5".equals(algorithm)) {
+            hash = this.meta.getUserMetaDataOf(Blobs.MD5);
+            final String etag = this.meta.getETag();
+            if (hash == null && etag != null
+                && this.meta.getUserMetaDataOf(Blobs.HEADER) == null
+                && AwsAttributes.PLAIN.matcher(etag).matches()) {
+                hash = etag;
+            }
+        }
+        if (hash == null) {
+            hash = "";
+        }
+        return hash;
+    }
+
+    @Override
+    public String encoding() throws IOException {
+        String coding = this.meta.getUserMetaDataOf(Blobs.ENCODING);
+        if (coding == null) {
+            coding = "identity";
+        }
+        return coding;
+    }
+
     @Override
     public boolean visible() throws IOException {
         return Boolean.parseBoolean(
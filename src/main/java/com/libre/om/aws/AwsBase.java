@@ -37,6 +37,11 @@ import lombok.EqualsAndHashCode;
 /**
  * AWS-based version of Base.
  *
+ * <p>Every user remembers metadata of objects it was asked about, see
+ * {@link McBucket}, so a user has to be taken again in every request.
+ * Redirects of shared documents are resolved once for the whole node,
+ * see {@link Redirects}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 0.2
@@ -49,16 +54,22 @@ public final class AwsBase implements Base {
      */
     private final transient Bucket bucket;
 
+    /**
+     * Resolved redirects, for all users.
+     */
+    private final transient Redirects redirects;
+
     /**
      * Ctor.
      * @param bkt Bucket
      */
     public AwsBase(final Bucket bkt) {
         this.bucket = bkt;
+        this.redirects = new Redirects();
     }
 
     @Override
     public User user(final String urn) {
-        return new AwsUser(this.bucket, urn);
+        return new AwsUser(new McBucket(this.bucket), this.redirects, urn);
     }
 }
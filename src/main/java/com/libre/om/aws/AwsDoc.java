@@ -29,7 +29,10 @@
  */
 package com.libre.om.aws;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
 import com.jcabi.log.Logger;
 import com.jcabi.manifests.Manifests;
 import com.jcabi.s3.Bucket;
@@ -38,16 +41,28 @@ import com.libre.om.Attributes;
 import com.libre.om.Doc;
 import com.libre.om.Friends;
 import com.rosaloves.bitlyj.Bitly;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.regex.Pattern;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.InflaterOutputStream;
 import javax.validation.constraints.NotNull;
 import lombok.EqualsAndHashCode;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.takes.misc.Href;
 
 /**
  * AWS-based version of Doc.
  *
+ * <p>Bodies of text documents are deflated while they are written and
+ * inflated while they are read, see {@link #COMPRESSIBLE}. Sizes and
+ * checksums in attributes are of the content as it was written.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 0.2
@@ -60,11 +75,30 @@ final class AwsDoc implements Doc {
      */
     public static final String HEADER = "x-ndk-redirect";
 
+    /**
+     * Names of documents with text content, which is worth compressing.
+     *
+     * <p>Office documents in XML, like DOCX or ODT, are not here, since
+     * they are ZIP archives already.
+     */
+    private static final Pattern COMPRESSIBLE = Pattern.compile(
+        StringUtils.join(
+            ".*\\.(txt|text|csv|tsv|json|xml|xsl|xsd|html?|css|js|md",
+            "|yaml|yml|log|svg|sql|rtf|tex|ini|properties|java|py|rb|c|h)"
+        ),
+        Pattern.CASE_INSENSITIVE
+    );
+
     /**
      * Bucket.
      */
     private final transient Bucket bucket;
 
+    /**
+     * Resolved redirects.
+     */
+    private final transient Redirects redirects;
+
     /**
      * URN of the user.
      */
@@ -78,11 +112,14 @@ final class AwsDoc implements Doc {
     /**
      * Ctor.
      * @param bkt Bucket
+     * @param rdr Resolved redirects
      * @param urn URN of the user
      * @param doc Name of document
      */
-    AwsDoc(final Bucket bkt, final String urn, final String doc) {
+    AwsDoc(final Bucket bkt, final Redirects rdr, final String urn,
+        final String doc) {
         this.bucket = bkt;
+        this.redirects = rdr;
         this.user = urn;
         this.label = doc;
     }
@@ -94,39 +131,124 @@ final class AwsDoc implements Doc {
 
     @Override
     public void delete() throws IOException {
-        this.bucket.remove(this.ocket().key());
+        final Ocket ocket = this.ocket();
+        String hash = null;
+        if (ocket.exists()) {
+            hash = ocket.meta().getUserMetaDataOf(Blobs.HEADER);
+        }
+        this.bucket.remove(ocket.key());
+        this.redirects.forget(ocket.key());
+        new Index(this.bucket, this.user).put(this.label, null);
+        if (hash != null) {
+            new Blobs(this.bucket).release(hash, ocket.key());
+        }
     }
 
     @Override
     public Friends friends() {
-        return new AwsFriends(this.bucket, this.user, this.label);
+        return new AwsFriends(
+            this.bucket, this.redirects, this.user, this.label
+        );
     }
 
     @Override
     public void read(@NotNull final OutputStream output) throws IOException {
-        Ocket ocket = this.ocket();
-        final String redir = ocket.meta().getUserMetaDataOf(AwsDoc.HEADER);
-        if (redir != null) {
-            ocket = this.bucket.ocket(redir);
+        final Ocket doc = this.document();
+        final ObjectMetadata meta = doc.meta();
+        final Ocket ocket = this.origin(doc, meta);
+        if (Blobs.deflated(meta)) {
+            final Inflater inflater = new Inflater();
+            try {
+                final OutputStream stream = new InflaterOutputStream(
+                    new CloseShieldOutputStream(output), inflater
+                );
+                ocket.read(stream);
+                stream.close();
+            } finally {
+                inflater.end();
+            }
+        } else {
+            ocket.read(output);
         }
-        ocket.read(output);
         Logger.info(this, "%s read", ocket);
     }
 
+    @Override
+    public void read(@NotNull final OutputStream output, final long offset,
+        final long length) throws IOException {
+        final Ocket doc = this.document();
+        final ObjectMetadata meta = doc.meta();
+        final Ocket ocket = this.origin(doc, meta);
+        final GetObjectRequest request = new GetObjectRequest(
+            ocket.bucket().name(), ocket.key()
+        );
+        final boolean deflated = Blobs.deflated(meta);
+        if (!deflated) {
+            request.setRange(offset, offset + length - 1L);
+        }
+        final S3Object object;
+        try {
+            object = ocket.bucket().region().aws().getObject(request);
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        }
+        if (deflated) {
+            final Inflater inflater = new Inflater();
+            try (final InputStream input = new InflaterInputStream(
+                object.getObjectContent(), inflater
+            )) {
+                IOUtils.copyLarge(input, output, offset, length);
+            } finally {
+                inflater.end();
+            }
+        } else {
+            try (final InputStream input = object.getObjectContent()) {
+                IOUtils.copyLarge(input, output);
+            }
+        }
+        Logger.info(this, "%s read, %d bytes from %d", ocket, length, offset);
+    }
+
+    @Override
+    public void encoded(@NotNull final OutputStream output)
+        throws IOException {
+        final Ocket doc = this.document();
+        final Ocket ocket = this.origin(doc, doc.meta());
+        ocket.read(output);
+        Logger.info(this, "%s read as it is stored", ocket);
+    }
+
     @Override
     public void write(final InputStream input, final long size)
         throws IOException {
         final Ocket ocket = this.ocket();
-        if (ocket.exists()
-            && ocket.meta().getUserMetaDataOf(AwsDoc.HEADER) != null) {
-            throw new IllegalStateException("you can't write to this doc");
+        String previous = null;
+        if (ocket.exists()) {
+            final ObjectMetadata meta = ocket.meta();
+            if (meta.getUserMetaDataOf(AwsDoc.HEADER) != null) {
+                throw new IllegalStateException("you can't write to this doc");
+            }
+            previous = meta.getUserMetaDataOf(Blobs.HEADER);
         }
+        final Blobs blobs = new Blobs(this.bucket);
         final ObjectMetadata meta = new ObjectMetadata();
-        if (size > 0) {
-            meta.setContentLength(size);
+        blobs.save(
+            ocket.key(), input, meta,
+            AwsDoc.COMPRESSIBLE.matcher(this.label).matches(), previous
+        );
+        meta.setContentLength(0L);
+        ocket.write(new ByteArrayInputStream(new byte[0]), meta);
+        new Index(this.bucket, this.user).put(
+            this.label, Index.Entry.of(meta)
+        );
+        final String hash = meta.getUserMetaDataOf(Blobs.HEADER);
+        if (previous != null && !previous.equals(hash)) {
+            blobs.release(previous, ocket.key());
         }
-        ocket.write(input, meta);
-        Logger.info(this, "%d bytes saved to %s", size, ocket.key());
+        Logger.info(
+            this, "%s bytes saved to %s as %s",
+            meta.getUserMetaDataOf(Blobs.SIZE), ocket.key(), hash
+        );
     }
 
     @Override
@@ -147,7 +269,34 @@ final class AwsDoc implements Doc {
 
     @Override
     public Attributes attributes() throws IOException {
-        return new AwsAttributes(this.ocket().meta());
+        return new AwsAttributes(this.document().meta());
+    }
+
+    /**
+     * Ocket with the content: the body the document refers to, or
+     * the document itself if it was saved before bodies were shared.
+     * @param doc Ocket of the document
+     * @param meta Its metadata
+     * @return Ocket
+     */
+    private Ocket origin(final Ocket doc, final ObjectMetadata meta) {
+        final String hash = meta.getUserMetaDataOf(Blobs.HEADER);
+        final Ocket origin;
+        if (hash == null) {
+            origin = doc;
+        } else {
+            origin = this.bucket.ocket(Blobs.key(hash));
+        }
+        return origin;
+    }
+
+    /**
+     * Ocket of the document, following the redirect if it's present.
+     * @return Ocket
+     * @throws IOException If fails
+     */
+    private Ocket document() throws IOException {
+        return this.bucket.ocket(this.redirects.target(this.ocket()));
     }
 
     /**
@@ -29,21 +29,35 @@
  */
 package com.libre.om.aws;
 
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.jcabi.s3.Bucket;
+import com.libre.om.Catalog;
 import com.libre.om.Doc;
 import com.libre.om.Docs;
 import com.libre.om.SafeDoc;
 import com.libre.om.SmallDoc;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.EqualsAndHashCode;
 
 /**
  * AWS-based version of Docs.
  *
+ * <p>Pages of names are listed by S3, starting from a marker, so a page
+ * costs the same no matter how many documents the user has.
+ * The snapshot and the total size are taken from the {@link Index}
+ * of the user: a page of the snapshot reads only the chunks of the index
+ * it is in, and the size is read from the metadata of chunks.
+ * Documents shared with the user are not counted in the size, but they
+ * are listed with the attributes of their owners, each read from the
+ * one chunk of the index of its owner it is in.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 0.2
@@ -56,6 +70,11 @@ final class AwsDocs implements Docs {
      */
     private final transient Bucket bucket;
 
+    /**
+     * Resolved redirects.
+     */
+    private final transient Redirects redirects;
+
     /**
      * User.
      */
@@ -64,10 +83,12 @@ final class AwsDocs implements Docs {
     /**
      * Ctor.
      * @param bkt Bucket
+     * @param rdr Resolved redirects
      * @param urn URN of the user
      */
-    AwsDocs(final Bucket bkt, final String urn) {
+    AwsDocs(final Bucket bkt, final Redirects rdr, final String urn) {
         this.bucket = bkt;
+        this.redirects = rdr;
         this.user = urn;
     }
 
@@ -88,24 +109,66 @@ final class AwsDocs implements Docs {
         );
     }
 
+    @Override
+    public List<String> names(final String after, final int limit)
+        throws IOException {
+        final Listing listing = new Listing(this.bucket, this.prefix());
+        final List<String> names = new ArrayList<>(0);
+        for (final S3ObjectSummary object : listing.page(after, limit)) {
+            names.add(listing.name(object));
+        }
+        return names;
+    }
+
     @Override
     public Doc doc(final String doc) {
         return new SafeDoc(
             new SmallDoc(
-                new CdShortUrl(new AwsDoc(this.bucket, this.user, doc)),
-                // @checkstyle MagicNumber (1 line))
-                250_000_000L
+                new CdShortUrl(
+                    new AwsDoc(this.bucket, this.redirects, this.user, doc)
+                ),
+                SmallDoc.LARGE
             )
         );
     }
 
     @Override
-    public long size() throws IOException {
-        long total = 0L;
-        for (final String object : this.bucket.list(this.prefix())) {
-            total += this.bucket.ocket(object).meta().getContentLength();
+    public Map<String, Doc> snapshot(final String after, final int limit)
+        throws IOException {
+        final Index index = new Index(this.bucket, this.user);
+        final Map<String, Doc> docs = new LinkedHashMap<>(0);
+        for (final Map.Entry<String, Index.Entry> item
+            : index.entries(after, limit).entrySet()) {
+            final String name = item.getKey();
+            final String target = item.getValue().target();
+            Index.Entry entry = item.getValue();
+            if (!target.isEmpty()) {
+                final String owner = target.substring(0, target.indexOf('/'));
+                entry = new Index(this.bucket, owner).entry(
+                    target.substring(owner.length() + 1)
+                );
+                if (entry != null) {
+                    entry = entry.withLinks(item.getValue());
+                }
+            }
+            if (entry == null) {
+                docs.put(name, this.doc(name));
+            } else {
+                docs.put(name, new IxDoc(this.doc(name), index, name, entry));
+            }
         }
-        return total;
+        return docs;
+    }
+
+    @Override
+    public List<String> find(final String query, final int limit)
+        throws IOException {
+        return Catalog.find(this.names(), query, limit);
+    }
+
+    @Override
+    public long size() throws IOException {
+        return new Index(this.bucket, this.user).bytes();
     }
 
     /**
@@ -31,6 +31,7 @@ package com.libre.om.aws;
 
 import com.amazonaws.services.s3.model.CopyObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.jcabi.immutable.ArrayMap;
 import com.jcabi.s3.Bucket;
@@ -65,6 +66,11 @@ final class AwsFriends implements Friends {
      */
     private final transient Bucket bucket;
 
+    /**
+     * Resolved redirects.
+     */
+    private final transient Redirects redirects;
+
     /**
      * URN of the user.
      */
@@ -78,11 +84,14 @@ final class AwsFriends implements Friends {
     /**
      * Ctor.
      * @param bkt Bucket
+     * @param rdr Resolved redirects
      * @param urn URN of the user
      * @param doc Name of document
      */
-    AwsFriends(final Bucket bkt, final String urn, final String doc) {
+    AwsFriends(final Bucket bkt, final Redirects rdr, final String urn,
+        final String doc) {
         this.bucket = bkt;
+        this.redirects = rdr;
         this.user = urn;
         this.label = doc;
     }
@@ -118,11 +127,14 @@ final class AwsFriends implements Friends {
                 ocket.key()
             ).withNewObjectMetadata(meta)
         );
+        new Forgetful.Smart(ocket.bucket()).forget(ocket.key());
         final ObjectMetadata fmeta = new ObjectMetadata();
-        fmeta.addUserMetadata(AwsDoc.HEADER, "true");
-        this.bucket.ocket(String.format("%s/%s", name, this.label)).write(
-            IOUtils.toInputStream(""), fmeta
-        );
+        fmeta.addUserMetadata(AwsDoc.HEADER, this.key());
+        final String stub = String.format("%s/%s", name, this.label);
+        this.bucket.ocket(stub).write(IOUtils.toInputStream(""), fmeta);
+        this.redirects.forget(stub);
+        this.index(friends);
+        new Index(this.bucket, name).put(this.label, Index.Entry.of(fmeta));
     }
 
     @Override
@@ -145,7 +157,33 @@ final class AwsFriends implements Friends {
                 ocket.key()
             ).withNewObjectMetadata(meta)
         );
-        this.bucket.remove(String.format("%s/%s", name, this.label));
+        new Forgetful.Smart(ocket.bucket()).forget(ocket.key());
+        final String stub = String.format("%s/%s", name, this.label);
+        this.bucket.remove(stub);
+        this.redirects.forget(stub);
+        this.index(friends);
+        new Index(this.bucket, name).put(this.label, null);
+    }
+
+    /**
+     * Record friends in the index of the user.
+     * @param friends Names of friends
+     * @throws IOException If fails
+     */
+    private void index(final Iterable<String> friends) throws IOException {
+        new Index(this.bucket, this.user).update(
+            this.label,
+            new Function<Index.Entry, Index.Entry>() {
+                @Override
+                public Index.Entry apply(final Index.Entry before) {
+                    Index.Entry after = before;
+                    if (before != null) {
+                        after = before.withFriends(friends);
+                    }
+                    return after;
+                }
+            }
+        );
     }
 
     /**
@@ -0,0 +1,350 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import com.jcabi.s3.Ocket;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Upload of a stream into an ocket.
+ *
+ * <p>S3 needs the size of an object before its content, otherwise the
+ * entire content is buffered in memory, and a failure of a long PUT means
+ * starting from zero. Here, the stream is sent in parts of a fixed size,
+ * by the multipart upload API of S3. A few parts are uploaded at the same
+ * time by a thread pool shared by the node, while the next one is being
+ * read from the stream. A failed part is retried on its own; if it still
+ * fails, the upload is aborted. A stream shorter than one part is written
+ * as a usual object.
+ *
+ * <p>The number of parts in memory is limited for the entire node; when
+ * the limit is reached, reading of the stream waits.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class AwsUpload {
+
+    /**
+     * Size of a part, the minimum S3 accepts.
+     */
+    public static final int PART = 5 << 20;
+
+    /**
+     * Maximum number of parts uploaded at the same time by one upload.
+     */
+    private static final int WINDOW = 4;
+
+    /**
+     * Threads uploading parts.
+     */
+    private static final ExecutorService THREADS =
+        Executors.newFixedThreadPool(
+            // @checkstyle MagicNumber (1 line)
+            8, new VerboseThreads(AwsUpload.class)
+        );
+
+    /**
+     * Permits to keep a part in memory, for the entire node.
+     */
+    private static final Semaphore BUFFERS =
+        // @checkstyle MagicNumber (1 line)
+        new Semaphore(12);
+
+    /**
+     * Ocket.
+     */
+    private final transient Ocket ocket;
+
+    /**
+     * Ctor.
+     * @param ockt Ocket to write to
+     */
+    AwsUpload(final Ocket ockt) {
+        this.ocket = ockt;
+    }
+
+    /**
+     * Write the entire stream.
+     * @param input Input stream
+     * @param meta Metadata of the object
+     * @return Number of bytes written
+     * @throws IOException If fails
+     */
+    public long write(final InputStream input, final ObjectMetadata meta)
+        throws IOException {
+        final byte[] first = AwsUpload.acquire();
+        final long total;
+        boolean owned = true;
+        try {
+            final int len = IOUtils.read(input, first);
+            if (len < first.length) {
+                meta.setContentLength((long) len);
+                this.ocket.write(
+                    new ByteArrayInputStream(first, 0, len), meta
+                );
+                total = (long) len;
+            } else {
+                owned = false;
+                total = this.multipart(input, meta, first);
+            }
+        } finally {
+            if (owned) {
+                AwsUpload.BUFFERS.release();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Upload the stream in parts.
+     * @param input Input stream
+     * @param meta Metadata of the object
+     * @param first The first part, full, its buffer permit is passed along
+     * @return Number of bytes written
+     * @throws IOException If fails
+     */
+    private long multipart(final InputStream input, final ObjectMetadata meta,
+        final byte[] first) throws IOException {
+        final AmazonS3 aws = this.ocket.bucket().region().aws();
+        final String upload;
+        try {
+            upload = aws.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(
+                    this.ocket.bucket().name(), this.ocket.key(), meta
+                )
+            ).getUploadId();
+        } catch (final AmazonClientException ex) {
+            AwsUpload.BUFFERS.release();
+            throw new IOException(ex);
+        }
+        final Deque<Future<PartETag>> running = new LinkedList<>();
+        final List<PartETag> tags = new LinkedList<>();
+        boolean done = false;
+        try {
+            byte[] buffer = first;
+            int len = first.length;
+            int number = 0;
+            long total = 0L;
+            while (len > 0) {
+                ++number;
+                running.add(
+                    AwsUpload.THREADS.submit(
+                        this.part(aws, upload, number, buffer, len)
+                    )
+                );
+                total += (long) len;
+                if (running.size() >= AwsUpload.WINDOW) {
+                    tags.add(AwsUpload.await(running.poll()));
+                }
+                buffer = AwsUpload.acquire();
+                try {
+                    len = IOUtils.read(input, buffer);
+                } catch (final IOException | RuntimeException ex) {
+                    AwsUpload.BUFFERS.release();
+                    throw ex;
+                }
+                if (len == 0) {
+                    AwsUpload.BUFFERS.release();
+                }
+            }
+            while (!running.isEmpty()) {
+                tags.add(AwsUpload.await(running.poll()));
+            }
+            aws.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(
+                    this.ocket.bucket().name(), this.ocket.key(), upload, tags
+                )
+            );
+            new Forgetful.Smart(this.ocket.bucket()).forget(this.ocket.key());
+            done = true;
+            Logger.info(
+                this, "%d bytes uploaded to %s in %d parts",
+                total, this.ocket.key(), tags.size()
+            );
+            return total;
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            if (!done) {
+                AwsUpload.drain(running);
+                this.abort(aws, upload);
+            }
+        }
+    }
+
+    /**
+     * Abort the upload, without hiding the failure that caused it.
+     * @param aws S3 client
+     * @param upload Upload ID
+     */
+    private void abort(final AmazonS3 aws, final String upload) {
+        try {
+            aws.abortMultipartUpload(
+                new AbortMultipartUploadRequest(
+                    this.ocket.bucket().name(), this.ocket.key(), upload
+                )
+            );
+        } catch (final AmazonClientException ex) {
+            Logger.warn(
+                this, "upload %s of %s can't be aborted: %s",
+                upload, this.ocket.key(), ex
+            );
+        }
+    }
+
+    /**
+     * Task uploading a part, retrying it a few times if it fails.
+     * @param aws S3 client
+     * @param upload Upload ID
+     * @param number Number of the part, starting from one
+     * @param buffer Content of the part, its buffer permit is released
+     *  when the task ends
+     * @param len Size of the part
+     * @return Task
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private Callable<PartETag> part(final AmazonS3 aws, final String upload,
+        final int number, final byte[] buffer, final int len) {
+        final String bucket = this.ocket.bucket().name();
+        final String key = this.ocket.key();
+        return new Callable<PartETag>() {
+            @Override
+            public PartETag call() {
+                try {
+                    int attempt = 1;
+                    while (true) {
+                        try {
+                            return aws.uploadPart(
+                                new UploadPartRequest()
+                                    .withBucketName(bucket)
+                                    .withKey(key)
+                                    .withUploadId(upload)
+                                    .withPartNumber(number)
+                                    .withInputStream(
+                                        new ByteArrayInputStream(
+                                            buffer, 0, len
+                                        )
+                                    )
+                                    .withPartSize((long) len)
+                            ).getPartETag();
+                        } catch (final AmazonClientException ex) {
+                            if (attempt >= Tv.THREE) {
+                                throw ex;
+                            }
+                            Logger.warn(
+                                AwsUpload.this,
+                                "part #%d of %s failed, retrying: %s",
+                                number, key, ex.getMessage()
+                            );
+                            ++attempt;
+                        }
+                    }
+                } finally {
+                    AwsUpload.BUFFERS.release();
+                }
+            }
+        };
+    }
+
+    /**
+     * Take a permit and make a buffer for a part.
+     * @return Buffer
+     * @throws IOException If interrupted
+     */
+    private static byte[] acquire() throws IOException {
+        try {
+            AwsUpload.BUFFERS.acquire();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+        return new byte[AwsUpload.PART];
+    }
+
+    /**
+     * Wait for the part to be uploaded.
+     * @param future Part being uploaded
+     * @return Tag of the part
+     * @throws IOException If fails
+     */
+    private static PartETag await(final Future<PartETag> future)
+        throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Wait for all parts to finish, ignoring their failures, so that
+     * none of them is still running when the upload is aborted.
+     * @param running Parts being uploaded
+     */
+    private static void drain(final Iterable<Future<PartETag>> running) {
+        for (final Future<PartETag> future : running) {
+            try {
+                AwsUpload.await(future);
+            } catch (final IOException ex) {
+                Logger.debug(AwsUpload.class, "part failed: %s", ex);
+            }
+        }
+    }
+
+}
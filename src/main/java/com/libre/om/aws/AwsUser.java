@@ -50,6 +50,11 @@ public final class AwsUser implements User {
      */
     private final transient Bucket bucket;
 
+    /**
+     * Resolved redirects.
+     */
+    private final transient Redirects redirects;
+
     /**
      * URN of user.
      */
@@ -61,13 +66,24 @@ public final class AwsUser implements User {
      * @param urn URN of the user
      */
     public AwsUser(final Bucket bkt, final String urn) {
+        this(bkt, new Redirects(), urn);
+    }
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     * @param rdr Resolved redirects
+     * @param urn URN of the user
+     */
+    AwsUser(final Bucket bkt, final Redirects rdr, final String urn) {
         this.bucket = bkt;
+        this.redirects = rdr;
         this.name = urn;
     }
 
     @Override
     public Docs docs() {
-        return new AwsDocs(this.bucket, this.name);
+        return new AwsDocs(this.bucket, this.redirects, this.name);
     }
 
     // @todo #118:30min Create AwsAccount (preferably using DynamoDB) for
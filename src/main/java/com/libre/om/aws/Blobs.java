@@ -0,0 +1,470 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.google.common.io.BaseEncoding;
+import com.jcabi.log.Logger;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.libre.om.Spool;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+
+/**
+ * Content-addressed bodies of documents.
+ *
+ * <p>Every body is stored once, under {@code blobs/<sha-256>}, no matter
+ * how many documents have it. A document refers to its body by a marker
+ * object {@code refs/<sha-256>/<user>/<label>}, and the body is removed
+ * together with the last marker. Markers are separate objects, not
+ * a counter in metadata, because S3 can't update a counter atomically.
+ *
+ * <p>A body may be stored deflated, in the "deflate" content coding of
+ * HTTP, which is recorded in its metadata and in the metadata of the
+ * document. The hash, the MD5 and the size are of the content as it was
+ * written, not as it is stored, so they don't depend on the coding.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class Blobs {
+
+    /**
+     * Header of a document with the hash of its body.
+     */
+    public static final String HEADER = "x-ndk-blob";
+
+    /**
+     * Header of a document with the size of its body.
+     */
+    public static final String SIZE = "x-ndk-size";
+
+    /**
+     * Header of a document with the MD5 of its body.
+     */
+    public static final String MD5 = "x-ndk-md5";
+
+    /**
+     * Header of a body and a document with the content coding of the body.
+     */
+    public static final String ENCODING = "x-ndk-encoding";
+
+    /**
+     * Content coding of a deflated body.
+     */
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     */
+    Blobs(final Bucket bkt) {
+        this.bucket = bkt;
+    }
+
+    /**
+     * Key of the body.
+     * @param hash SHA-256 of the body
+     * @return Key
+     */
+    public static String key(final String hash) {
+        return String.format("blobs/%s", hash);
+    }
+
+    /**
+     * Must the state of this object be asked from S3 every time?
+     *
+     * <p>Bodies and markers are shared by all users and removed by
+     * whichever node releases the last marker, so a cached answer about
+     * them may tell that a removed body still exists.
+     *
+     * @param key Key of the object
+     * @return TRUE if it's a body or a marker
+     */
+    public static boolean shared(final String key) {
+        return key.startsWith("blobs/") || key.startsWith("refs/");
+    }
+
+    /**
+     * Is the body of this document deflated?
+     * @param meta Metadata of the document
+     * @return TRUE if it's stored deflated
+     */
+    public static boolean deflated(final ObjectMetadata meta) {
+        return Blobs.DEFLATE.equals(meta.getUserMetaDataOf(Blobs.ENCODING));
+    }
+
+    /**
+     * Save the body, unless it's already stored, and refer to it.
+     *
+     * <p>A body shorter than one part is hashed in memory and isn't
+     * uploaded at all if it's already stored. A longer one is uploaded
+     * to a temporary key while being hashed and then copied inside S3.
+     * An equal body which is already stored is used in the coding it
+     * has, no matter whether this one was asked to be deflated.
+     *
+     * @param ref Key of the document, {@code user/label}
+     * @param input Body
+     * @param meta Metadata of the document, to get hash and size
+     * @param deflate Deflate the body while storing it
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public void save(final String ref, final InputStream input,
+        final ObjectMetadata meta, final boolean deflate) throws IOException {
+        this.save(ref, input, meta, deflate, null);
+    }
+
+    /**
+     * Save the body, unless it's already stored, and refer to it instead
+     * of the previous body of the document.
+     *
+     * <p>The marker is written before the body is stored, see
+     * {@link #release(String, String)}, so if the body fails to be stored,
+     * the marker is released again, unless the document referred to the
+     * same body before.
+     *
+     * @param ref Key of the document, {@code user/label}
+     * @param input Body
+     * @param meta Metadata of the document, to get hash and size
+     * @param deflate Deflate the body while storing it
+     * @param previous SHA-256 of the previous body of the document, or
+     *  NULL if there is none
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (6 lines)
+     */
+    public void save(final String ref, final InputStream input,
+        final ObjectMetadata meta, final boolean deflate,
+        final String previous) throws IOException {
+        final MessageDigest digest = Blobs.digest("SHA-256");
+        final MessageDigest md5 = Blobs.digest("MD5");
+        final CountingInputStream content = new CountingInputStream(
+            new DigestInputStream(new DigestInputStream(input, md5), digest)
+        );
+        final ObjectMetadata bmeta = new ObjectMetadata();
+        final String hash;
+        if (deflate) {
+            bmeta.setContentEncoding(Blobs.DEFLATE);
+            bmeta.addUserMetadata(Blobs.ENCODING, Blobs.DEFLATE);
+            final Deflater deflater = new Deflater();
+            try {
+                hash = this.store(
+                    ref, new DeflaterInputStream(content, deflater),
+                    digest, bmeta, previous
+                );
+            } finally {
+                deflater.end();
+            }
+        } else {
+            hash = this.store(ref, content, digest, bmeta, previous);
+        }
+        meta.addUserMetadata(Blobs.HEADER, hash);
+        meta.addUserMetadata(
+            Blobs.SIZE, Long.toString(content.getByteCount())
+        );
+        meta.addUserMetadata(Blobs.MD5, Blobs.hex(md5));
+        if (Blobs.deflated(bmeta)) {
+            meta.addUserMetadata(Blobs.ENCODING, Blobs.DEFLATE);
+        }
+    }
+
+    /**
+     * Stop referring to the body and remove it if nobody else does.
+     *
+     * <p>A concurrent {@link #save(String, InputStream, ObjectMetadata)}
+     * of the same body writes its marker first and then checks whether
+     * the body is stored. So the body is copied aside before it's
+     * removed, and the markers are listed once again after that: if
+     * there is one now, somebody may have found the body and not stored
+     * it, and the copy is put back.
+     *
+     * @param hash SHA-256 of the body
+     * @param ref Key of the document, {@code user/label}
+     * @throws IOException If fails
+     */
+    public void release(final String hash, final String ref)
+        throws IOException {
+        this.bucket.remove(Blobs.marker(hash, ref));
+        if (!this.referred(hash)
+            && this.bucket.ocket(Blobs.key(hash)).exists()) {
+            this.bury(hash);
+        }
+    }
+
+    /**
+     * Is the body referred to by any document?
+     * @param hash SHA-256 of the body
+     * @return TRUE if there is a marker
+     * @throws IOException If fails
+     */
+    private boolean referred(final String hash) throws IOException {
+        return this.bucket.list(String.format("refs/%s/", hash))
+            .iterator().hasNext();
+    }
+
+    /**
+     * Remove the body, unless it's referred to again meanwhile.
+     *
+     * <p>The copy is left in {@code blobs/tmp/} if it fails to be put
+     * back, so the body can be recovered by hand.
+     *
+     * @param hash SHA-256 of the body
+     * @throws IOException If fails
+     */
+    private void bury(final String hash) throws IOException {
+        final String key = Blobs.key(hash);
+        final String grave = String.format("blobs/tmp/%s", UUID.randomUUID());
+        final AmazonS3 aws = this.bucket.region().aws();
+        try {
+            aws.copyObject(this.bucket.name(), key, this.bucket.name(), grave);
+            this.bucket.remove(key);
+            if (this.referred(hash)) {
+                aws.copyObject(
+                    this.bucket.name(), grave, this.bucket.name(), key
+                );
+                new Forgetful.Smart(this.bucket).forget(key);
+                Logger.info(this, "%s referred again, restored", key);
+            } else {
+                Logger.info(this, "%s removed", key);
+            }
+            this.bucket.remove(grave);
+        } catch (final AmazonServiceException ex) {
+            if (ex.getStatusCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new IOException(ex);
+            }
+            Logger.info(this, "%s removed by somebody else", key);
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Store the body, as it's read from the stream, unless it's stored.
+     * @param ref Key of the document, {@code user/label}
+     * @param stream Body to store
+     * @param digest SHA-256 of the content, complete at the end of stream
+     * @param bmeta Metadata of the body, replaced by the metadata of
+     *  an equal body, if it's already stored
+     * @param previous SHA-256 of the previous body of the document, or
+     *  NULL if there is none
+     * @return SHA-256 of the content
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (6 lines)
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private String store(final String ref, final InputStream stream,
+        final MessageDigest digest, final ObjectMetadata bmeta,
+        final String previous) throws IOException {
+        final String hash;
+        try (final Spool.Content head =
+            Spool.NODE.read(stream, (long) AwsUpload.PART)) {
+            if (head.size() < (long) AwsUpload.PART) {
+                hash = Blobs.hex(digest);
+                this.refer(hash, ref);
+                try {
+                    final Ocket blob = this.bucket.ocket(Blobs.key(hash));
+                    if (blob.exists()) {
+                        Logger.info(
+                            this, "%s already stored for %s", blob, ref
+                        );
+                        Blobs.adopt(blob, bmeta);
+                    } else {
+                        bmeta.setContentLength(head.size());
+                        try (final InputStream body = head.stream()) {
+                            blob.write(body, bmeta);
+                        }
+                    }
+                // @checkstyle IllegalCatchCheck (1 line)
+                } catch (final IOException | RuntimeException ex) {
+                    this.abandon(hash, ref, previous);
+                    throw ex;
+                }
+            } else {
+                final Ocket staged = this.bucket.ocket(
+                    String.format("blobs/tmp/%s", UUID.randomUUID())
+                );
+                try (final InputStream body = head.stream()) {
+                    new AwsUpload(staged).write(
+                        new SequenceInputStream(body, stream), bmeta
+                    );
+                }
+                hash = Blobs.hex(digest);
+                this.refer(hash, ref);
+                try {
+                    this.move(staged, ref, hash, bmeta);
+                // @checkstyle IllegalCatchCheck (1 line)
+                } catch (final IOException | RuntimeException ex) {
+                    this.abandon(hash, ref, previous);
+                    throw ex;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Refer to the body from the document.
+     * @param hash SHA-256 of the body
+     * @param ref Key of the document
+     * @throws IOException If fails
+     */
+    private void refer(final String hash, final String ref)
+        throws IOException {
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentLength(0L);
+        this.bucket.ocket(Blobs.marker(hash, ref)).write(
+            new ByteArrayInputStream(new byte[0]), meta
+        );
+    }
+
+    /**
+     * Release the marker of the body which failed to be stored, unless
+     * the document referred to it before; a failure to release is only
+     * logged, since the marker can only keep a body for longer.
+     * @param hash SHA-256 of the body
+     * @param ref Key of the document
+     * @param previous SHA-256 of the previous body of the document, or
+     *  NULL if there is none
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void abandon(final String hash, final String ref,
+        final String previous) {
+        if (!hash.equals(previous)) {
+            try {
+                this.release(hash, ref);
+            // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final IOException | RuntimeException ex) {
+                Logger.warn(
+                    this, "%s left referring to %s: %[exception]s",
+                    ref, hash, ex
+                );
+            }
+        }
+    }
+
+    /**
+     * Move the staged body to its key, unless it's already stored.
+     * @param staged Staged body
+     * @param ref Key of the document
+     * @param hash SHA-256 of the body
+     * @param bmeta Metadata of the body
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void move(final Ocket staged, final String ref, final String hash,
+        final ObjectMetadata bmeta) throws IOException {
+        final Ocket blob = this.bucket.ocket(Blobs.key(hash));
+        try {
+            if (blob.exists()) {
+                Logger.info(this, "%s already stored for %s", blob, ref);
+                Blobs.adopt(blob, bmeta);
+            } else {
+                this.bucket.region().aws().copyObject(
+                    this.bucket.name(), staged.key(),
+                    this.bucket.name(), blob.key()
+                );
+                new Forgetful.Smart(this.bucket).forget(blob.key());
+            }
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            this.bucket.remove(staged.key());
+        }
+    }
+
+    /**
+     * Take the content coding of the stored body.
+     * @param blob Stored body
+     * @param bmeta Metadata to update
+     * @throws IOException If fails
+     */
+    private static void adopt(final Ocket blob, final ObjectMetadata bmeta)
+        throws IOException {
+        final String coding = blob.meta().getUserMetaDataOf(Blobs.ENCODING);
+        if (coding == null) {
+            bmeta.getUserMetadata().remove(Blobs.ENCODING);
+        } else {
+            bmeta.addUserMetadata(Blobs.ENCODING, coding);
+        }
+    }
+
+    /**
+     * Key of the marker.
+     * @param hash SHA-256 of the body
+     * @param ref Key of the document
+     * @return Key
+     */
+    private static String marker(final String hash, final String ref) {
+        return String.format("refs/%s/%s", hash, ref);
+    }
+
+    /**
+     * Digest in lower case hex.
+     * @param digest Digest of the whole content
+     * @return Hex
+     */
+    private static String hex(final MessageDigest digest) {
+        return BaseEncoding.base16().lowerCase().encode(digest.digest());
+    }
+
+    /**
+     * New digest.
+     * @param algorithm Name of the algorithm
+     * @return Digest
+     */
+    private static MessageDigest digest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
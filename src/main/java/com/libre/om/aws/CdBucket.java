@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
+import java.io.File;
+import java.io.IOException;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Bucket with content of objects cached on local disk.
+ *
+ * <p>Objects are cached by their keys and validated by their entity tags,
+ * so documents shared with friends use the same entries as their owners'
+ * documents. The entity tags come from the metadata of the bucket below,
+ * which may be cached for the node, see {@link McBucket}; a document
+ * changed by another node may be served from the cache for as long as
+ * its metadata is kept there. Ranged reads go directly to S3.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+public final class CdBucket implements Bucket, Forgetful {
+
+    /**
+     * Original bucket.
+     */
+    private final transient Bucket origin;
+
+    /**
+     * Cache.
+     */
+    private final transient DiskCache cache;
+
+    /**
+     * Ctor.
+     * @param bucket Original bucket
+     * @param dir Directory for cached files, will be cleaned
+     * @param max Maximum total size of cached files, in bytes
+     * @throws IOException If fails
+     */
+    public CdBucket(final Bucket bucket, final File dir, final long max)
+        throws IOException {
+        this.origin = bucket;
+        this.cache = new DiskCache(dir, max);
+    }
+
+    @Override
+    public Region region() {
+        return this.origin.region();
+    }
+
+    @Override
+    public String name() {
+        return this.origin.name();
+    }
+
+    @Override
+    public Ocket ocket(final String key) {
+        return new CdOcket(this, this.origin.ocket(key), this.cache);
+    }
+
+    @Override
+    public void remove(final String key) throws IOException {
+        this.cache.remove(key);
+        this.origin.remove(key);
+    }
+
+    @Override
+    public Iterable<String> list(final String pref) throws IOException {
+        return this.origin.list(pref);
+    }
+
+    @Override
+    public void forget(final String key) {
+        new Forgetful.Smart(this.origin).forget(key);
+    }
+
+    @Override
+    public int compareTo(final Bucket bucket) {
+        return this.origin.compareTo(bucket);
+    }
+
+    @Override
+    public String toString() {
+        return this.origin.toString();
+    }
+
+}
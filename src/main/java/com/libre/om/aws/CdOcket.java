@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import lombok.EqualsAndHashCode;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.TeeOutputStream;
+
+/**
+ * Ocket with content cached on local disk.
+ *
+ * <p>Metadata is fetched once per instance, so reading right after
+ * {@link #meta()} costs a single HEAD request, and no GET at all if the
+ * content is already in the cache. The metadata is guarded by this
+ * instance, not by the cache, which is shared by the node and must
+ * never wait for S3.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+final class CdOcket implements Ocket {
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bkt;
+
+    /**
+     * Original ocket.
+     */
+    private final transient Ocket origin;
+
+    /**
+     * Cache.
+     */
+    private final transient DiskCache cache;
+
+    /**
+     * Metadata, if already fetched.
+     */
+    private transient ObjectMetadata metadata;
+
+    /**
+     * Ctor.
+     * @param bucket Bucket
+     * @param ocket Original ocket
+     * @param disk Cache
+     */
+    CdOcket(final Bucket bucket, final Ocket ocket, final DiskCache disk) {
+        this.bkt = bucket;
+        this.origin = ocket;
+        this.cache = disk;
+    }
+
+    @Override
+    public Bucket bucket() {
+        return this.bkt;
+    }
+
+    @Override
+    public String key() {
+        return this.origin.key();
+    }
+
+    @Override
+    public ObjectMetadata meta() throws IOException {
+        synchronized (this) {
+            if (this.metadata == null) {
+                this.metadata = this.origin.meta();
+            }
+            return this.metadata;
+        }
+    }
+
+    @Override
+    public boolean exists() throws IOException {
+        return this.origin.exists();
+    }
+
+    @Override
+    public void read(final OutputStream output) throws IOException {
+        final ObjectMetadata meta = this.meta();
+        final String etag = meta.getETag();
+        try (final InputStream cached = this.cache.get(this.key(), etag)) {
+            if (cached == null) {
+                if (etag == null
+                    || meta.getContentLength() > this.cache.budget()) {
+                    this.origin.read(output);
+                } else {
+                    this.fetch(output, etag);
+                }
+            } else {
+                IOUtils.copyLarge(cached, output);
+            }
+        }
+    }
+
+    @Override
+    public void write(final InputStream input, final ObjectMetadata meta)
+        throws IOException {
+        this.cache.remove(this.key());
+        try {
+            this.origin.write(input, meta);
+        } finally {
+            synchronized (this) {
+                this.metadata = null;
+            }
+        }
+    }
+
+    @Override
+    public int compareTo(final Ocket ocket) {
+        return this.key().compareTo(ocket.key());
+    }
+
+    @Override
+    public String toString() {
+        return this.origin.toString();
+    }
+
+    /**
+     * Read the content from the original ocket, sending it to the output
+     * and saving it in the cache at the same time.
+     * @param output Output stream
+     * @param etag Entity tag of the content
+     * @throws IOException If fails
+     */
+    private void fetch(final OutputStream output, final String etag)
+        throws IOException {
+        final File temp = this.cache.temp();
+        try {
+            try (final OutputStream file = new FileOutputStream(temp)) {
+                this.origin.read(new TeeOutputStream(output, file));
+            }
+            this.cache.put(this.key(), etag, temp);
+        } finally {
+            FileUtils.deleteQuietly(temp);
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.google.common.hash.Hashing;
+import com.jcabi.log.Logger;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Content of S3 objects, kept in local files.
+ *
+ * <p>Every entry is bound to the entity tag of the object, so it is never
+ * served after the object has been changed, even by another node. Total
+ * size of all files never exceeds the budget; least recently used entries
+ * are evicted first. The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class DiskCache {
+
+    /**
+     * Directory with files.
+     */
+    private final transient File dir;
+
+    /**
+     * Maximum total size of all files, in bytes.
+     */
+    private final transient long budget;
+
+    /**
+     * Entries by object keys, least recently used first.
+     */
+    private final transient Map<String, DiskCache.Entry> entries;
+
+    /**
+     * Total size of all files, in bytes.
+     */
+    private transient long total;
+
+    /**
+     * Ctor.
+     * @param path Directory for files, will be cleaned
+     * @param max Maximum total size of all files, in bytes
+     * @throws IOException If fails
+     */
+    DiskCache(final File path, final long max) throws IOException {
+        this.dir = path;
+        this.budget = max;
+        this.entries = new LinkedHashMap<>(0, 0.75f, true);
+        FileUtils.forceMkdir(this.dir);
+        FileUtils.cleanDirectory(this.dir);
+    }
+
+    /**
+     * Maximum total size of all entries, which is also the largest entry
+     * the cache can take.
+     * @return Bytes
+     */
+    public long budget() {
+        return this.budget;
+    }
+
+    /**
+     * Open the content of the object.
+     *
+     * <p>The file is opened while the cache is locked, so it can be read
+     * to the end even if the entry is evicted in the meantime.
+     *
+     * @param key Object key
+     * @param etag Current entity tag of the object
+     * @return Stream or NULL if there is no valid entry
+     * @throws IOException If fails
+     */
+    public synchronized InputStream get(final String key, final String etag)
+        throws IOException {
+        final DiskCache.Entry entry = this.entries.get(key);
+        InputStream stream = null;
+        if (entry != null) {
+            if (entry.etag.equals(etag)) {
+                stream = Files.newInputStream(entry.file.toPath());
+            } else {
+                this.remove(key);
+            }
+        }
+        return stream;
+    }
+
+    /**
+     * Make a temporary file, to be filled and then put into the cache.
+     * @return File
+     * @throws IOException If fails
+     */
+    public File temp() throws IOException {
+        return File.createTempFile("tmp-", ".part", this.dir);
+    }
+
+    /**
+     * Put the content of the object into the cache.
+     * @param key Object key
+     * @param etag Entity tag of the object
+     * @param temp Temporary file with the content, it will be moved
+     * @throws IOException If fails
+     */
+    public synchronized void put(final String key, final String etag,
+        final File temp) throws IOException {
+        final long size = temp.length();
+        if (etag == null || size > this.budget) {
+            FileUtils.deleteQuietly(temp);
+        } else {
+            this.remove(key);
+            final File file = new File(
+                this.dir,
+                Hashing.sha256().hashString(
+                    String.format("%s %s", key, etag), StandardCharsets.UTF_8
+                ).toString()
+            );
+            Files.move(
+                temp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING
+            );
+            this.entries.put(key, new DiskCache.Entry(file, etag, size));
+            this.total += size;
+            final Iterator<Map.Entry<String, DiskCache.Entry>> eldest =
+                this.entries.entrySet().iterator();
+            while (this.total > this.budget && eldest.hasNext()) {
+                final DiskCache.Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                this.total -= evicted.size;
+                FileUtils.deleteQuietly(evicted.file);
+            }
+            Logger.debug(
+                this, "%s cached, %d entries, %d bytes",
+                key, this.entries.size(), this.total
+            );
+        }
+    }
+
+    /**
+     * Remove the entry, if it exists.
+     * @param key Object key
+     */
+    public synchronized void remove(final String key) {
+        final DiskCache.Entry entry = this.entries.remove(key);
+        if (entry != null) {
+            this.total -= entry.size;
+            FileUtils.deleteQuietly(entry.file);
+        }
+    }
+
+    /**
+     * Entry of the cache.
+     */
+    private static final class Entry {
+        /**
+         * File with the content.
+         */
+        private final transient File file;
+        /**
+         * Entity tag of the object.
+         */
+        private final transient String etag;
+        /**
+         * Size of the file.
+         */
+        private final transient long size;
+        /**
+         * Ctor.
+         * @param fle File with the content
+         * @param tag Entity tag
+         * @param bytes Size of the file
+         */
+        Entry(final File fle, final String tag, final long bytes) {
+            this.file = fle;
+            this.etag = tag;
+            this.size = bytes;
+        }
+    }
+
+}
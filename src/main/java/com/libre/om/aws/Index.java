@@ -0,0 +1,1047 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Striped;
+import com.jcabi.aspects.Tv;
+import com.jcabi.immutable.ArrayMap;
+import com.jcabi.log.Logger;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Index of documents of a user, kept in a few objects, called chunks.
+ *
+ * <p>The index has everything the list of documents shows: names, sizes,
+ * types, dates of creation, visibility, friends, targets of shared
+ * documents and short URLs. The list costs a listing of chunks and
+ * a read of one or two of them, instead of a listing and a few HEAD
+ * requests per document. A missing index is built from the documents.
+ *
+ * <p>Every chunk has documents with names from its lower bound, which is
+ * in its key, {@code indexes/<user>/-<bound>}, up to the bound of the
+ * next chunk; the first chunk has an empty bound. Every line of a chunk
+ * is a document: its name and its fields, as in a query string,
+ * separated by a tab. A chunk is split in two when it grows above
+ * {@link #CHUNK} documents, so a change of a document reads and writes
+ * one chunk, no matter how many documents the user has. The total size
+ * and the number of documents in a chunk, not counting documents shared
+ * with the user, are kept in its metadata, so they are read without
+ * reading the chunk.
+ *
+ * <p>A change is made under a lock of the user, which is local to the
+ * node. S3 can't write an object only if it wasn't changed, so to not
+ * lose a change made on another node at the same time, the chunk is
+ * read again right before it's written and isn't written if its entity
+ * tag is different, and it's read once more after it's written, to make
+ * sure the change is there; if it's not, the change is made again, a few
+ * times, and then left to reconciliation. A change may still be lost if
+ * the writes of two nodes cross exactly, so the index is reconciled with
+ * the documents from time to time, see {@link #reconcile()}.
+ * Reconciliation takes entity tags and times of change of documents from
+ * the listing, and asks metadata only of documents changed since their
+ * entries were made.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+final class Index {
+
+    /**
+     * Maximum number of documents in a chunk.
+     */
+    public static final int CHUNK = 1000;
+
+    /**
+     * Locks of users, for the entire node.
+     */
+    private static final Striped<Lock> LOCKS = Striped.lock(Tv.HUNDRED);
+
+    /**
+     * Header of a chunk with the total size of documents, in bytes.
+     */
+    private static final String BYTES = "x-ndk-bytes";
+
+    /**
+     * Header of a chunk with the number of documents.
+     */
+    private static final String COUNT = "x-ndk-count";
+
+    /**
+     * Prefix of keys of chunks.
+     */
+    private static final String PREFIX = "indexes/";
+
+    /**
+     * Prefix of keys of indexes kept in one object, before chunks.
+     */
+    private static final String LEGACY = "index/";
+
+    /**
+     * Maximum number of attempts to change a chunk.
+     */
+    private static final int ATTEMPTS = 5;
+
+    /**
+     * Encoding of names and fields.
+     */
+    private static final String UTF = StandardCharsets.UTF_8.name();
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * URN of the user.
+     */
+    private final transient String user;
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     * @param urn URN of the user
+     */
+    Index(final Bucket bkt, final String urn) {
+        this.bucket = bkt;
+        this.user = urn;
+    }
+
+    /**
+     * All documents, by their names.
+     * @return Entries of documents, sorted by names
+     * @throws IOException If fails
+     */
+    public SortedMap<String, Index.Entry> entries() throws IOException {
+        final TreeMap<String, String> chunks = this.chunks();
+        final SortedMap<String, Index.Entry> entries;
+        if (chunks.isEmpty()) {
+            entries = this.build();
+        } else {
+            entries = new TreeMap<>();
+            for (final String key : chunks.values()) {
+                entries.putAll(this.read(key));
+            }
+        }
+        return Collections.unmodifiableSortedMap(entries);
+    }
+
+    /**
+     * Page of documents, reading only the chunks it is in.
+     * @param after Name of the document to start after, or empty
+     * @param limit Maximum number of documents
+     * @return Entries of documents, sorted by names
+     * @throws IOException If fails
+     */
+    public SortedMap<String, Index.Entry> entries(final String after,
+        final int limit) throws IOException {
+        final TreeMap<String, String> chunks = this.chunks();
+        final SortedMap<String, Index.Entry> page = new TreeMap<>();
+        if (chunks.isEmpty()) {
+            Index.fill(page, this.build(), after, limit);
+        } else {
+            for (final String key : chunks.tailMap(
+                Index.floor(chunks, after), true
+            ).values()) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                Index.fill(page, this.read(key), after, limit);
+            }
+        }
+        return Collections.unmodifiableSortedMap(page);
+    }
+
+    /**
+     * Entry of the document, reading only the chunk it is in.
+     * @param name Name of the document
+     * @return Entry or NULL if there is none
+     * @throws IOException If fails
+     */
+    public Index.Entry entry(final String name) throws IOException {
+        final TreeMap<String, String> chunks = this.chunks();
+        final Index.Entry entry;
+        if (chunks.isEmpty()) {
+            entry = this.build().get(name);
+        } else {
+            entry = this.read(chunks.get(Index.floor(chunks, name)))
+                .get(name);
+        }
+        return entry;
+    }
+
+    /**
+     * URNs of all users who have an index in chunks. An index kept in
+     * one object is moved to chunks when it's used first, see
+     * {@link #entries()}, with the documents scanned anyway.
+     * @param bkt Bucket
+     * @return URNs
+     * @throws IOException If fails
+     */
+    public static Collection<String> users(final Bucket bkt)
+        throws IOException {
+        final Collection<String> users = new LinkedHashSet<>(0);
+        for (final String key : bkt.list(Index.PREFIX)) {
+            final int end = key.lastIndexOf('/');
+            if (end > Index.PREFIX.length()) {
+                users.add(key.substring(Index.PREFIX.length(), end));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Total size of documents of the user, not shared with the user.
+     * @return Size in bytes
+     * @throws IOException If fails
+     */
+    public long bytes() throws IOException {
+        final Collection<String> chunks = this.chunks().values();
+        long total = 0L;
+        if (chunks.isEmpty()) {
+            total = Index.total(this.build().values());
+        }
+        for (final String key : chunks) {
+            final String bytes = this.bucket.ocket(key).meta()
+                .getUserMetaDataOf(Index.BYTES);
+            if (bytes == null) {
+                total += Index.total(this.read(key).values());
+            } else {
+                total += Long.parseLong(bytes);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Make the index equal to the documents, if it drifted from them.
+     *
+     * <p>Only documents changed since their entries were made are asked
+     * for their metadata. Short URLs are kept, since documents don't
+     * know them.
+     *
+     * @return TRUE if the index had to be changed
+     * @throws IOException If fails
+     */
+    public boolean reconcile() throws IOException {
+        final Lock lock = Index.LOCKS.get(this.user);
+        lock.lock();
+        try {
+            this.forget(this.key(""));
+            final TreeMap<String, String> chunks = this.chunks();
+            final SortedMap<String, Index.Entry> before = new TreeMap<>();
+            for (final String key : chunks.values()) {
+                this.forget(key);
+                before.putAll(this.read(key));
+            }
+            final SortedMap<String, Index.Entry> after = this.scan(before);
+            boolean drift = !before.keySet().equals(after.keySet());
+            for (final Map.Entry<String, Index.Entry> entry
+                : after.entrySet()) {
+                final Index.Entry old = before.get(entry.getKey());
+                if (old != null) {
+                    drift |= !old.same(entry.getValue())
+                        || !old.stamp().equals(entry.getValue().stamp());
+                    entry.setValue(entry.getValue().withUrl(old.url()));
+                }
+            }
+            if (drift || chunks.isEmpty()) {
+                this.save(after, chunks);
+            }
+            if (drift) {
+                Logger.info(
+                    this, "index of %s reconciled, %d -> %d document(s)",
+                    this.user, before.size(), after.size()
+                );
+            }
+            return drift;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Change the entry of the document.
+     *
+     * <p>The change may be applied a few times, if the chunk is changed
+     * by somebody else meanwhile, so it must not have side effects.
+     *
+     * @param name Name of the document
+     * @param change Change of the entry, which gets the current entry or
+     *  NULL and returns a new one or NULL, to remove it
+     * @throws IOException If fails
+     */
+    public void update(final String name,
+        final Function<Index.Entry, Index.Entry> change) throws IOException {
+        final Lock lock = Index.LOCKS.get(this.user);
+        lock.lock();
+        try {
+            for (int attempt = 1; !this.attempt(name, change); ++attempt) {
+                if (attempt >= Index.ATTEMPTS) {
+                    Logger.warn(
+                        this,
+                        "\"%s\" not changed in index of %s after %d attempts",
+                        name, this.user, attempt
+                    );
+                    break;
+                }
+                Logger.info(
+                    this, "index of %s changed meanwhile, attempt #%d",
+                    this.user, attempt
+                );
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Put this entry of the document.
+     * @param name Name of the document
+     * @param entry New entry or NULL to remove the document
+     * @throws IOException If fails
+     */
+    public void put(final String name, final Index.Entry entry)
+        throws IOException {
+        this.update(
+            name,
+            new Function<Index.Entry, Index.Entry>() {
+                @Override
+                public Index.Entry apply(final Index.Entry before) {
+                    return entry;
+                }
+            }
+        );
+    }
+
+    /**
+     * Try to change the entry of the document in its chunk.
+     * @param name Name of the document
+     * @param change Change of the entry
+     * @return TRUE if the change is there
+     * @throws IOException If fails
+     */
+    private boolean attempt(final String name,
+        final Function<Index.Entry, Index.Entry> change) throws IOException {
+        this.forget(this.key(""));
+        if (this.chunks().isEmpty()) {
+            this.build();
+            this.forget(this.key(""));
+        }
+        final String bound = Index.floor(this.chunks(), name);
+        final Ocket ocket = this.bucket.ocket(this.key(bound));
+        this.forget(ocket.key());
+        final String etag = Index.etag(ocket);
+        final SortedMap<String, Index.Entry> entries = this.read(ocket.key());
+        final Index.Entry entry = change.apply(entries.get(name));
+        if (entry == null) {
+            entries.remove(name);
+        } else {
+            entries.put(name, entry);
+        }
+        this.forget(ocket.key());
+        boolean done = false;
+        if (etag.equals(Index.etag(ocket))) {
+            this.store(bound, entries);
+            done = Index.equal(this.lookup(name), entry);
+        }
+        return done;
+    }
+
+    /**
+     * Entry of the document, as it is in its chunk right now.
+     * @param name Name of the document
+     * @return Entry or NULL if there is none
+     * @throws IOException If fails
+     */
+    private Index.Entry lookup(final String name) throws IOException {
+        this.forget(this.key(""));
+        final String key = this.key(Index.floor(this.chunks(), name));
+        this.forget(key);
+        return this.read(key).get(name);
+    }
+
+    /**
+     * Write the chunk, splitting it if it's too big, or removing it if
+     * it's empty and not the first one.
+     * @param bound Lower bound of the chunk
+     * @param entries Entries of documents in it
+     * @throws IOException If fails
+     */
+    private void store(final String bound,
+        final SortedMap<String, Index.Entry> entries) throws IOException {
+        if (entries.size() > Index.CHUNK) {
+            final String middle = new ArrayList<>(entries.keySet())
+                .get(entries.size() / 2);
+            this.write(middle, entries.tailMap(middle));
+            this.write(bound, entries.headMap(middle));
+            Logger.info(
+                this, "chunk \"%s\" of index of %s split at \"%s\"",
+                bound, this.user, middle
+            );
+        } else if (entries.isEmpty() && !bound.isEmpty()) {
+            this.bucket.remove(this.key(bound));
+        } else {
+            this.write(bound, entries);
+        }
+    }
+
+    /**
+     * Build the index from the documents, if it's not there yet.
+     * @return Entries of documents, modifiable
+     * @throws IOException If fails
+     */
+    private SortedMap<String, Index.Entry> build() throws IOException {
+        final Lock lock = Index.LOCKS.get(this.user);
+        lock.lock();
+        try {
+            this.forget(this.key(""));
+            final TreeMap<String, String> chunks = this.chunks();
+            final SortedMap<String, Index.Entry> entries;
+            if (chunks.isEmpty()) {
+                entries = this.legacy();
+                this.save(entries, chunks);
+                Logger.info(
+                    this, "index of %s built, %d document(s)",
+                    this.user, entries.size()
+                );
+            } else {
+                entries = new TreeMap<>();
+                for (final String key : chunks.values()) {
+                    entries.putAll(this.read(key));
+                }
+            }
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Entries of all documents, taken from the index kept in one object,
+     * if there is one, with short URLs, and from the documents.
+     * @return Entries of documents, modifiable
+     * @throws IOException If fails
+     */
+    private SortedMap<String, Index.Entry> legacy() throws IOException {
+        final Ocket ocket = this.bucket.ocket(
+            String.format("%s%s", Index.LEGACY, this.user)
+        );
+        SortedMap<String, Index.Entry> known = null;
+        if (ocket.exists()) {
+            known = Index.parse(ocket);
+        }
+        final SortedMap<String, Index.Entry> entries;
+        if (known == null) {
+            entries = this.scan();
+        } else {
+            entries = this.scan(known);
+            for (final Map.Entry<String, Index.Entry> entry
+                : entries.entrySet()) {
+                final Index.Entry old = known.get(entry.getKey());
+                if (old != null) {
+                    entry.setValue(entry.getValue().withUrl(old.url()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Entries of all documents, as they are stored.
+     * @return Entries of documents, modifiable
+     * @throws IOException If fails
+     */
+    private SortedMap<String, Index.Entry> scan() throws IOException {
+        final SortedMap<String, Index.Entry> entries = new TreeMap<>();
+        final String prefix = String.format("%s/", this.user);
+        for (final String key : this.bucket.list(prefix)) {
+            entries.put(
+                key.substring(prefix.length()),
+                Index.Entry.of(this.bucket.ocket(key).meta())
+            );
+        }
+        return entries;
+    }
+
+    /**
+     * Entries of all documents, as they are listed, with metadata asked
+     * only of documents changed since their known entries were made.
+     * @param known Known entries of documents
+     * @return Entries of documents, modifiable
+     * @throws IOException If fails
+     */
+    private SortedMap<String, Index.Entry> scan(
+        final Map<String, Index.Entry> known) throws IOException {
+        final SortedMap<String, Index.Entry> entries = new TreeMap<>();
+        final Listing listing = new Listing(
+            this.bucket, String.format("%s/", this.user)
+        );
+        for (final S3ObjectSummary object : listing.all()) {
+            final String name = listing.name(object);
+            final String stamp = Listing.stamp(object);
+            Index.Entry entry = known.get(name);
+            if (entry == null || stamp.isEmpty()
+                || !stamp.equals(entry.stamp())) {
+                entry = Index.Entry.of(
+                    this.bucket.ocket(object.getKey()).meta()
+                ).withStamp(stamp);
+            }
+            entries.put(name, entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Save the entire index, in new chunks, replacing the old ones.
+     * @param entries Entries of documents
+     * @param before Chunks there are now, by their bounds
+     * @throws IOException If fails
+     */
+    private void save(final SortedMap<String, Index.Entry> entries,
+        final Map<String, String> before) throws IOException {
+        final Collection<String> stale = new LinkedHashSet<>(before.keySet());
+        final List<String> names = new ArrayList<>(entries.keySet());
+        final int size = Index.CHUNK / 2;
+        for (int start = 0; start == 0 || start < names.size();
+            start += size) {
+            String bound = "";
+            if (start > 0) {
+                bound = names.get(start);
+            }
+            final SortedMap<String, Index.Entry> chunk;
+            if (start + size < names.size()) {
+                chunk = entries.subMap(bound, names.get(start + size));
+            } else {
+                chunk = entries.tailMap(bound);
+            }
+            this.write(bound, chunk);
+            stale.remove(bound);
+        }
+        for (final String bound : stale) {
+            this.bucket.remove(this.key(bound));
+        }
+        final Ocket legacy = this.bucket.ocket(
+            String.format("%s%s", Index.LEGACY, this.user)
+        );
+        if (legacy.exists()) {
+            this.bucket.remove(legacy.key());
+        }
+    }
+
+    /**
+     * Write the chunk.
+     * @param bound Lower bound of the chunk
+     * @param entries Entries of documents in it
+     * @throws IOException If fails
+     */
+    private void write(final String bound,
+        final Map<String, Index.Entry> entries) throws IOException {
+        final StringBuilder text = new StringBuilder(0);
+        for (final Map.Entry<String, Index.Entry> entry : entries.entrySet()) {
+            text.append(URLEncoder.encode(entry.getKey(), Index.UTF))
+                .append('\t')
+                .append(entry.getValue().query())
+                .append('\n');
+        }
+        final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentLength((long) bytes.length);
+        meta.setContentType("text/plain");
+        meta.addUserMetadata(
+            Index.BYTES, Long.toString(Index.total(entries.values()))
+        );
+        int count = 0;
+        for (final Index.Entry entry : entries.values()) {
+            if (entry.target().isEmpty()) {
+                ++count;
+            }
+        }
+        meta.addUserMetadata(Index.COUNT, Integer.toString(count));
+        this.bucket.ocket(this.key(bound)).write(
+            new ByteArrayInputStream(bytes), meta
+        );
+    }
+
+    /**
+     * Chunks of the index, listed only if the first one is there.
+     * @return Keys of chunks, by their bounds
+     * @throws IOException If fails
+     */
+    private TreeMap<String, String> chunks() throws IOException {
+        final TreeMap<String, String> chunks = new TreeMap<>();
+        final String prefix = this.prefix();
+        if (this.bucket.ocket(this.key("")).exists()) {
+            for (final String key : this.bucket.list(prefix)) {
+                final String bound = URLDecoder.decode(
+                    key.substring(key.lastIndexOf('/') + 2), Index.UTF
+                );
+                chunks.put(bound, this.key(bound));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Read the chunk.
+     * @param key Key of the chunk
+     * @return Entries of documents in it, modifiable, empty if it's
+     *  broken or missing
+     * @throws IOException If fails
+     */
+    private SortedMap<String, Index.Entry> read(final String key)
+        throws IOException {
+        final Ocket ocket = this.bucket.ocket(key);
+        SortedMap<String, Index.Entry> entries = null;
+        if (ocket.exists()) {
+            entries = Index.parse(ocket);
+        }
+        if (entries == null) {
+            entries = new TreeMap<>();
+        }
+        return entries;
+    }
+
+    /**
+     * Forget what the buckets know about the object or the prefix, to
+     * ask S3 again.
+     * @param key Key or prefix
+     */
+    private void forget(final String key) {
+        new Forgetful.Smart(this.bucket).forget(key);
+    }
+
+    /**
+     * Prefix of keys of chunks.
+     * @return Prefix
+     */
+    private String prefix() {
+        return String.format("%s%s/", Index.PREFIX, this.user);
+    }
+
+    /**
+     * Key of the chunk.
+     * @param bound Lower bound of the chunk
+     * @return Key
+     * @throws IOException If fails
+     */
+    private String key(final String bound) throws IOException {
+        return String.format(
+            "%s-%s", this.prefix(), URLEncoder.encode(bound, Index.UTF)
+        );
+    }
+
+    /**
+     * Bound of the chunk the document belongs to.
+     * @param chunks Keys of chunks by their bounds
+     * @param name Name of the document
+     * @return Bound
+     */
+    private static String floor(final TreeMap<String, String> chunks,
+        final String name) {
+        String bound = chunks.floorKey(name);
+        if (bound == null) {
+            bound = "";
+        }
+        return bound;
+    }
+
+    /**
+     * Entity tag of the chunk.
+     * @param ocket Ocket of the chunk
+     * @return Entity tag or empty if the chunk is not there
+     * @throws IOException If fails
+     */
+    private static String etag(final Ocket ocket) throws IOException {
+        String etag = null;
+        if (ocket.exists()) {
+            etag = ocket.meta().getETag();
+        }
+        if (etag == null) {
+            etag = "";
+        }
+        return etag;
+    }
+
+    /**
+     * Are the entries equal?
+     * @param first First entry or NULL
+     * @param second Second entry or NULL
+     * @return TRUE if both are NULL or have the same fields
+     * @throws IOException If fails
+     */
+    private static boolean equal(final Index.Entry first,
+        final Index.Entry second) throws IOException {
+        final boolean equal;
+        if (first == null || second == null) {
+            equal = first == second;
+        } else {
+            equal = first.query().equals(second.query());
+        }
+        return equal;
+    }
+
+    /**
+     * Add entries after the name to the page, until it's full.
+     * @param page Page
+     * @param entries Entries of documents
+     * @param after Name of the document to start after, or empty
+     * @param limit Maximum number of documents in the page
+     */
+    private static void fill(final Map<String, Index.Entry> page,
+        final SortedMap<String, Index.Entry> entries, final String after,
+        final int limit) {
+        for (final Map.Entry<String, Index.Entry> entry
+            : entries.tailMap(after).entrySet()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            if (!entry.getKey().equals(after)) {
+                page.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Total size of documents, not counting shared ones.
+     * @param entries Entries of documents
+     * @return Size in bytes
+     */
+    private static long total(final Iterable<Index.Entry> entries) {
+        long total = 0L;
+        for (final Index.Entry entry : entries) {
+            if (entry.target().isEmpty()) {
+                total += entry.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Parse the chunk.
+     * @param ocket Ocket of the chunk
+     * @return Entries or NULL if the chunk is broken
+     * @throws IOException If fails
+     */
+    private static SortedMap<String, Index.Entry> parse(final Ocket ocket)
+        throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ocket.read(output);
+        SortedMap<String, Index.Entry> entries = new TreeMap<>();
+        for (final String line : StringUtils.split(
+            new String(output.toByteArray(), StandardCharsets.UTF_8), '\n'
+        )) {
+            final String[] parts = StringUtils.splitPreserveAllTokens(
+                line, '\t'
+            );
+            if (parts.length != 2) {
+                Logger.warn(Index.class, "%s is broken: %s", ocket, line);
+                entries = null;
+                break;
+            }
+            entries.put(
+                URLDecoder.decode(parts[0], Index.UTF),
+                Index.Entry.parse(parts[1])
+            );
+        }
+        return entries;
+    }
+
+    /**
+     * Entry of a document.
+     */
+    static final class Entry {
+        /**
+         * Size in bytes.
+         */
+        private static final String SIZE = "size";
+        /**
+         * Mime type.
+         */
+        private static final String TYPE = "type";
+        /**
+         * Time of creation, in milliseconds.
+         */
+        private static final String CREATED = "created";
+        /**
+         * Visibility.
+         */
+        private static final String VISIBLE = "visible";
+        /**
+         * Friends, separated by semicolons.
+         */
+        private static final String FRIENDS = "friends";
+        /**
+         * Key of the document this one refers to, if it's shared.
+         */
+        private static final String TARGET = "target";
+        /**
+         * Short URL.
+         */
+        private static final String URL = "url";
+        /**
+         * Stamp of the version of the object it was made of, see
+         * {@link Listing#stamp(S3ObjectSummary)}.
+         */
+        private static final String STAMP = "stamp";
+        /**
+         * Fields.
+         */
+        private final transient ArrayMap<String, String> fields;
+        /**
+         * Ctor.
+         * @param map Fields
+         */
+        Entry(final Map<String, String> map) {
+            this.fields = new ArrayMap<>(map);
+        }
+        /**
+         * Entry of the document with this metadata.
+         * @param meta Metadata of the document
+         * @return Entry
+         * @throws IOException If fails
+         */
+        static Index.Entry of(final ObjectMetadata meta) throws IOException {
+            final AwsAttributes attrs = new AwsAttributes(meta);
+            Date created = attrs.created();
+            if (created == null) {
+                created = new Date();
+            }
+            String type = attrs.type();
+            if (type == null) {
+                type = "application/octet-stream";
+            }
+            return new Index.Entry(new ArrayMap<String, String>())
+                .with(Index.Entry.SIZE, Long.toString(attrs.size()))
+                .with(Index.Entry.TYPE, type)
+                .with(Index.Entry.CREATED, Long.toString(created.getTime()))
+                .with(Index.Entry.VISIBLE, Boolean.toString(attrs.visible()))
+                .with(
+                    Index.Entry.FRIENDS,
+                    meta.getUserMetaDataOf(AwsFriends.HEADER)
+                )
+                .with(
+                    Index.Entry.TARGET, meta.getUserMetaDataOf(AwsDoc.HEADER)
+                );
+        }
+        /**
+         * Size in bytes.
+         * @return Size
+         */
+        long size() {
+            return Long.parseLong(this.field(Index.Entry.SIZE, "0"));
+        }
+        /**
+         * Mime type.
+         * @return Type
+         */
+        String type() {
+            return this.field(Index.Entry.TYPE, "application/octet-stream");
+        }
+        /**
+         * Time of creation.
+         * @return Date
+         */
+        Date created() {
+            return new Date(
+                Long.parseLong(this.field(Index.Entry.CREATED, "0"))
+            );
+        }
+        /**
+         * Is it visible?
+         * @return TRUE if it's public
+         */
+        boolean visible() {
+            return Boolean.parseBoolean(this.field(Index.Entry.VISIBLE, ""));
+        }
+        /**
+         * Friends.
+         * @return Names of friends
+         */
+        Collection<String> friends() {
+            return Arrays.asList(
+                StringUtils.split(this.field(Index.Entry.FRIENDS, ""), ';')
+            );
+        }
+        /**
+         * Key of the document this one refers to.
+         * @return Key or empty if it's not shared with us
+         */
+        String target() {
+            return this.field(Index.Entry.TARGET, "");
+        }
+        /**
+         * Short URL.
+         * @return URL or empty if it's not known yet
+         */
+        String url() {
+            return this.field(Index.Entry.URL, "");
+        }
+        /**
+         * The same entry with these friends.
+         * @param friends Names of friends
+         * @return New entry
+         */
+        Index.Entry withFriends(final Iterable<String> friends) {
+            return this.with(
+                Index.Entry.FRIENDS, StringUtils.join(friends, ';')
+            );
+        }
+        /**
+         * Stamp of the version of the object it was made of.
+         * @return Stamp or empty if it's not known
+         */
+        String stamp() {
+            return this.field(Index.Entry.STAMP, "");
+        }
+        /**
+         * The same entry with this stamp.
+         * @param stamp Stamp of the version of the object
+         * @return New entry
+         */
+        Index.Entry withStamp(final String stamp) {
+            return this.with(Index.Entry.STAMP, stamp);
+        }
+        /**
+         * The same entry with this short URL.
+         * @param url Short URL
+         * @return New entry
+         */
+        Index.Entry withUrl(final String url) {
+            return this.with(Index.Entry.URL, url);
+        }
+        /**
+         * The same entry with friends and short URL of another one.
+         * @param entry Another entry
+         * @return New entry
+         */
+        Index.Entry withLinks(final Index.Entry entry) {
+            return this.withFriends(entry.friends()).withUrl(entry.url());
+        }
+        /**
+         * Does it describe the same document as another one?
+         * @param entry Another entry
+         * @return TRUE if size, visibility, friends and target are equal
+         */
+        boolean same(final Index.Entry entry) {
+            return this.size() == entry.size()
+                && this.visible() == entry.visible()
+                && this.friends().equals(entry.friends())
+                && this.target().equals(entry.target());
+        }
+        /**
+         * Fields as a query string.
+         * @return Text
+         * @throws IOException If fails
+         */
+        String query() throws IOException {
+            final StringBuilder query = new StringBuilder(0);
+            for (final Map.Entry<String, String> field
+                : this.fields.entrySet()) {
+                if (query.length() > 0) {
+                    query.append('&');
+                }
+                query.append(field.getKey()).append('=')
+                    .append(URLEncoder.encode(field.getValue(), Index.UTF));
+            }
+            return query.toString();
+        }
+        /**
+         * Parse fields.
+         * @param query Fields as a query string
+         * @return Entry
+         * @throws IOException If fails
+         */
+        static Index.Entry parse(final String query) throws IOException {
+            final Map<String, String> map = new TreeMap<>();
+            for (final String pair : StringUtils.split(query, '&')) {
+                final String[] parts = StringUtils.splitPreserveAllTokens(
+                    pair, "=", 2
+                );
+                if (parts.length == 2) {
+                    map.put(parts[0], URLDecoder.decode(parts[1], Index.UTF));
+                }
+            }
+            return new Index.Entry(map);
+        }
+        /**
+         * The same entry with this field.
+         * @param key Name of the field
+         * @param value Value or NULL to have no such field
+         * @return New entry
+         */
+        private Index.Entry with(final String key, final String value) {
+            final Index.Entry entry;
+            if (value == null || value.isEmpty()) {
+                entry = new Index.Entry(this.fields.without(key));
+            } else {
+                entry = new Index.Entry(this.fields.with(key, value));
+            }
+            return entry;
+        }
+        /**
+         * Value of the field.
+         * @param key Name of the field
+         * @param def Default value
+         * @return Value
+         */
+        private String field(final String key, final String def) {
+            String value = this.fields.get(key);
+            if (value == null) {
+                value = def;
+            }
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.libre.om.Attributes;
+import com.libre.om.Doc;
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Attributes of a document, as they are recorded in the index.
+ *
+ * <p>Size, type, date of creation and visibility are taken from the
+ * index; everything else is asked from the document itself.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class IxAttributes implements Attributes {
+
+    /**
+     * Entry of the index.
+     */
+    private final transient Index.Entry entry;
+
+    /**
+     * The document.
+     */
+    private final transient Doc origin;
+
+    /**
+     * Ctor.
+     * @param ent Entry of the index
+     * @param doc The document
+     */
+    IxAttributes(final Index.Entry ent, final Doc doc) {
+        this.entry = ent;
+        this.origin = doc;
+    }
+
+    @Override
+    public long size() {
+        return this.entry.size();
+    }
+
+    @Override
+    public String type() {
+        return this.entry.type();
+    }
+
+    @Override
+    public Date created() {
+        return this.entry.created();
+    }
+
+    @Override
+    public Date modified() throws IOException {
+        return this.origin.attributes().modified();
+    }
+
+    @Override
+    public String etag() throws IOException {
+        return this.origin.attributes().etag();
+    }
+
+    @Override
+    public String checksum(final String algorithm) throws IOException {
+        return this.origin.attributes().checksum(algorithm);
+    }
+
+    @Override
+    public String encoding() throws IOException {
+        return this.origin.attributes().encoding();
+    }
+
+    @Override
+    public boolean visible() {
+        return this.entry.visible();
+    }
+
+    @Override
+    public void show(final boolean shown) throws IOException {
+        this.origin.attributes().show(shown);
+    }
+
+}
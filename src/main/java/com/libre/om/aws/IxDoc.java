@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.google.common.base.Function;
+import com.jcabi.log.Logger;
+import com.libre.om.Attributes;
+import com.libre.om.Doc;
+import com.libre.om.Friends;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Document, as it is recorded in the index.
+ *
+ * <p>Attributes, friends and the short URL are taken from the index,
+ * without a request to S3; the short URL is recorded there when it's
+ * asked for the first time. Everything else goes to the document.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class IxDoc implements Doc {
+
+    /**
+     * The document.
+     */
+    private final transient Doc origin;
+
+    /**
+     * Index of the user.
+     */
+    private final transient Index index;
+
+    /**
+     * Name of the document.
+     */
+    private final transient String label;
+
+    /**
+     * Entry of the index.
+     */
+    private final transient Index.Entry entry;
+
+    /**
+     * Ctor.
+     * @param doc The document
+     * @param idx Index of the user
+     * @param name Name of the document
+     * @param ent Entry of the index
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    IxDoc(final Doc doc, final Index idx, final String name,
+        final Index.Entry ent) {
+        this.origin = doc;
+        this.index = idx;
+        this.label = name;
+        this.entry = ent;
+    }
+
+    @Override
+    public boolean exists() throws IOException {
+        return this.origin.exists();
+    }
+
+    @Override
+    public void delete() throws IOException {
+        this.origin.delete();
+    }
+
+    @Override
+    public Friends friends() throws IOException {
+        final Friends friends = this.origin.friends();
+        final Iterable<String> names = this.entry.friends();
+        return new Friends() {
+            @Override
+            public boolean leader() throws IOException {
+                return friends.leader();
+            }
+            @Override
+            public Iterable<String> names() {
+                return names;
+            }
+            @Override
+            public void add(final String name) throws IOException {
+                friends.add(name);
+            }
+            @Override
+            public void eject(final String name) throws IOException {
+                friends.eject(name);
+            }
+        };
+    }
+
+    @Override
+    public void read(final OutputStream output) throws IOException {
+        this.origin.read(output);
+    }
+
+    @Override
+    public void read(final OutputStream output, final long offset,
+        final long length) throws IOException {
+        this.origin.read(output, offset, length);
+    }
+
+    @Override
+    public void encoded(final OutputStream output) throws IOException {
+        this.origin.encoded(output);
+    }
+
+    @Override
+    public void write(final InputStream input, final long size)
+        throws IOException {
+        this.origin.write(input, size);
+    }
+
+    @Override
+    public String shortUrl() {
+        String url = this.entry.url();
+        if (url.isEmpty()) {
+            url = this.origin.shortUrl();
+            final String found = url;
+            try {
+                this.index.update(
+                    this.label,
+                    new Function<Index.Entry, Index.Entry>() {
+                        @Override
+                        public Index.Entry apply(final Index.Entry before) {
+                            Index.Entry after = before;
+                            if (before != null) {
+                                after = before.withUrl(found);
+                            }
+                            return after;
+                        }
+                    }
+                );
+            } catch (final IOException ex) {
+                Logger.warn(
+                    this, "short URL of %s is not indexed: %s",
+                    this.label, ex.getMessage()
+                );
+            }
+        }
+        return url;
+    }
+
+    @Override
+    public Attributes attributes() {
+        return new IxAttributes(this.entry, this.origin);
+    }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Bucket;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Objects under a prefix, listed by S3 together with their summaries.
+ *
+ * <p>A listing tells the size, the entity tag and the time of the last
+ * change of every object, which is enough to see whether an object has
+ * changed, without a HEAD request. Objects of documents are pointers to
+ * their bodies, so their real sizes, types and visibility are only
+ * in their metadata.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class Listing {
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Prefix of keys.
+     */
+    private final transient String prefix;
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     * @param pref Prefix of keys
+     */
+    Listing(final Bucket bkt, final String pref) {
+        this.bucket = bkt;
+        this.prefix = pref;
+    }
+
+    /**
+     * A page of summaries, in alphabetical order of keys.
+     * @param after Key without the prefix, after which the page starts,
+     *  or an empty string to start from the first object
+     * @param limit Maximum number of summaries in the page
+     * @return Summaries, not more than the limit
+     * @throws IOException If fails
+     */
+    public List<S3ObjectSummary> page(final String after, final int limit)
+        throws IOException {
+        String marker = null;
+        if (!after.isEmpty()) {
+            marker = String.format("%s%s", this.prefix, after);
+        }
+        final List<S3ObjectSummary> page = new ArrayList<>(0);
+        try {
+            boolean more = limit > 0;
+            while (more) {
+                final ObjectListing listing =
+                    this.bucket.region().aws().listObjects(
+                        new ListObjectsRequest()
+                            .withBucketName(this.bucket.name())
+                            .withPrefix(this.prefix)
+                            .withMarker(marker)
+                            .withMaxKeys(
+                                Math.min(limit - page.size(), Tv.THOUSAND)
+                            )
+                    );
+                for (final S3ObjectSummary object
+                    : listing.getObjectSummaries()) {
+                    page.add(object);
+                    marker = object.getKey();
+                }
+                more = listing.isTruncated() && page.size() < limit;
+            }
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        }
+        return page;
+    }
+
+    /**
+     * All summaries.
+     * @return Summaries, in alphabetical order of keys
+     * @throws IOException If fails
+     */
+    public List<S3ObjectSummary> all() throws IOException {
+        return this.page("", Integer.MAX_VALUE);
+    }
+
+    /**
+     * Name of the object, without the prefix.
+     * @param summary Summary of the object
+     * @return Name
+     */
+    public String name(final S3ObjectSummary summary) {
+        return summary.getKey().substring(this.prefix.length());
+    }
+
+    /**
+     * Stamp of the version of an object, which changes every time the
+     * object is written or its metadata is copied in place.
+     * @param summary Summary of the object
+     * @return Stamp, or empty if the summary has no entity tag or time
+     */
+    public static String stamp(final S3ObjectSummary summary) {
+        final String etag = summary.getETag();
+        final Date modified = summary.getLastModified();
+        String stamp = "";
+        if (etag != null && modified != null) {
+            stamp = String.format("%s-%d", etag, modified.getTime());
+        }
+        return stamp;
+    }
+
+}
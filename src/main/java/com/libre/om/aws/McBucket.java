@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Bucket with metadata and listings of objects cached in memory.
+ *
+ * <p>The cache of the node, shared by all its requests, keeps not more
+ * than the given number of entries, each for not longer than the given
+ * time, which is how long a change made by another node may stay unseen
+ * here. The memo of a request, made by {@link #McBucket(Bucket)} for
+ * every {@link AwsUser}, remembers everything it was asked for as long
+ * as the request lasts: one page asks the same object for its metadata
+ * a few times, for its attributes, for its friends, whether it's shared,
+ * and S3 or the cache of the node is asked only once.
+ *
+ * <p>An object written or removed through this bucket is forgotten at
+ * once, together with listings it could be in; if it's changed by the
+ * AWS client directly, it has to be forgotten explicitly, see
+ * {@link Forgetful}. When a few threads miss the same key at the same
+ * time, the origin is asked only once and all of them get the answer.
+ * Metadata is given out as copies, so changing it doesn't change the
+ * cache. Bodies of documents and markers referring to them are never
+ * cached, see {@link Blobs#shared(String)}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+public final class McBucket implements Bucket, Forgetful {
+
+    /**
+     * Original bucket.
+     */
+    private final transient Bucket origin;
+
+    /**
+     * Metadata of objects, by keys.
+     */
+    private final transient Cache<String, ObjectMetadata> metas;
+
+    /**
+     * Objects known to exist or not, by keys.
+     */
+    private final transient Cache<String, Boolean> found;
+
+    /**
+     * Listings, by prefixes.
+     */
+    private final transient Cache<String, List<String>> listings;
+
+    /**
+     * Ctor of the memo of a request, which keeps everything.
+     * @param bucket Original bucket
+     */
+    McBucket(final Bucket bucket) {
+        this(bucket, CacheBuilder.newBuilder());
+    }
+
+    /**
+     * Ctor of the cache of the node.
+     * @param bucket Original bucket
+     * @param max Maximum number of entries in every cache
+     * @param ttl Time to keep an entry, in seconds
+     */
+    public McBucket(final Bucket bucket, final long max, final long ttl) {
+        this(
+            bucket,
+            CacheBuilder.newBuilder()
+                .maximumSize(max)
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .recordStats()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param bucket Original bucket
+     * @param builder Builder of every cache
+     */
+    private McBucket(final Bucket bucket,
+        final CacheBuilder<Object, Object> builder) {
+        this.origin = bucket;
+        this.metas = builder.build();
+        this.found = builder.build();
+        this.listings = builder.build();
+    }
+
+    @Override
+    public Region region() {
+        return this.origin.region();
+    }
+
+    @Override
+    public String name() {
+        return this.origin.name();
+    }
+
+    @Override
+    public Ocket ocket(final String key) {
+        return new McOcket(this, this.origin.ocket(key));
+    }
+
+    @Override
+    public void remove(final String key) throws IOException {
+        try {
+            this.origin.remove(key);
+        } finally {
+            this.forget(key);
+        }
+    }
+
+    @Override
+    public Iterable<String> list(final String pref) throws IOException {
+        final Iterable<String> keys;
+        if (Blobs.shared(pref)) {
+            keys = this.origin.list(pref);
+        } else {
+            keys = McBucket.load(
+                this.listings, pref,
+                new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() throws IOException {
+                        return Collections.unmodifiableList(
+                            Lists.newArrayList(
+                                McBucket.this.origin.list(pref)
+                            )
+                        );
+                    }
+                }
+            );
+        }
+        return keys;
+    }
+
+    @Override
+    public void forget(final String key) {
+        this.metas.invalidate(key);
+        this.found.invalidate(key);
+        for (final String pref : this.listings.asMap().keySet()) {
+            if (key.startsWith(pref)) {
+                this.listings.invalidate(pref);
+            }
+        }
+        new Forgetful.Smart(this.origin).forget(key);
+    }
+
+    @Override
+    public int compareTo(final Bucket bucket) {
+        return this.origin.compareTo(bucket);
+    }
+
+    @Override
+    public String toString() {
+        return this.origin.toString();
+    }
+
+    /**
+     * Hits, misses and evictions of the caches, since the start.
+     * @return Text for the log
+     */
+    public String stats() {
+        return String.format(
+            "metadata: %s; existence: %s; listings: %s",
+            McBucket.stats(this.metas.stats()),
+            McBucket.stats(this.found.stats()),
+            McBucket.stats(this.listings.stats())
+        );
+    }
+
+    /**
+     * Metadata of the object.
+     * @param ocket Original ocket
+     * @return Copy of metadata
+     * @throws IOException If fails
+     */
+    ObjectMetadata meta(final Ocket ocket) throws IOException {
+        final ObjectMetadata meta;
+        if (Blobs.shared(ocket.key())) {
+            meta = ocket.meta();
+        } else {
+            meta = McBucket.load(
+                this.metas, ocket.key(),
+                new Callable<ObjectMetadata>() {
+                    @Override
+                    public ObjectMetadata call() throws IOException {
+                        final ObjectMetadata loaded = ocket.meta();
+                        McBucket.this.found.put(ocket.key(), true);
+                        return loaded;
+                    }
+                }
+            ).clone();
+        }
+        return meta;
+    }
+
+    /**
+     * Object exists?
+     * @param ocket Original ocket
+     * @return TRUE if it exists
+     * @throws IOException If fails
+     */
+    boolean exists(final Ocket ocket) throws IOException {
+        final boolean exists;
+        if (Blobs.shared(ocket.key())) {
+            exists = ocket.exists();
+        } else {
+            exists = McBucket.load(
+                this.found, ocket.key(),
+                new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws IOException {
+                        return ocket.exists();
+                    }
+                }
+            );
+        }
+        return exists;
+    }
+
+    /**
+     * Take the value from the cache or load it, once for all threads
+     * missing it at the same time.
+     * @param cache Cache
+     * @param key Key
+     * @param loader Loader
+     * @param <T> Type of values
+     * @return Value
+     * @throws IOException If fails to load
+     */
+    private static <T> T load(final Cache<String, T> cache, final String key,
+        final Callable<T> loader) throws IOException {
+        try {
+            return cache.get(key, loader);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw IOException.class.cast(ex.getCause());
+            }
+            throw new IOException(ex.getCause());
+        } catch (final UncheckedExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Statistics of a cache, for the log.
+     * @param stats Statistics
+     * @return Text
+     */
+    private static String stats(final CacheStats stats) {
+        return String.format(
+            "%d hits, %d misses, %d evictions",
+            stats.hitCount(), stats.missCount(), stats.evictionCount()
+        );
+    }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Ocket asking its {@link McBucket} for metadata, which it caches.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+final class McOcket implements Ocket {
+
+    /**
+     * Bucket.
+     */
+    private final transient McBucket bkt;
+
+    /**
+     * Original ocket.
+     */
+    private final transient Ocket origin;
+
+    /**
+     * Ctor.
+     * @param bucket Bucket
+     * @param ocket Original ocket
+     */
+    McOcket(final McBucket bucket, final Ocket ocket) {
+        this.bkt = bucket;
+        this.origin = ocket;
+    }
+
+    @Override
+    public Bucket bucket() {
+        return this.bkt;
+    }
+
+    @Override
+    public String key() {
+        return this.origin.key();
+    }
+
+    @Override
+    public ObjectMetadata meta() throws IOException {
+        return this.bkt.meta(this.origin);
+    }
+
+    @Override
+    public boolean exists() throws IOException {
+        return this.bkt.exists(this.origin);
+    }
+
+    @Override
+    public void read(final OutputStream output) throws IOException {
+        this.origin.read(output);
+    }
+
+    @Override
+    public void write(final InputStream input, final ObjectMetadata meta)
+        throws IOException {
+        try {
+            this.origin.write(input, meta);
+        } finally {
+            this.bkt.forget(this.key());
+        }
+    }
+
+    @Override
+    public int compareTo(final Ocket ocket) {
+        return this.key().compareTo(ocket.key());
+    }
+
+    @Override
+    public String toString() {
+        return this.origin.toString();
+    }
+
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
+import java.io.IOException;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Bucket reading large objects in parallel ranges.
+ *
+ * <p>A single S3 GET stream is much slower than the network of the node,
+ * so objects larger than one part are downloaded by a few ranged GETs at
+ * the same time and reassembled in order. Objects not larger than one
+ * part still cost exactly one request.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+public final class PlBucket implements Bucket {
+
+    /**
+     * Original bucket.
+     */
+    private final transient Bucket origin;
+
+    /**
+     * Size of a part, in bytes.
+     */
+    private final transient int part;
+
+    /**
+     * Maximum number of parts fetched ahead by one read.
+     */
+    private final transient int window;
+
+    /**
+     * Ctor.
+     * @param bucket Original bucket
+     */
+    public PlBucket(final Bucket bucket) {
+        this(bucket, Tv.FOUR << Tv.TWENTY, Tv.FOUR);
+    }
+
+    /**
+     * Ctor.
+     * @param bucket Original bucket
+     * @param bytes Size of a part, in bytes
+     * @param ahead Maximum number of parts fetched ahead by one read
+     */
+    PlBucket(final Bucket bucket, final int bytes, final int ahead) {
+        this.origin = bucket;
+        this.part = bytes;
+        this.window = ahead;
+    }
+
+    @Override
+    public Region region() {
+        return this.origin.region();
+    }
+
+    @Override
+    public String name() {
+        return this.origin.name();
+    }
+
+    @Override
+    public Ocket ocket(final String key) {
+        return new PlOcket(
+            this, this.origin.ocket(key), this.part, this.window
+        );
+    }
+
+    @Override
+    public void remove(final String key) throws IOException {
+        this.origin.remove(key);
+    }
+
+    @Override
+    public Iterable<String> list(final String pref) throws IOException {
+        return this.origin.list(pref);
+    }
+
+    @Override
+    public int compareTo(final Bucket bucket) {
+        return this.origin.compareTo(bucket);
+    }
+
+    @Override
+    public String toString() {
+        return this.origin.toString();
+    }
+
+}
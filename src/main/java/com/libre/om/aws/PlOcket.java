@@ -0,0 +1,405 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import lombok.EqualsAndHashCode;
+import org.apache.commons.io.output.CountingOutputStream;
+
+/**
+ * Ocket reading its content in parallel ranges.
+ *
+ * <p>The first part is fetched right away, which also tells the total
+ * size of the object. Next parts are fetched ahead by a thread pool shared
+ * by the node and kept in memory until their turn comes. The number of
+ * parts kept in memory by the entire node is limited; when the limit is
+ * reached, the read continues with one part at a time, streaming it
+ * directly to the output. Every part, including the first one and the
+ * ones streamed directly, is requested again a few times if S3 fails,
+ * and if the connection breaks while a part is read, the read resumes
+ * where it stopped. Every request after the first one is pinned to the
+ * ETag of the first part, so if the object is replaced in the middle of
+ * the read, the read fails instead of mixing two versions.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@EqualsAndHashCode(of = "origin")
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class PlOcket implements Ocket {
+
+    /**
+     * Threads fetching parts.
+     */
+    private static final ExecutorService THREADS =
+        Executors.newFixedThreadPool(
+            // @checkstyle MagicNumber (1 line)
+            16, new VerboseThreads(PlOcket.class)
+        );
+
+    /**
+     * Permits to keep a part in memory, for the entire node.
+     */
+    private static final Semaphore BUFFERS =
+        // @checkstyle MagicNumber (1 line)
+        new Semaphore(16);
+
+    /**
+     * HTTP status of a range that can't be satisfied.
+     */
+    private static final int UNSATISFIABLE = 416;
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bkt;
+
+    /**
+     * Original ocket.
+     */
+    private final transient Ocket origin;
+
+    /**
+     * Size of a part, in bytes.
+     */
+    private final transient int part;
+
+    /**
+     * Maximum number of parts fetched ahead.
+     */
+    private final transient int window;
+
+    /**
+     * Ctor.
+     * @param bucket Bucket
+     * @param ocket Original ocket
+     * @param bytes Size of a part, in bytes
+     * @param ahead Maximum number of parts fetched ahead
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    PlOcket(final Bucket bucket, final Ocket ocket, final int bytes,
+        final int ahead) {
+        this.bkt = bucket;
+        this.origin = ocket;
+        this.part = bytes;
+        this.window = ahead;
+    }
+
+    @Override
+    public Bucket bucket() {
+        return this.bkt;
+    }
+
+    @Override
+    public String key() {
+        return this.origin.key();
+    }
+
+    @Override
+    public ObjectMetadata meta() throws IOException {
+        return this.origin.meta();
+    }
+
+    @Override
+    public boolean exists() throws IOException {
+        return this.origin.exists();
+    }
+
+    @Override
+    public void read(final OutputStream output) throws IOException {
+        final S3Object first = this.open(0L, null);
+        long size = 0L;
+        if (first != null) {
+            size = first.getObjectMetadata().getInstanceLength();
+            final String etag = first.getObjectMetadata().getETag();
+            final Deque<Future<byte[]>> ahead = new LinkedList<>();
+            long next = (long) this.part;
+            try {
+                next = this.prefetch(ahead, next, size, etag);
+                this.stream(first, 0L, output, etag);
+                while (next < size || !ahead.isEmpty()) {
+                    if (ahead.isEmpty()) {
+                        this.stream(
+                            this.open(next, etag), next, output, etag
+                        );
+                        next += (long) this.part;
+                    } else {
+                        try {
+                            output.write(PlOcket.bytes(ahead.poll()));
+                        } finally {
+                            PlOcket.BUFFERS.release();
+                        }
+                    }
+                    next = this.prefetch(ahead, next, size, etag);
+                }
+            } finally {
+                for (final Future<byte[]> future : ahead) {
+                    future.cancel(true);
+                    PlOcket.BUFFERS.release();
+                }
+            }
+        }
+        Logger.debug(
+            this, "%s read in %d part(s)", this.key(),
+            (size + (long) this.part - 1L) / (long) this.part
+        );
+    }
+
+    @Override
+    public void write(final InputStream input, final ObjectMetadata meta)
+        throws IOException {
+        this.origin.write(input, meta);
+    }
+
+    @Override
+    public int compareTo(final Ocket ocket) {
+        return this.key().compareTo(ocket.key());
+    }
+
+    @Override
+    public String toString() {
+        return this.origin.toString();
+    }
+
+    /**
+     * Start fetching next parts, as long as the window and the memory
+     * of the node allow.
+     * @param ahead Parts being fetched, in order
+     * @param start Position of the next part
+     * @param size Total size of the object
+     * @param etag ETag of the object, or NULL if it is unknown
+     * @return Position of the part after the last one started
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private long prefetch(final Deque<Future<byte[]>> ahead, final long start,
+        final long size, final String etag) {
+        long next = start;
+        while (next < size && ahead.size() < this.window
+            && PlOcket.BUFFERS.tryAcquire()) {
+            final long pos = next;
+            ahead.add(
+                PlOcket.THREADS.submit(
+                    new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws IOException {
+                            return PlOcket.this.fetch(pos, etag);
+                        }
+                    }
+                )
+            );
+            next += (long) this.part;
+        }
+        return next;
+    }
+
+    /**
+     * Fetch a part into memory.
+     * @param start Position of the part
+     * @param etag ETag of the object, or NULL if it is unknown
+     * @return Content of the part
+     * @throws IOException If fails
+     */
+    private byte[] fetch(final long start, final String etag)
+        throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.stream(this.open(start, etag), start, output, etag);
+        return output.toByteArray();
+    }
+
+    /**
+     * Copy the part into the output, requesting the rest of it again
+     * a few times, if the connection breaks.
+     * @param object Object with the content of the part, or NULL if
+     *  there is nothing at this position
+     * @param start Position of the part
+     * @param output Output stream
+     * @param etag ETag of the object, or NULL if it is unknown
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private void stream(final S3Object object, final long start,
+        final OutputStream output, final String etag) throws IOException {
+        final CountingOutputStream counter = new CountingOutputStream(output);
+        S3Object current = object;
+        int attempt = 1;
+        while (current != null) {
+            final IOException failure;
+            try (final InputStream input = current.getObjectContent()) {
+                failure = PlOcket.pump(input, counter);
+            }
+            current = null;
+            if (failure != null) {
+                if (attempt >= Tv.THREE) {
+                    throw failure;
+                }
+                ++attempt;
+                Logger.warn(
+                    this, "part at %d of %s broke after %d bytes: %s",
+                    start, this.key(), counter.getByteCount(),
+                    failure.getMessage()
+                );
+                current = this.open(
+                    start, start + counter.getByteCount(), etag
+                );
+            }
+        }
+    }
+
+    /**
+     * Request the part, a few times if S3 fails.
+     * @param start Position of the part
+     * @param etag ETag the object must have, or NULL if any will do
+     * @return Object with the content of the part, or NULL if there is
+     *  nothing at this position
+     * @throws IOException If fails
+     */
+    private S3Object open(final long start, final String etag)
+        throws IOException {
+        return this.open(start, start, etag);
+    }
+
+    /**
+     * Request the rest of the part, a few times if S3 fails.
+     * @param start Position of the part
+     * @param from Position to start from, inside the part
+     * @param etag ETag the object must have, or NULL if any will do
+     * @return Object with the content of the part from the position, or
+     *  NULL if there is nothing at this position
+     * @throws IOException If fails or the object has another ETag
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private S3Object open(final long start, final long from,
+        final String etag) throws IOException {
+        final GetObjectRequest request = new GetObjectRequest(
+            this.bkt.name(), this.key()
+        ).withRange(from, start + (long) this.part - 1L);
+        if (etag != null) {
+            request.withMatchingETagConstraint(etag);
+        }
+        S3Object object = null;
+        for (int attempt = 1; object == null && attempt <= Tv.THREE;
+            ++attempt) {
+            try {
+                object = this.bkt.region().aws().getObject(request);
+                if (object == null && etag != null) {
+                    throw new IOException(
+                        String.format(
+                            "%s changed while read, it's not %s anymore",
+                            this.key(), etag
+                        )
+                    );
+                }
+            } catch (final AmazonClientException ex) {
+                if (ex instanceof AmazonServiceException
+                    && AmazonServiceException.class.cast(ex).getStatusCode()
+                    == PlOcket.UNSATISFIABLE) {
+                    break;
+                }
+                if (attempt >= Tv.THREE) {
+                    throw new IOException(ex);
+                }
+                Logger.warn(
+                    this, "part at %d of %s failed, retrying: %s",
+                    from, this.key(), ex.getMessage()
+                );
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Copy the input into the output, until the input ends or fails to
+     * be read; failures of the output are thrown.
+     * @param input Input stream
+     * @param output Output stream
+     * @return Failure of the input or NULL if it was read to the end
+     * @throws IOException If the output fails
+     */
+    private static IOException pump(final InputStream input,
+        final OutputStream output) throws IOException {
+        // @checkstyle MagicNumber (1 line)
+        final byte[] buffer = new byte[1 << 16];
+        IOException failure = null;
+        int len = 0;
+        while (len >= 0) {
+            try {
+                len = input.read(buffer);
+            } catch (final IOException ex) {
+                failure = ex;
+                break;
+            }
+            if (len > 0) {
+                output.write(buffer, 0, len);
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * Wait for the part to be fetched.
+     * @param future Part being fetched
+     * @return Content of the part
+     * @throws IOException If fails
+     */
+    private static byte[] bytes(final Future<byte[]> future)
+        throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+}
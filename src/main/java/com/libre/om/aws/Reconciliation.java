@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.jcabi.log.Logger;
+import com.jcabi.s3.Bucket;
+import java.io.IOException;
+
+/**
+ * Reconciliation of indexes of all users with their documents.
+ *
+ * <p>Updates of an index may be lost when documents of the same user
+ * are changed on two nodes at the same time, so the index, and the
+ * usage counters in it, may drift. This task, run in background from
+ * time to time, makes every index equal to the documents again. A user
+ * who fails is logged and skipped.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class Reconciliation implements Runnable {
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     */
+    public Reconciliation(final Bucket bkt) {
+        this.bucket = bkt;
+    }
+
+    @Override
+    public void run() {
+        int total = 0;
+        int drifted = 0;
+        try {
+            for (final String user : Index.users(this.bucket)) {
+                ++total;
+                try {
+                    if (new Index(this.bucket, user).reconcile()) {
+                        ++drifted;
+                    }
+                } catch (final IOException ex) {
+                    Logger.warn(
+                        this, "index of %s is not reconciled: %s",
+                        user, ex.getMessage()
+                    );
+                }
+            }
+        } catch (final IOException ex) {
+            Logger.warn(this, "indexes are not listed: %s", ex.getMessage());
+        }
+        Logger.info(
+            this, "%d index(es) reconciled, %d drifted", total, drifted
+        );
+    }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Ocket;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolved redirects of documents, shared by all users of the node.
+ *
+ * <p>Maps a key of a document, {@code user/label}, to the key of the
+ * object with its content: the key of the owner's document for a shared
+ * one or the same key otherwise. Once a key is resolved, reading a shared
+ * document doesn't ask S3 about the stub of the friend. A redirect is
+ * forgotten here when a friend is added or ejected, or the document is
+ * deleted, see {@link AwsFriends} and {@link AwsDoc}; changes made on
+ * other nodes are seen after the entry expires, which by default takes
+ * as long as cached metadata of the stub itself stays unseen, see
+ * {@link McBucket}. The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class Redirects {
+
+    /**
+     * Targets by keys of documents.
+     */
+    private final transient Cache<String, String> targets;
+
+    /**
+     * Ctor.
+     */
+    Redirects() {
+        this((long) Tv.SIXTY);
+    }
+
+    /**
+     * Ctor.
+     * @param ttl Time to keep a target, in seconds
+     */
+    Redirects(final long ttl) {
+        this.targets = CacheBuilder.newBuilder()
+            .maximumSize((long) Tv.HUNDRED * (long) Tv.THOUSAND)
+            .expireAfterWrite(ttl, TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * Key of the object with the content of the document.
+     * @param ocket Ocket of the document
+     * @return Key
+     * @throws IOException If fails
+     */
+    public String target(final Ocket ocket) throws IOException {
+        final String key = ocket.key();
+        String target = this.targets.getIfPresent(key);
+        if (target == null) {
+            target = ocket.meta().getUserMetaDataOf(AwsDoc.HEADER);
+            if (target == null) {
+                target = key;
+            }
+            this.targets.put(key, target);
+        }
+        return target;
+    }
+
+    /**
+     * Forget the target of the document.
+     * @param key Key of the document
+     */
+    public void forget(final String key) {
+        this.targets.invalidate(key);
+    }
+
+}
@@ -29,16 +29,24 @@
  */
 package com.libre.om.mock;
 
+import com.google.common.io.BaseEncoding;
 import com.libre.om.Attributes;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 
 /**
  * Mock of document attributes.
@@ -89,6 +97,40 @@ public final class MkAttributes implements Attributes {
         );
     }
 
+    @Override
+    public Date modified() throws IOException {
+        return new Date(this.file.lastModified());
+    }
+
+    @Override
+    public String etag() throws IOException {
+        return String.format(
+            "%x-%x", this.file.lastModified(), this.file.length()
+        );
+    }
+
+    @Override
+    public String checksum(final String algorithm) throws IOException {
+        String hash;
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(algorithm);
+            try (final InputStream input = new DigestInputStream(
+                new FileInputStream(this.file), digest
+            )) {
+                IOUtils.copyLarge(input, new NullOutputStream());
+            }
+            hash = BaseEncoding.base16().lowerCase().encode(digest.digest());
+        } catch (final NoSuchAlgorithmException ex) {
+            hash = "";
+        }
+        return hash;
+    }
+
+    @Override
+    public String encoding() {
+        return "identity";
+    }
+
     @Override
     public boolean visible() throws IOException {
         final boolean shown;
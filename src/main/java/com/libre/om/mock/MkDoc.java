@@ -107,8 +107,21 @@ public final class MkDoc implements Doc {
     @Override
     public void read(final OutputStream output) throws IOException {
         final File file = this.file();
-        IOUtils.copy(new FileInputStream(this.file()), output);
-        Logger.info(this, "%s loaded", file);
+        final long done = this.transfer(output, 0L, file.length());
+        Logger.info(this, "%s loaded, %d bytes", file, done);
+    }
+
+    @Override
+    public void read(final OutputStream output, final long offset,
+        final long length) throws IOException {
+        final File file = this.file();
+        final long done = this.transfer(output, offset, length);
+        Logger.info(this, "%s loaded, %d bytes from %d", file, done, offset);
+    }
+
+    @Override
+    public void encoded(final OutputStream output) throws IOException {
+        this.read(output);
     }
 
     @Override
@@ -117,8 +130,10 @@ public final class MkDoc implements Doc {
         final File file = this.file();
         FileUtils.touch(file);
         try (final FileOutputStream output = new FileOutputStream(file)) {
-            final int count = IOUtils.copy(input, output);
-            IOUtils.write(new byte[(int) size - count], output);
+            final long count = IOUtils.copyLarge(input, output);
+            if (size > count) {
+                IOUtils.write(new byte[(int) (size - count)], output);
+            }
         }
         Logger.info(this, "%s saved", file);
     }
@@ -137,6 +152,26 @@ public final class MkDoc implements Doc {
         return this.attrs;
     }
 
+    /**
+     * Copy a range of the file into the output stream.
+     * @param output Output stream
+     * @param offset Position of the first byte
+     * @param length Maximum number of bytes to copy
+     * @return Number of bytes copied
+     * @throws IOException If fails
+     */
+    private long transfer(final OutputStream output, final long offset,
+        final long length) throws IOException {
+        final File file = this.file();
+        long done = 0L;
+        if (offset < file.length()) {
+            try (final InputStream input = new FileInputStream(file)) {
+                done = IOUtils.copyLarge(input, output, offset, length);
+            }
+        }
+        return done;
+    }
+
     /**
      * File.
      * @return File
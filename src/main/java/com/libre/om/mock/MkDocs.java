@@ -31,13 +31,18 @@ package com.libre.om.mock;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.libre.om.Catalog;
 import com.libre.om.Doc;
 import com.libre.om.Docs;
 import com.libre.om.SafeDoc;
 import com.libre.om.SmallDoc;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.TrueFileFilter;
 
@@ -93,6 +98,33 @@ public final class MkDocs implements Docs {
         return new SafeDoc(new SmallDoc(new MkDoc(this.dir, this.name, doc)));
     }
 
+    @Override
+    public List<String> names(final String after, final int limit) {
+        final List<String> names = new ArrayList<>(0);
+        for (final String doc : new TreeSet<>(this.names())
+            .tailSet(after, false)) {
+            if (names.size() >= limit) {
+                break;
+            }
+            names.add(doc);
+        }
+        return names;
+    }
+
+    @Override
+    public Map<String, Doc> snapshot(final String after, final int limit) {
+        final Map<String, Doc> docs = new LinkedHashMap<>(0);
+        for (final String doc : this.names(after, limit)) {
+            docs.put(doc, this.doc(doc));
+        }
+        return docs;
+    }
+
+    @Override
+    public List<String> find(final String query, final int limit) {
+        return Catalog.find(this.names(), query, limit);
+    }
+
     @Override
     public long size() throws IOException {
         return FileUtils.sizeOf(this.dir);
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes;
+
+import com.google.common.collect.Lists;
+import com.jcabi.aspects.Tv;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import org.takes.Request;
+import org.takes.misc.Href;
+import org.takes.rq.RqHref;
+import org.takes.rq.RqWrap;
+import org.takes.rs.xe.XeChain;
+import org.takes.rs.xe.XeLink;
+import org.takes.rs.xe.XeSource;
+
+/**
+ * Request with a page of a list of documents.
+ *
+ * <p>A page starts after the name in the "after" query parameter; see
+ * {@link com.libre.om.Docs#names(String, int)}. Pages can only be listed
+ * forward, so the names where the previous pages started are carried
+ * along in "back" query parameters, to make a link to the previous page.
+ * Only the latest {@link #TRAIL} of them are kept, to keep links short;
+ * the older ones are replaced with one empty "back" parameter, so once
+ * the trail runs out, the link is "first" instead of "prev" and leads to
+ * the first page.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class RqCursor extends RqWrap {
+
+    /**
+     * Query parameter with the name the page starts after.
+     */
+    private static final String AFTER = "after";
+
+    /**
+     * Query parameter with the names previous pages start after.
+     */
+    private static final String BACK = "back";
+
+    /**
+     * Maximum number of names previous pages start after.
+     */
+    private static final int TRAIL = Tv.TEN;
+
+    /**
+     * Ctor.
+     * @param req Request
+     */
+    RqCursor(final Request req) {
+        super(req);
+    }
+
+    /**
+     * Name the page starts after.
+     * @return Name or empty string for the first page
+     * @throws IOException If fails
+     */
+    public String after() throws IOException {
+        return new RqHref.Smart(new RqHref.Base(this))
+            .single(RqCursor.AFTER, "");
+    }
+
+    /**
+     * Links to the previous and to the next pages, if they exist.
+     * @param last Name of the last document in this page
+     * @param more Are there documents after the last one?
+     * @return Source with links "prev" or "first" and "next"
+     * @throws IOException If fails
+     */
+    public XeSource links(final String last, final boolean more)
+        throws IOException {
+        final Href home = new RqHref.Base(this).href()
+            .without(RqCursor.AFTER).without(RqCursor.BACK);
+        final List<String> back = Lists.newArrayList(
+            new RqHref.Base(this).href().param(RqCursor.BACK)
+        );
+        final String after = this.after();
+        final Collection<XeSource> links = new LinkedList<>();
+        if (!after.isEmpty()) {
+            if (back.isEmpty()) {
+                links.add(new XeLink("prev", home));
+            } else if (back.get(back.size() - 1).isEmpty()) {
+                links.add(new XeLink("first", home));
+            } else {
+                links.add(
+                    new XeLink(
+                        "prev",
+                        RqCursor.trail(
+                            home.with(
+                                RqCursor.AFTER, back.get(back.size() - 1)
+                            ),
+                            back.subList(0, back.size() - 1)
+                        )
+                    )
+                );
+            }
+        }
+        if (more) {
+            final List<String> trail = new LinkedList<>(back);
+            if (!after.isEmpty()) {
+                trail.add(after);
+            }
+            boolean cut = !trail.isEmpty() && trail.get(0).isEmpty();
+            if (cut) {
+                trail.remove(0);
+            }
+            while (trail.size() > RqCursor.TRAIL) {
+                trail.remove(0);
+                cut = true;
+            }
+            if (cut) {
+                trail.add(0, "");
+            }
+            links.add(
+                new XeLink(
+                    "next",
+                    RqCursor.trail(home.with(RqCursor.AFTER, last), trail)
+                )
+            );
+        }
+        return new XeChain(links);
+    }
+
+    /**
+     * Add names previous pages start after.
+     * @param href Link
+     * @param names Names
+     * @return Link with them
+     */
+    private static Href trail(final Href href, final Iterable<String> names) {
+        Href link = href;
+        for (final String name : names) {
+            link = link.with(RqCursor.BACK, name);
+        }
+        return link;
+    }
+
+}
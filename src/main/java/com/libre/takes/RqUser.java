@@ -40,6 +40,10 @@ import org.takes.rq.RqWrap;
 /**
  * Request that understand the user.
  *
+ * <p>The user is taken from the base only once, so everything that works
+ * with the user in one request shares what it already knows about its
+ * documents.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 0.4
@@ -51,6 +55,11 @@ public final class RqUser extends RqWrap {
      */
     private final transient Base base;
 
+    /**
+     * User, if already taken.
+     */
+    private transient User taken;
+
     /**
      * Ctor.
      * @param req Request
@@ -67,7 +76,14 @@ public final class RqUser extends RqWrap {
      * @throws IOException If fails
      */
     public User user() throws IOException {
-        return this.base.user(new RqAuth(this).identity().urn());
+        synchronized (this) {
+            if (this.taken == null) {
+                this.taken = this.base.user(
+                    new RqAuth(this).identity().urn()
+                );
+            }
+            return this.taken;
+        }
     }
 
     /**
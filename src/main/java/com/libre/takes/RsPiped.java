@@ -0,0 +1,282 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes;
+
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.io.IOUtils;
+import org.takes.Response;
+import org.takes.rs.RsEmpty;
+import org.takes.rs.RsWrap;
+
+/**
+ * Response with a body streamed from a source.
+ *
+ * <p>The source writes its content in a background thread into a pipe
+ * of a fixed size, while the client reads it from the other end. Thus,
+ * memory consumption doesn't depend on the size of the content and the
+ * first bytes are sent as soon as the source produces them.
+ *
+ * <p>The pipe is closed by the client as soon as a read fails. If the
+ * client stops reading and never closes the stream, the pipe stays full
+ * and the source would wait forever; so when the pipe is found full and
+ * not read for a while, it's closed on behalf of the client, and the
+ * source fails to write instead of blocking its thread.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class RsPiped extends RsWrap {
+
+    /**
+     * Size of the pipe, in bytes.
+     */
+    private static final int SIZE = 65_536;
+
+    /**
+     * How long a full pipe may stay not read, by default, in milliseconds.
+     */
+    private static final long PATIENCE = TimeUnit.MINUTES.toMillis(1L);
+
+    /**
+     * Threads writing into pipes.
+     */
+    private static final ExecutorService WRITERS =
+        Executors.newCachedThreadPool(new VerboseThreads(RsPiped.class));
+
+    /**
+     * Thread looking for pipes not read anymore.
+     */
+    private static final ScheduledExecutorService WATCHDOG =
+        Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(RsPiped.class)
+        );
+
+    /**
+     * Ctor.
+     * @param src Source of the body
+     */
+    public RsPiped(final RsPiped.Source src) {
+        this(src, RsPiped.PATIENCE);
+    }
+
+    /**
+     * Ctor.
+     * @param src Source of the body
+     * @param patience How long a full pipe may stay not read, in
+     *  milliseconds
+     */
+    RsPiped(final RsPiped.Source src, final long patience) {
+        super(
+            new Response() {
+                @Override
+                public Iterable<String> head() throws IOException {
+                    return new RsEmpty().head();
+                }
+                @Override
+                public InputStream body() throws IOException {
+                    return new RsPiped.Stream(src, patience);
+                }
+            }
+        );
+    }
+
+    /**
+     * Source of the body.
+     */
+    public interface Source {
+        /**
+         * Write the entire content into this output stream.
+         * @param output Output stream
+         * @throws IOException If fails
+         */
+        void write(OutputStream output) throws IOException;
+    }
+
+    /**
+     * Input stream fed by the source through a pipe.
+     */
+    private static final class Stream extends InputStream {
+        /**
+         * Reading end of the pipe.
+         */
+        private final transient PipedInputStream pipe;
+        /**
+         * Failure of the source, if any.
+         */
+        private final transient AtomicReference<Exception> error;
+        /**
+         * The source is done writing.
+         */
+        private final transient AtomicBoolean done;
+        /**
+         * When the pipe was read last time, in milliseconds.
+         */
+        private final transient AtomicLong touched;
+        /**
+         * How long a full pipe may stay not read, in milliseconds.
+         */
+        private final transient long patience;
+        /**
+         * Ctor.
+         * @param src Source
+         * @param wait How long a full pipe may stay not read, in
+         *  milliseconds
+         * @throws IOException If fails
+         */
+        Stream(final RsPiped.Source src, final long wait) throws IOException {
+            super();
+            this.patience = wait;
+            this.pipe = new PipedInputStream(RsPiped.SIZE);
+            this.error = new AtomicReference<>();
+            this.done = new AtomicBoolean();
+            this.touched = new AtomicLong(System.currentTimeMillis());
+            final PipedOutputStream output = new PipedOutputStream(this.pipe);
+            final AtomicReference<Exception> failure = this.error;
+            final AtomicBoolean finished = this.done;
+            RsPiped.WRITERS.execute(
+                new Runnable() {
+                    @Override
+                    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+                    public void run() {
+                        try {
+                            src.write(output);
+                        } catch (final IOException | RuntimeException ex) {
+                            failure.set(ex);
+                        } finally {
+                            finished.set(true);
+                            IOUtils.closeQuietly(output);
+                        }
+                    }
+                }
+            );
+            this.watch();
+        }
+        @Override
+        public int read() throws IOException {
+            try {
+                return this.checked(this.pipe.read());
+            } catch (final IOException ex) {
+                IOUtils.closeQuietly(this.pipe);
+                throw ex;
+            } finally {
+                this.touched.set(System.currentTimeMillis());
+            }
+        }
+        @Override
+        public int read(final byte[] bytes, final int off, final int len)
+            throws IOException {
+            try {
+                return this.checked(this.pipe.read(bytes, off, len));
+            } catch (final IOException ex) {
+                IOUtils.closeQuietly(this.pipe);
+                throw ex;
+            } finally {
+                this.touched.set(System.currentTimeMillis());
+            }
+        }
+        @Override
+        public int available() throws IOException {
+            return this.pipe.available();
+        }
+        @Override
+        public void close() throws IOException {
+            this.pipe.close();
+        }
+        /**
+         * Check the pipe later and close it, if it's full and not read
+         * for too long, while the source is still writing.
+         */
+        private void watch() {
+            RsPiped.WATCHDOG.schedule(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        RsPiped.Stream.this.inspect();
+                    }
+                },
+                this.patience, TimeUnit.MILLISECONDS
+            );
+        }
+        /**
+         * Close the pipe if the client stopped reading it, or check it
+         * again later, unless the source is done.
+         */
+        private void inspect() {
+            if (!this.done.get()) {
+                final long idle = System.currentTimeMillis()
+                    - this.touched.get();
+                boolean full;
+                try {
+                    full = this.pipe.available() >= RsPiped.SIZE;
+                } catch (final IOException ex) {
+                    full = false;
+                }
+                if (full && idle >= this.patience) {
+                    Logger.warn(
+                        this, "pipe not read for %[ms]s, closed", idle
+                    );
+                    IOUtils.closeQuietly(this.pipe);
+                } else {
+                    this.watch();
+                }
+            }
+        }
+        /**
+         * Make sure the source didn't fail, when the end of pipe is reached.
+         * @param result Result of the read operation
+         * @return The same result
+         * @throws IOException If the source failed
+         */
+        private int checked(final int result) throws IOException {
+            if (result < 0 && this.error.get() != null) {
+                throw new IOException(
+                    "failed to stream the content", this.error.get()
+                );
+            }
+            return result;
+        }
+    }
+
+}
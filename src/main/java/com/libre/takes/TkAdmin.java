@@ -29,13 +29,17 @@
  */
 package com.libre.takes;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.Iterables;
 import com.libre.om.Base;
 import com.libre.om.User;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
-import org.takes.facets.auth.RqAuth;
 import org.takes.rs.xe.XeAppend;
 import org.takes.rs.xe.XeDirectives;
 import org.takes.rs.xe.XeSource;
@@ -57,29 +61,55 @@ import org.xembly.Directives;
  *  to see admin page. If not - redirect to root (?)
  */
 public final class TkAdmin implements Take {
+    /**
+     * Docs in one page.
+     */
+    private static final int PAGE = 100;
     /**
      * Base.
      */
     private final transient Base base;
+    /**
+     * Statistics of the node.
+     */
+    private final transient Supplier<String> stats;
     /**
      * Ctor.
      * @param bse Base
      */
     public TkAdmin(final Base bse) {
+        this(bse, Suppliers.ofInstance(""));
+    }
+    /**
+     * Ctor.
+     * @param bse Base
+     * @param sts Statistics of the node, shown as they are
+     */
+    public TkAdmin(final Base bse, final Supplier<String> sts) {
         this.base = bse;
+        this.stats = sts;
     }
 
     @Override
     public Response act(final Request req) throws IOException {
-        final User user = this.base.user(new RqAuth(req).identity().urn());
+        final RqUser rqu = new RqUser(req, this.base);
+        final User user = rqu.user();
+        final RqCursor cursor = new RqCursor(req);
+        final List<String> names = new ArrayList<>(
+            user.docs().names(cursor.after(), TkAdmin.PAGE + 1)
+        );
+        final boolean more = names.size() > TkAdmin.PAGE;
+        if (more) {
+            names.remove(TkAdmin.PAGE);
+        }
         return new RsPage(
             "/xsl/admin.xsl",
-            req,
+            rqu,
             this.base,
             new XeAppend(
                 "docs",
                 new XeTransform<>(
-                    user.docs().names(),
+                    names,
                     new XeTransform.Func<String>() {
                         @Override
                         public XeSource transform(final String name) {
@@ -97,6 +127,10 @@ public final class TkAdmin implements Take {
                         }
                     }
                 )
+            ),
+            cursor.links(Iterables.getLast(names, ""), more),
+            new XeDirectives(
+                new Directives().add("stats").set(this.stats.get())
             )
         );
     }
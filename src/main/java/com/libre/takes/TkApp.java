@@ -29,6 +29,8 @@
  */
 package com.libre.takes;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.net.MediaType;
 import com.jcabi.log.VerboseProcess;
 import com.jcabi.manifests.Manifests;
@@ -99,17 +101,30 @@ public final class TkApp extends TkWrap {
      * @throws IOException If something goes wrong.
      */
     public TkApp(final Base base) throws IOException {
-        super(TkApp.make(base));
+        this(base, Suppliers.ofInstance(""));
+    }
+
+    /**
+     * Ctor.
+     * @param base Base
+     * @param stats Statistics of the node, for the admin page
+     * @throws IOException If something goes wrong.
+     */
+    public TkApp(final Base base, final Supplier<String> stats)
+        throws IOException {
+        super(TkApp.make(base, stats));
     }
 
     /**
      * Make itself.
      * @param base Base
+     * @param stats Statistics of the node, for the admin page
      * @return Takes
      * @throws IOException If fails
      */
     @SuppressWarnings("PMD.DoNotUseThreads")
-    public static Take make(final Base base) throws IOException {
+    public static Take make(final Base base, final Supplier<String> stats)
+        throws IOException {
         final Take fork = new TkFork(
             new FkParams(
                 PsByFlag.class.getSimpleName(),
@@ -184,9 +199,13 @@ public final class TkApp extends TkWrap {
                     new FkAnonymous(new TkIndex(base))
                 )
             ),
+            new FkRegex(
+                "/search",
+                new TkSecure(new TkSearch(base))
+            ),
             new FkRegex(
                 "/admin",
-                new TkSecure(new TkAdmin(base))
+                new TkSecure(new TkAdmin(base, stats))
             ),
             new FkRegex(
                 "/doc/.*",
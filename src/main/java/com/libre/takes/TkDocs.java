@@ -29,6 +29,8 @@
  */
 package com.libre.takes;
 
+import com.google.common.collect.Iterables;
+import com.jcabi.log.VerboseThreads;
 import com.libre.om.Attributes;
 import com.libre.om.Base;
 import com.libre.om.Doc;
@@ -36,11 +38,21 @@ import com.libre.om.Docs;
 import com.libre.om.User;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
-import org.takes.facets.auth.RqAuth;
 import org.takes.misc.Href;
 import org.takes.rq.RqHref;
 import org.takes.rs.xe.XeAppend;
@@ -54,14 +66,42 @@ import org.xembly.Directives;
 /**
  * List of docs.
  *
+ * <p>Documents are taken from {@link Docs#snapshot(String, int)}, which
+ * may have their attributes at hand, without asking every document. If it
+ * doesn't, documents are asked by a thread pool shared by the node,
+ * a few documents of a request at a time, so the page takes about as
+ * long as the slowest document, not as all of them together. The order
+ * of documents is kept. Documents are shown a page at a time, see
+ * {@link RqCursor}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 0.2
  * @checkstyle MultipleStringLiteralsCheck (500 lines)
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
+@SuppressWarnings("PMD.DoNotUseThreads")
 public final class TkDocs implements Take {
 
+    /**
+     * Docs in one page.
+     */
+    private static final int PAGE = 50;
+
+    /**
+     * Docs of one request asked at the same time.
+     */
+    private static final int WINDOW = 8;
+
+    /**
+     * Threads asking docs for their attributes.
+     */
+    private static final ExecutorService FETCHERS =
+        Executors.newFixedThreadPool(
+            // @checkstyle MagicNumber (1 line)
+            32, new VerboseThreads(TkDocs.class)
+        );
+
     /**
      * Base.
      */
@@ -80,13 +120,22 @@ public final class TkDocs implements Take {
     //  Create such place and move user directive there.
     @Override
     public Response act(final Request req) throws IOException {
-        final User user = this.base.user(new RqAuth(req).identity().urn());
-        final Docs docs = user.docs();
+        final RqUser rqu = new RqUser(req, this.base);
+        final User user = rqu.user();
+        final RqCursor cursor = new RqCursor(req);
+        final Map<String, Doc> page = new LinkedHashMap<>(
+            user.docs().snapshot(cursor.after(), TkDocs.PAGE + 1)
+        );
+        final boolean more = page.size() > TkDocs.PAGE;
+        if (more) {
+            page.remove(Iterables.getLast(page.keySet()));
+        }
         return new RsPage(
             "/xsl/docs.xsl",
-            req,
+            rqu,
             this.base,
             new XeLink("upload", "/doc/write"),
+            new XeLink("search", "/search"),
             new XeAppend(
                 "user",
                 new XeAppend(
@@ -100,33 +149,85 @@ public final class TkDocs implements Take {
             ),
             new XeAppend(
                 "docs",
-                new XeTransform<>(
-                    docs.names(),
-                    new XeTransform.Func<String>() {
-                        @Override
-                        public XeSource transform(final String doc)
-                            throws IOException {
-                            return TkDocs.source(docs.doc(doc), doc, req);
-                        }
-                    }
+                new XeChain(
+                    TkDocs.sources(page, new RqHref.Base(req).href())
                 )
             ),
+            cursor.links(Iterables.getLast(page.keySet(), ""), more),
             new XeLink("mkdir", "/dir/create")
         );
     }
 
+    /**
+     * Convert docs into XE sources, a few at a time.
+     * @param docs Docs by names
+     * @param base Home page
+     * @return Sources, in the order of docs
+     * @throws IOException If fails
+     */
+    private static List<XeSource> sources(final Map<String, Doc> docs,
+        final Href base) throws IOException {
+        final List<Future<XeSource>> futures = new ArrayList<>(docs.size());
+        final Deque<Future<XeSource>> running = new LinkedList<>();
+        try {
+            for (final Map.Entry<String, Doc> doc : docs.entrySet()) {
+                while (running.size() >= TkDocs.WINDOW) {
+                    TkDocs.await(running.poll());
+                }
+                final Future<XeSource> future = TkDocs.FETCHERS.submit(
+                    new Callable<XeSource>() {
+                        @Override
+                        public XeSource call() throws IOException {
+                            return TkDocs.source(
+                                doc.getValue(), doc.getKey(), base
+                            );
+                        }
+                    }
+                );
+                running.add(future);
+                futures.add(future);
+            }
+            final List<XeSource> sources = new ArrayList<>(futures.size());
+            for (final Future<XeSource> future : futures) {
+                sources.add(TkDocs.await(future));
+            }
+            return sources;
+        } finally {
+            for (final Future<XeSource> future : running) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Wait for the source of a doc.
+     * @param future Future source
+     * @return Source
+     * @throws IOException If fails
+     */
+    private static XeSource await(final Future<XeSource> future)
+        throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
     /**
      * Convert doc into XE source.
      * @param doc Doc
      * @param name Document name
-     * @param req Request
+     * @param base Home page
      * @return Source
      * @throws IOException If fails
      */
     private static XeSource source(final Doc doc, final String name,
-        final Request req) throws IOException {
-        final Href home = new RqHref.Base(req).href()
-            .path("doc").with("file", name);
+        final Href base) throws IOException {
+        final Href home = base.path("doc").with("file", name);
         final Attributes attrs = doc.attributes();
         final String created;
         if (attrs.created() == null) {
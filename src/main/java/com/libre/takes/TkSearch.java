@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes;
+
+import com.libre.om.Base;
+import java.io.IOException;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.misc.Href;
+import org.takes.rq.RqHref;
+import org.takes.rs.xe.XeAppend;
+import org.takes.rs.xe.XeChain;
+import org.takes.rs.xe.XeDirectives;
+import org.takes.rs.xe.XeLink;
+import org.takes.rs.xe.XeSource;
+import org.takes.rs.xe.XeTransform;
+import org.xembly.Directives;
+
+/**
+ * Documents of the user found by a part of their names.
+ *
+ * <p>The query is in the "q" query parameter, see
+ * {@link com.libre.om.Docs#find(String, int)}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class TkSearch implements Take {
+
+    /**
+     * Maximum number of documents found.
+     */
+    private static final int LIMIT = 100;
+
+    /**
+     * Base.
+     */
+    private final transient Base base;
+
+    /**
+     * Ctor.
+     * @param bse Base
+     */
+    public TkSearch(final Base bse) {
+        this.base = bse;
+    }
+
+    @Override
+    public Response act(final Request req) throws IOException {
+        final RqUser rqu = new RqUser(req, this.base);
+        final String query = new RqHref.Smart(new RqHref.Base(req))
+            .single("q", "");
+        return new RsPage(
+            "/xsl/search.xsl",
+            rqu,
+            this.base,
+            new XeLink("home", "/"),
+            new XeAppend("query", query),
+            new XeAppend(
+                "docs",
+                new XeTransform<>(
+                    rqu.user().docs().find(query, TkSearch.LIMIT),
+                    new XeTransform.Func<String>() {
+                        @Override
+                        public XeSource transform(final String name) {
+                            return new XeAppend(
+                                "doc",
+                                new XeChain(
+                                    new XeDirectives(
+                                        new Directives()
+                                            .add("name").set(name)
+                                    ),
+                                    new XeLink(
+                                        "read",
+                                        new Href("/doc/read")
+                                            .with("file", name)
+                                    )
+                                )
+                            );
+                        }
+                    }
+                )
+            )
+        );
+    }
+
+}
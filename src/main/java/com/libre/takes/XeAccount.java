@@ -41,6 +41,9 @@ import org.xembly.Directive;
 /**
  * XE source for user account.
  *
+ * <p>If the request already knows the user, the same user is asked, so
+ * the page doesn't fetch again what it has fetched for itself.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 0.4
@@ -67,7 +70,12 @@ final class XeAccount extends XeWrap {
      */
     private static XeSource make(final Base base, final Request req)
         throws IOException {
-        final RqUser user = new RqUser(req, base);
+        final RqUser user;
+        if (req instanceof RqUser) {
+            user = RqUser.class.cast(req);
+        } else {
+            user = new RqUser(req, base);
+        }
         return new XeWhen(
             user.exists(),
             new XeSource() {
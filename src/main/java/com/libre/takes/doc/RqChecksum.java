@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import com.google.common.io.BaseEncoding;
+import com.libre.om.Attributes;
+import com.libre.om.Doc;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+import org.takes.Request;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqWrap;
+
+/**
+ * Request with checksums of the content, declared by the client
+ * in "Content-MD5" (RFC 1864) and "Digest" (RFC 3230) headers.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class RqChecksum extends RqWrap {
+
+    /**
+     * Ctor.
+     * @param req Request
+     */
+    RqChecksum(final Request req) {
+        super(req);
+    }
+
+    /**
+     * The document already has the content the client declares?
+     *
+     * <p>The document is not touched at all if there are no checksums
+     * in the request, and every declared checksum must match the one
+     * recorded for the document.
+     *
+     * @param doc The document
+     * @return TRUE if the content may not be sent again
+     * @throws IOException If fails
+     */
+    public boolean same(final Doc doc) throws IOException {
+        final Map<String, String> hashes = this.hashes();
+        boolean same = !hashes.isEmpty() && doc.exists();
+        if (same) {
+            final Attributes attrs = doc.attributes();
+            for (final Map.Entry<String, String> hash : hashes.entrySet()) {
+                final String known = attrs.checksum(hash.getKey());
+                if (known.isEmpty() || !known.equals(hash.getValue())) {
+                    same = false;
+                    break;
+                }
+            }
+        }
+        return same;
+    }
+
+    /**
+     * Declared checksums, in lower case hex, by names of algorithms.
+     * @return Checksums
+     * @throws IOException If fails
+     */
+    private Map<String, String> hashes() throws IOException {
+        final RqHeaders headers = new RqHeaders.Base(this);
+        final Map<String, String> hashes = new HashMap<>(0);
+        for (final String value : headers.header("Content-MD5")) {
+            hashes.put("MD5", RqChecksum.hex(value));
+        }
+        for (final String value : headers.header("Digest")) {
+            for (final String item : StringUtils.split(value, ',')) {
+                final String name = StringUtils.substringBefore(item, "=")
+                    .trim().toUpperCase(Locale.ENGLISH);
+                if ("MD5".equals(name) || "SHA-256".equals(name)) {
+                    hashes.put(
+                        name,
+                        RqChecksum.hex(StringUtils.substringAfter(item, "="))
+                    );
+                }
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Base64 checksum in lower case hex.
+     * @param base Checksum in Base64
+     * @return Hex or empty if it's broken
+     */
+    private static String hex(final String base) {
+        String hex;
+        try {
+            hex = BaseEncoding.base16().lowerCase().encode(
+                BaseEncoding.base64().decode(base.trim())
+            );
+        } catch (final IllegalArgumentException ex) {
+            hex = "";
+        }
+        return hex;
+    }
+
+}
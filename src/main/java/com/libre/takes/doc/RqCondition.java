@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.TimeZone;
+import org.apache.commons.lang3.StringUtils;
+import org.takes.Request;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqWrap;
+
+/**
+ * Request with conditions on the content, according to RFC 7232.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class RqCondition extends RqWrap {
+
+    /**
+     * Ctor.
+     * @param req Request
+     */
+    RqCondition(final Request req) {
+        super(req);
+    }
+
+    /**
+     * HTTP date, as in RFC 7231.
+     * @param date Date
+     * @return Formatted date
+     */
+    public static String format(final Date date) {
+        return RqCondition.http().format(date);
+    }
+
+    /**
+     * The client already has this version of the content?
+     *
+     * <p>"If-None-Match" is checked first, with weak comparison, and
+     * "If-Modified-Since" is only used when there is no entity tag
+     * in the request.
+     *
+     * @param etag Entity tag of the content, without quotes
+     * @param modified Date of the last modification of the content
+     * @return TRUE if the content may not be sent again (304)
+     * @throws IOException If fails
+     */
+    public boolean fresh(final String etag, final Date modified)
+        throws IOException {
+        final String tags = this.header("If-None-Match");
+        final boolean fresh;
+        if (tags == null) {
+            final Date since = RqCondition.parse(
+                this.header("If-Modified-Since")
+            );
+            fresh = since != null && modified != null
+                && RqCondition.seconds(modified) <= RqCondition.seconds(since);
+        } else {
+            boolean found = false;
+            for (final String tag : StringUtils.split(tags, ',')) {
+                final String clean = StringUtils.removeStart(tag.trim(), "W/");
+                if ("*".equals(clean) || etag != null
+                    && String.format("\"%s\"", etag).equals(clean)) {
+                    found = true;
+                    break;
+                }
+            }
+            fresh = found;
+        }
+        return fresh;
+    }
+
+    /**
+     * The range in the request may be applied to this version
+     * of the content?
+     * @param etag Entity tag of the content, without quotes
+     * @param modified Date of the last modification of the content
+     * @return TRUE if there is no "If-Range" header or it matches
+     * @throws IOException If fails
+     */
+    public boolean ranged(final String etag, final Date modified)
+        throws IOException {
+        final String value = this.header("If-Range");
+        final boolean ranged;
+        if (value == null) {
+            ranged = true;
+        } else if (value.startsWith("\"")) {
+            ranged = etag != null
+                && String.format("\"%s\"", etag).equals(value);
+        } else {
+            final Date date = RqCondition.parse(value);
+            ranged = date != null && modified != null
+                && RqCondition.seconds(modified) == RqCondition.seconds(date);
+        }
+        return ranged;
+    }
+
+    /**
+     * Get a single header.
+     * @param name Name of the header
+     * @return Value of it or NULL if absent
+     * @throws IOException If fails
+     */
+    private String header(final String name) throws IOException {
+        final Iterator<String> values = new RqHeaders.Base(this)
+            .header(name).iterator();
+        final String value;
+        if (values.hasNext()) {
+            value = values.next().trim();
+        } else {
+            value = null;
+        }
+        return value;
+    }
+
+    /**
+     * Parse HTTP date.
+     * @param text Text to parse or NULL
+     * @return Date or NULL if it's absent or broken
+     */
+    private static Date parse(final String text) {
+        Date date = null;
+        if (text != null) {
+            try {
+                date = RqCondition.http().parse(text);
+            } catch (final ParseException ex) {
+                date = null;
+            }
+        }
+        return date;
+    }
+
+    /**
+     * Seconds since epoch, since HTTP dates don't have milliseconds.
+     * @param date Date
+     * @return Seconds
+     */
+    private static long seconds(final Date date) {
+        // @checkstyle MagicNumberCheck (1 line)
+        return date.getTime() / 1000L;
+    }
+
+    /**
+     * Format of HTTP dates.
+     * @return Format
+     */
+    private static DateFormat http() {
+        final DateFormat fmt = new SimpleDateFormat(
+            "EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH
+        );
+        fmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return fmt;
+    }
+
+}
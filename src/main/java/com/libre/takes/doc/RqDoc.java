@@ -29,10 +29,17 @@
  */
 package com.libre.takes.doc;
 
+import com.google.common.collect.Lists;
 import com.libre.om.Base;
+import com.libre.om.Batch;
 import com.libre.om.Doc;
+import com.libre.om.Docs;
 import com.libre.takes.RqUser;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import org.takes.Request;
 import org.takes.rq.RqHref;
 import org.takes.rq.RqWrap;
@@ -47,9 +54,9 @@ import org.takes.rq.RqWrap;
 final class RqDoc extends RqWrap {
 
     /**
-     * Base.
+     * User, shared by all documents of the request.
      */
-    private final transient Base base;
+    private final transient RqUser user;
 
     /**
      * Ctor.
@@ -58,7 +65,7 @@ final class RqDoc extends RqWrap {
      */
     RqDoc(final Request req, final Base bse) {
         super(req);
-        this.base = bse;
+        this.user = new RqUser(req, bse);
     }
 
     /**
@@ -67,11 +74,47 @@ final class RqDoc extends RqWrap {
      * @throws IOException If fails
      */
     public Doc doc() throws IOException {
-        return new RqUser(this, this.base).user().docs().doc(
+        return this.user.user().docs().doc(
             new RqHref.Smart(
                 new RqHref.Base(this)
             ).single("file")
         );
     }
 
+    /**
+     * Names of all documents in the request, without duplicates.
+     * @return Names, in order of appearance
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    public List<String> names() throws IOException {
+        return new ArrayList<>(
+            new LinkedHashSet<>(
+                Lists.newArrayList(
+                    new RqHref.Base(this).href().param("file")
+                )
+            )
+        );
+    }
+
+    /**
+     * Batch of all documents in the request.
+     * @return Documents, in the same order as {@link #names()}
+     * @throws IOException If fails
+     * @since 0.5
+     */
+    public Batch batch() throws IOException {
+        final Docs docs = this.user.user().docs();
+        final List<Doc> list = new ArrayList<>(0);
+        for (final String name : this.names()) {
+            list.add(docs.doc(name));
+        }
+        return new Batch() {
+            @Override
+            public List<Doc> list() {
+                return Collections.unmodifiableList(list);
+            }
+        };
+    }
+
 }
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import java.io.IOException;
+import java.util.Locale;
+import org.apache.commons.lang3.StringUtils;
+import org.takes.Request;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqWrap;
+
+/**
+ * Request with content codings the client accepts, according to
+ * "Accept-Encoding" of RFC 7231.
+ *
+ * <p>A coding is accepted if it is listed, or if "*" is listed and the
+ * coding is not, with a quality above zero.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class RqEncoding extends RqWrap {
+
+    /**
+     * Ctor.
+     * @param req Request
+     */
+    RqEncoding(final Request req) {
+        super(req);
+    }
+
+    /**
+     * Does the client accept this content coding?
+     * @param coding Content coding, like "deflate"
+     * @return TRUE if it is accepted
+     * @throws IOException If fails
+     */
+    public boolean accepts(final String coding) throws IOException {
+        double exact = -1.0d;
+        double any = -1.0d;
+        for (final String header
+            : new RqHeaders.Base(this).header("Accept-Encoding")) {
+            for (final String item : StringUtils.split(header, ',')) {
+                final String[] parts = StringUtils.split(item, ';');
+                final String name = parts[0].trim()
+                    .toLowerCase(Locale.ENGLISH);
+                if (name.equals(coding)) {
+                    exact = RqEncoding.quality(parts);
+                } else if ("*".equals(name)) {
+                    any = RqEncoding.quality(parts);
+                }
+            }
+        }
+        final double quality;
+        if (exact < 0.0d) {
+            quality = any;
+        } else {
+            quality = exact;
+        }
+        return quality > 0.0d;
+    }
+
+    /**
+     * Quality of the coding.
+     * @param parts Name and parameters of the coding
+     * @return Quality from zero to one, zero if it's broken
+     */
+    private static double quality(final String... parts) {
+        double quality = 1.0d;
+        for (int idx = 1; idx < parts.length; ++idx) {
+            final String param = parts[idx].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    quality = Double.parseDouble(param.substring(2).trim());
+                } catch (final NumberFormatException ex) {
+                    quality = 0.0d;
+                }
+            }
+        }
+        return quality;
+    }
+
+}
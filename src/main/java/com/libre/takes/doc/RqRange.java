@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.takes.Request;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqWrap;
+
+/**
+ * Request with a byte range, according to RFC 7233.
+ *
+ * <p>Only a single range is supported. Requests with a few ranges or
+ * with a broken "Range" header are treated as requests without a range,
+ * which is allowed by the RFC.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class RqRange extends RqWrap {
+
+    /**
+     * Pattern of a single byte range.
+     */
+    private static final Pattern PTN = Pattern.compile(
+        "\\s*bytes\\s*=\\s*(\\d{0,18})\\s*-\\s*(\\d{0,18})\\s*"
+    );
+
+    /**
+     * Ctor.
+     * @param req Request
+     */
+    RqRange(final Request req) {
+        super(req);
+    }
+
+    /**
+     * Is there a range in the request?
+     * @return TRUE if the request has a valid single byte range
+     * @throws IOException If fails
+     */
+    public boolean exists() throws IOException {
+        final Matcher matcher = this.matcher();
+        return matcher != null
+            && (matcher.group(1).isEmpty()
+            || matcher.group(2).isEmpty()
+            || Long.parseLong(matcher.group(1))
+            <= Long.parseLong(matcher.group(2)));
+    }
+
+    /**
+     * Can the range be satisfied for the content of this size?
+     * @param size Size of the content in bytes
+     * @return TRUE if at least one byte of the range is inside the content
+     * @throws IOException If fails
+     */
+    public boolean satisfiable(final long size) throws IOException {
+        final Matcher matcher = this.matcher();
+        final boolean sat;
+        if (matcher.group(1).isEmpty()) {
+            sat = size > 0L && Long.parseLong(matcher.group(2)) > 0L;
+        } else {
+            sat = Long.parseLong(matcher.group(1)) < size;
+        }
+        return sat;
+    }
+
+    /**
+     * Position of the first byte of the range.
+     * @param size Size of the content in bytes
+     * @return Position
+     * @throws IOException If fails
+     */
+    public long first(final long size) throws IOException {
+        final Matcher matcher = this.matcher();
+        final long first;
+        if (matcher.group(1).isEmpty()) {
+            first = Math.max(0L, size - Long.parseLong(matcher.group(2)));
+        } else {
+            first = Long.parseLong(matcher.group(1));
+        }
+        return first;
+    }
+
+    /**
+     * Position of the last byte of the range, inclusive.
+     * @param size Size of the content in bytes
+     * @return Position
+     * @throws IOException If fails
+     */
+    public long last(final long size) throws IOException {
+        final Matcher matcher = this.matcher();
+        final long last;
+        if (matcher.group(1).isEmpty() || matcher.group(2).isEmpty()) {
+            last = size - 1L;
+        } else {
+            last = Math.min(size - 1L, Long.parseLong(matcher.group(2)));
+        }
+        return last;
+    }
+
+    /**
+     * Matcher of the "Range" header.
+     * @return Matcher or NULL if there is no valid range
+     * @throws IOException If fails
+     */
+    private Matcher matcher() throws IOException {
+        final Iterator<String> headers = new RqHeaders.Base(this)
+            .header("Range").iterator();
+        Matcher matcher = null;
+        if (headers.hasNext()) {
+            final Matcher found = RqRange.PTN.matcher(headers.next());
+            if (found.matches() && !headers.hasNext()
+                && !(found.group(1).isEmpty() && found.group(2).isEmpty())) {
+                matcher = found;
+            }
+        }
+        return matcher;
+    }
+
+}
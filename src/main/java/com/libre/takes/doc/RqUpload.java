@@ -0,0 +1,490 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqWrap;
+
+/**
+ * Multipart request, parsed while its body is being received.
+ *
+ * <p>Unlike {@link org.takes.rq.RqMultipart.Base}, nothing is buffered:
+ * the body of a part is read directly from the socket, through a small
+ * buffer, and the parts before it are skipped. Thus, parts can only be
+ * read one after another and only once, but memory consumption doesn't
+ * depend on the size of the request.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class RqUpload extends RqWrap {
+
+    /**
+     * Size of the buffer, in bytes.
+     */
+    private static final int SIZE = 65_536;
+
+    /**
+     * Pattern to find the boundary in Content-Type header.
+     */
+    private static final Pattern BOUNDARY = Pattern.compile(
+        ".*[^a-z]boundary=\"?([^\";]+)\"?.*"
+    );
+
+    /**
+     * Pattern to find the name in Content-Disposition header.
+     */
+    private static final Pattern NAME = Pattern.compile(
+        ".*[^a-z]name=\"([^\"]+)\".*"
+    );
+
+    /**
+     * End of line.
+     */
+    private static final byte[] EOL = {'\r', '\n'};
+
+    /**
+     * Ctor.
+     * @param req Request
+     */
+    RqUpload(final Request req) {
+        super(req);
+    }
+
+    /**
+     * Find the part by name, skipping all parts before it.
+     * @param name Name of the part
+     * @return Part, with a body streamed from the request
+     * @throws IOException If fails
+     */
+    public Request part(final String name) throws IOException {
+        final RqUpload.Parts parts = this.parts(name);
+        if (!parts.next()) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                String.format("there is no part \"%s\" in the request", name)
+            );
+        }
+        return parts.part();
+    }
+
+    /**
+     * All parts with the given name, one after another.
+     * @param name Name of the parts
+     * @return Parts, with bodies streamed from the request
+     * @throws IOException If fails
+     */
+    public RqUpload.Parts parts(final String name) throws IOException {
+        final RqUpload.Cursor cursor = new RqUpload.Cursor(
+            this.body(),
+            String.format("\r\n--%s", this.boundary())
+                .getBytes(StandardCharsets.US_ASCII)
+        );
+        cursor.skip();
+        return new RqUpload.Parts(cursor, name);
+    }
+
+    /**
+     * Boundary of parts.
+     * @return Boundary
+     * @throws IOException If fails
+     */
+    private String boundary() throws IOException {
+        final Matcher matcher = RqUpload.BOUNDARY.matcher(
+            new RqHeaders.Smart(new RqHeaders.Base(this))
+                .single("Content-Type")
+        );
+        if (!matcher.matches()) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                "boundary is not specified in Content-Type header"
+            );
+        }
+        return matcher.group(1);
+    }
+
+    /**
+     * Name of the part.
+     * @param head Head of the part
+     * @return Name or empty string if it's absent
+     * @throws IOException If fails
+     */
+    private static String name(final List<String> head) throws IOException {
+        final Iterable<String> disp = new RqHeaders.Base(
+            new RqUpload.Head(head)
+        ).header("Content-Disposition");
+        String name = "";
+        for (final String value : disp) {
+            final Matcher matcher = RqUpload.NAME.matcher(value);
+            if (matcher.matches()) {
+                name = matcher.group(1);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Parts with the same name.
+     *
+     * <p>Moving to the next part skips what is left of the body of
+     * the current one, so a body has to be read before that.
+     */
+    public static final class Parts {
+        /**
+         * Cursor.
+         */
+        private final transient RqUpload.Cursor cursor;
+        /**
+         * Name of the parts.
+         */
+        private final transient String name;
+        /**
+         * Head of the current part, empty before the first one.
+         */
+        private transient List<String> head;
+        /**
+         * Ctor.
+         * @param crs Cursor, right after the preamble
+         * @param label Name of the parts
+         */
+        Parts(final RqUpload.Cursor crs, final String label) {
+            this.cursor = crs;
+            this.name = label;
+            this.head = new LinkedList<>();
+        }
+        /**
+         * Move to the next part with the name.
+         * @return TRUE if there is one
+         * @throws IOException If fails
+         */
+        public boolean next() throws IOException {
+            if (!this.head.isEmpty()) {
+                this.cursor.skip();
+            }
+            boolean found = false;
+            while (this.cursor.next()) {
+                this.head = this.cursor.head();
+                if (this.name.equals(RqUpload.name(this.head))) {
+                    found = true;
+                    break;
+                }
+                this.cursor.skip();
+            }
+            return found;
+        }
+        /**
+         * The current part.
+         * @return Part, with a body streamed from the request
+         */
+        public Request part() {
+            final List<String> lines = this.head;
+            final RqUpload.Cursor crs = this.cursor;
+            return new Request() {
+                @Override
+                public Iterable<String> head() {
+                    return lines;
+                }
+                @Override
+                public InputStream body() {
+                    return new RqUpload.Body(crs);
+                }
+            };
+        }
+    }
+
+    /**
+     * Request with head only and an empty body.
+     */
+    private static final class Head implements Request {
+        /**
+         * Head.
+         */
+        private final transient List<String> lines;
+        /**
+         * Ctor.
+         * @param head Head
+         */
+        Head(final List<String> head) {
+            this.lines = head;
+        }
+        @Override
+        public Iterable<String> head() {
+            return this.lines;
+        }
+        @Override
+        public InputStream body() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+
+    /**
+     * Body of the current part.
+     */
+    private static final class Body extends InputStream {
+        /**
+         * Cursor.
+         */
+        private final transient RqUpload.Cursor cursor;
+        /**
+         * Ctor.
+         * @param crs Cursor
+         */
+        Body(final RqUpload.Cursor crs) {
+            super();
+            this.cursor = crs;
+        }
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            final int len = this.read(one, 0, 1);
+            final int result;
+            if (len < 0) {
+                result = -1;
+            } else {
+                result = one[0] & 0xff;
+            }
+            return result;
+        }
+        @Override
+        public int read(final byte[] bytes, final int off, final int len)
+            throws IOException {
+            return this.cursor.read(bytes, off, len);
+        }
+    }
+
+    /**
+     * Position in the body of the request.
+     */
+    private static final class Cursor {
+        /**
+         * Body of the request.
+         */
+        private final transient InputStream origin;
+        /**
+         * Delimiter of parts, including the leading end of line.
+         */
+        private final transient byte[] delimiter;
+        /**
+         * Buffer.
+         */
+        private final transient byte[] buffer;
+        /**
+         * Position of the first unread byte in the buffer.
+         */
+        private transient int pos;
+        /**
+         * Position after the last byte in the buffer.
+         */
+        private transient int lim;
+        /**
+         * The delimiter after the current part is reached.
+         */
+        private transient boolean done;
+        /**
+         * Ctor.
+         * @param input Body of the request
+         * @param delim Delimiter of parts
+         */
+        Cursor(final InputStream input, final byte[] delim) {
+            this.origin = input;
+            this.delimiter = delim;
+            this.buffer = new byte[RqUpload.SIZE];
+            System.arraycopy(RqUpload.EOL, 0, this.buffer, 0, 2);
+            this.lim = 2;
+        }
+        /**
+         * Read the body of the current part.
+         * @param bytes Destination
+         * @param off Offset in the destination
+         * @param len Maximum number of bytes to read
+         * @return Number of bytes read or -1 at the end of the part
+         * @throws IOException If fails
+         */
+        public int read(final byte[] bytes, final int off, final int len)
+            throws IOException {
+            int count = -1;
+            if (!this.done) {
+                this.fill(this.delimiter.length);
+                final int found = this.find(this.delimiter);
+                final int avail;
+                if (found < 0) {
+                    avail = this.lim - this.pos - this.delimiter.length + 1;
+                    if (avail <= 0) {
+                        throw new HttpException(
+                            HttpURLConnection.HTTP_BAD_REQUEST,
+                            "unexpected end of multipart body"
+                        );
+                    }
+                } else {
+                    avail = found - this.pos;
+                }
+                if (avail == 0) {
+                    this.pos += this.delimiter.length;
+                    this.done = true;
+                } else {
+                    count = Math.min(len, avail);
+                    System.arraycopy(
+                        this.buffer, this.pos, bytes, off, count
+                    );
+                    this.pos += count;
+                }
+            }
+            return count;
+        }
+        /**
+         * Skip the rest of the current part.
+         * @throws IOException If fails
+         */
+        public void skip() throws IOException {
+            final byte[] trash = new byte[RqUpload.SIZE];
+            while (this.read(trash, 0, trash.length) >= 0) {
+                continue;
+            }
+        }
+        /**
+         * Move to the next part, right after the delimiter.
+         * @return TRUE if there is one, FALSE if it was the last delimiter
+         * @throws IOException If fails
+         */
+        public boolean next() throws IOException {
+            this.fill(2);
+            final boolean more = this.lim - this.pos >= 2
+                && !(this.buffer[this.pos] == '-'
+                && this.buffer[this.pos + 1] == '-');
+            if (more) {
+                this.line();
+                this.done = false;
+            }
+            return more;
+        }
+        /**
+         * Read the head of the current part.
+         * @return Lines of the head, starting with a fake request line
+         * @throws IOException If fails
+         */
+        public List<String> head() throws IOException {
+            final List<String> head = new LinkedList<>();
+            head.add("POST / HTTP/1.1");
+            while (true) {
+                final String line = this.line();
+                if (line.isEmpty()) {
+                    break;
+                }
+                head.add(line);
+            }
+            return head;
+        }
+        /**
+         * Read one line.
+         * @return Line, without the end of line
+         * @throws IOException If fails
+         */
+        private String line() throws IOException {
+            int found = this.find(RqUpload.EOL);
+            while (found < 0 && this.lim - this.pos < this.buffer.length) {
+                final int before = this.lim - this.pos;
+                this.fill(before + 1);
+                if (this.lim - this.pos == before) {
+                    break;
+                }
+                found = this.find(RqUpload.EOL);
+            }
+            if (found < 0) {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_BAD_REQUEST,
+                    "invalid head of a multipart body"
+                );
+            }
+            final String line = new String(
+                this.buffer, this.pos, found - this.pos,
+                StandardCharsets.UTF_8
+            );
+            this.pos = found + RqUpload.EOL.length;
+            return line;
+        }
+        /**
+         * Read more bytes into the buffer, until the given number of them
+         * is available or the end of the request is reached.
+         * @param need Number of bytes needed
+         * @throws IOException If fails
+         */
+        private void fill(final int need) throws IOException {
+            if (this.lim - this.pos < need) {
+                System.arraycopy(
+                    this.buffer, this.pos, this.buffer, 0, this.lim - this.pos
+                );
+                this.lim -= this.pos;
+                this.pos = 0;
+                while (this.lim < need) {
+                    final int len = this.origin.read(
+                        this.buffer, this.lim, this.buffer.length - this.lim
+                    );
+                    if (len < 0) {
+                        break;
+                    }
+                    this.lim += len;
+                }
+            }
+        }
+        /**
+         * Find the bytes in the buffer.
+         * @param target Bytes to find
+         * @return Position or -1 if not found
+         */
+        private int find(final byte[] target) {
+            int found = -1;
+            final int last = this.lim - target.length;
+            for (int idx = this.pos; idx <= last && found < 0; ++idx) {
+                int len = 0;
+                while (len < target.length
+                    && this.buffer[idx + len] == target[len]) {
+                    ++len;
+                }
+                if (len == target.length) {
+                    found = idx;
+                }
+            }
+            return found;
+        }
+    }
+
+}
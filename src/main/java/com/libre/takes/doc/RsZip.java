@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import com.jcabi.log.VerboseThreads;
+import com.libre.om.Batch;
+import com.libre.om.Doc;
+import com.libre.takes.RsPiped;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.takes.rs.RsWithHeaders;
+import org.takes.rs.RsWrap;
+
+/**
+ * ZIP archive with documents of a batch, streamed to the client.
+ *
+ * <p>Entries are compressed and sent one by one, as soon as they are
+ * read. While one document is being compressed, the next few are already
+ * being read by a thread pool shared by the node, into temporary files,
+ * so the latency of the storage overlaps with compression and memory
+ * consumption doesn't depend on the size of documents.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class RsZip extends RsWrap {
+
+    /**
+     * Number of documents read ahead.
+     */
+    private static final int AHEAD = 3;
+
+    /**
+     * Threads reading documents.
+     */
+    private static final ExecutorService READERS =
+        Executors.newFixedThreadPool(
+            // @checkstyle MagicNumber (1 line)
+            8, new VerboseThreads(RsZip.class)
+        );
+
+    /**
+     * Ctor.
+     * @param names Names of entries
+     * @param batch Documents, in the same order as names
+     */
+    RsZip(final List<String> names, final Batch batch) {
+        super(
+            new RsWithHeaders(
+                new RsPiped(
+                    new RsPiped.Source() {
+                        @Override
+                        public void write(final OutputStream output)
+                            throws IOException {
+                            RsZip.zip(names, batch.list(), output);
+                        }
+                    }
+                ),
+                "Content-Type: application/zip",
+                "Content-Disposition: attachment; filename=\"documents.zip\""
+            )
+        );
+    }
+
+    /**
+     * Write documents into the output as a ZIP archive.
+     * @param names Names of entries
+     * @param docs Documents
+     * @param output Output stream, will not be closed
+     * @throws IOException If fails
+     */
+    private static void zip(final List<String> names, final List<Doc> docs,
+        final OutputStream output) throws IOException {
+        if (names.size() != docs.size()) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "%d names for %d documents", names.size(), docs.size()
+                )
+            );
+        }
+        final Deque<File> files = new LinkedList<>();
+        final Deque<Future<?>> reads = new LinkedList<>();
+        final ZipOutputStream zip = new ZipOutputStream(output);
+        int next = 0;
+        try {
+            for (final String name : names) {
+                while (next < docs.size() && reads.size() < RsZip.AHEAD) {
+                    final File file = File.createTempFile("zip-", ".tmp");
+                    files.add(file);
+                    reads.add(
+                        RsZip.READERS.submit(RsZip.read(docs.get(next), file))
+                    );
+                    ++next;
+                }
+                RsZip.await(reads.poll());
+                final File file = files.poll();
+                try {
+                    zip.putNextEntry(new ZipEntry(name));
+                    Files.copy(file.toPath(), zip);
+                    zip.closeEntry();
+                } finally {
+                    FileUtils.deleteQuietly(file);
+                }
+            }
+            zip.finish();
+        } finally {
+            for (final Future<?> read : reads) {
+                read.cancel(true);
+            }
+            for (final File file : files) {
+                FileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * Task reading the document into the file.
+     * @param doc Document
+     * @param file File
+     * @return Task
+     */
+    private static Callable<Void> read(final Doc doc, final File file) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                try (final OutputStream out = new FileOutputStream(file)) {
+                    doc.read(out);
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Wait for the document to be read.
+     * @param read Task reading it
+     * @throws IOException If fails
+     */
+    private static void await(final Future<?> read) throws IOException {
+        try {
+            read.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+}
@@ -30,7 +30,10 @@
 package com.libre.takes.doc;
 
 import com.libre.om.Base;
+import com.libre.om.SmallDoc;
+import java.io.File;
 import java.io.IOException;
+import org.apache.commons.io.FileUtils;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
@@ -53,20 +56,33 @@ public final class TkDoc implements Take {
      */
     private final transient Base base;
 
+    /**
+     * Upload sessions.
+     */
+    private final transient Uploads uploads;
+
     /**
      * Ctor.
      * @param bse Base
      */
     public TkDoc(final Base bse) {
         this.base = bse;
+        this.uploads = new Uploads(
+            new File(FileUtils.getTempDirectory(), "libre-uploads"),
+            SmallDoc.LARGE
+        );
     }
 
     @Override
     public Response act(final Request req) throws IOException {
         return new TkFork(
             new FkRegex("/doc/read", new TkRead(this.base)),
+            new FkRegex("/doc/zip", new TkZip(this.base)),
             new FkRegex("/doc/delete", new TkDelete(this.base)),
             new FkRegex("/doc/write", new TkWrite(this.base)),
+            new FkRegex(
+                "/doc/upload/.*", new TkUpload(this.base, this.uploads)
+            ),
             new FkRegex("/doc/add-friend", new TkAddFriend(this.base)),
             new FkRegex("/doc/eject-friend", new TkEjectFriend(this.base)),
             new FkRegex("/doc/set-visibility", new TkSetVisibility(this.base))
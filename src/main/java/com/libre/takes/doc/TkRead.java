@@ -29,26 +29,51 @@
  */
 package com.libre.takes.doc;
 
+import com.libre.om.Attributes;
 import com.libre.om.Base;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import com.libre.om.Doc;
+import com.libre.takes.RsPiped;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedList;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
 import org.takes.rq.RqHref;
-import org.takes.rs.RsWithBody;
+import org.takes.rs.RsEmpty;
 import org.takes.rs.RsWithHeader;
+import org.takes.rs.RsWithHeaders;
+import org.takes.rs.RsWithStatus;
 
 /**
  * Read file content.
  *
+ * <p>The content is streamed to the client while it is being read from
+ * the document, without buffering it in memory. A single byte range
+ * may be requested in the "Range" header, according to RFC 7233.
+ * Conditional requests are answered with 304 after a single lookup
+ * of document attributes, without reading the content.
+ *
+ * <p>If the document is stored compressed and the client accepts its
+ * content coding, the entire content is sent as it is stored, with
+ * "Content-Encoding" and an entity tag of its own. Ranges are always
+ * taken from the content as it was written.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 0.2
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 final class TkRead implements Take {
 
+    /**
+     * Content coding of a document stored as it is.
+     */
+    private static final String IDENTITY = "identity";
+
     /**
      * Base.
      */
@@ -64,15 +89,131 @@ final class TkRead implements Take {
 
     @Override
     public Response act(final Request req) throws IOException {
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        new RqDoc(req, this.base).doc().read(baos);
-        return new RsWithHeader(
-            new RsWithBody(new ByteArrayInputStream(baos.toByteArray())),
-            "Content-Disposition",
+        final Doc doc = new RqDoc(req, this.base).doc();
+        final Attributes attrs = doc.attributes();
+        final long size = attrs.size();
+        final Date modified = attrs.modified();
+        final RqCondition cond = new RqCondition(req);
+        final RqRange range = new RqRange(req);
+        final String coding = attrs.encoding();
+        final boolean stored = !TkRead.IDENTITY.equals(coding);
+        final boolean encoded = stored && !range.exists()
+            && new RqEncoding(req).accepts(coding);
+        final String etag = TkRead.etag(attrs, encoded);
+        final Response response;
+        if (cond.fresh(etag, modified)) {
+            response = new RsWithStatus(
+                new RsEmpty(), HttpURLConnection.HTTP_NOT_MODIFIED
+            );
+        } else if (range.exists() && cond.ranged(etag, modified)) {
+            if (range.satisfiable(size)) {
+                response = TkRead.partial(
+                    doc, range.first(size), range.last(size), size
+                );
+            } else {
+                response = new RsWithHeader(
+                    new RsWithStatus(
+                        new RsEmpty(),
+                        // @checkstyle MagicNumberCheck (1 line)
+                        416, "Range Not Satisfiable"
+                    ),
+                    "Content-Range", String.format("bytes */%d", size)
+                );
+            }
+        } else if (encoded) {
+            response = new RsWithHeader(
+                new RsPiped(
+                    new RsPiped.Source() {
+                        @Override
+                        public void write(final OutputStream output)
+                            throws IOException {
+                            doc.encoded(output);
+                        }
+                    }
+                ),
+                "Content-Encoding", coding
+            );
+        } else {
+            response = new RsWithHeader(
+                new RsPiped(
+                    new RsPiped.Source() {
+                        @Override
+                        public void write(final OutputStream output)
+                            throws IOException {
+                            doc.read(output);
+                        }
+                    }
+                ),
+                "Content-Length", Long.toString(size)
+            );
+        }
+        final Collection<String> headers = new LinkedList<>();
+        headers.add("Accept-Ranges: bytes");
+        headers.add(
             String.format(
-                "attachment; filename=\"%s\"",
+                "Content-Disposition: attachment; filename=\"%s\"",
                 new RqHref.Smart(new RqHref.Base(req)).single("file")
             )
         );
+        if (stored) {
+            headers.add("Vary: Accept-Encoding");
+        }
+        if (etag != null) {
+            headers.add(String.format("ETag: \"%s\"", etag));
+        }
+        if (modified != null) {
+            headers.add(
+                String.format(
+                    "Last-Modified: %s", RqCondition.format(modified)
+                )
+            );
+        }
+        return new RsWithHeaders(response, headers);
+    }
+
+    /**
+     * Entity tag of the content.
+     * @param attrs Attributes of the document
+     * @param encoded Content is sent as it is stored
+     * @return Entity tag or NULL if it's not known
+     * @throws IOException If fails
+     */
+    private static String etag(final Attributes attrs, final boolean encoded)
+        throws IOException {
+        String etag = attrs.etag();
+        if (encoded && etag != null) {
+            etag = String.format("%s-%s", etag, attrs.encoding());
+        }
+        return etag;
+    }
+
+    /**
+     * Partial content of the document.
+     * @param doc Document
+     * @param first Position of the first byte
+     * @param last Position of the last byte, inclusive
+     * @param size Total size of the document
+     * @return Response
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static Response partial(final Doc doc, final long first,
+        final long last, final long size) {
+        final long length = last - first + 1L;
+        return new RsWithHeaders(
+            new RsWithStatus(
+                new RsPiped(
+                    new RsPiped.Source() {
+                        @Override
+                        public void write(final OutputStream output)
+                            throws IOException {
+                            doc.read(output, first, length);
+                        }
+                    }
+                ),
+                HttpURLConnection.HTTP_PARTIAL, "Partial Content"
+            ),
+            String.format("Content-Length: %d", length),
+            String.format("Content-Range: bytes %d-%d/%d", first, last, size)
+        );
     }
 }
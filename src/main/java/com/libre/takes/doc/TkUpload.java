@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import com.libre.om.Base;
+import com.libre.om.User;
+import com.libre.takes.RqUser;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.facets.flash.RsFlash;
+import org.takes.facets.fork.FkRegex;
+import org.takes.facets.fork.TkFork;
+import org.takes.facets.forward.RsForward;
+import org.takes.rq.RqHref;
+import org.takes.rq.RqLengthAware;
+import org.takes.rs.RsEmpty;
+import org.takes.rs.RsText;
+import org.takes.rs.RsWithStatus;
+
+/**
+ * Resumable upload of a document, in chunks.
+ *
+ * <p>The protocol is:
+ * "/doc/upload/open?file=NAME" returns ID of a new session in plain text;
+ * "/doc/upload/chunk?id=ID&amp;number=N" saves the body of the request as
+ * the chunk number N, starting from one, and may be repeated;
+ * "/doc/upload/commit?id=ID" writes all chunks into the document;
+ * "/doc/upload/cancel?id=ID" forgets the session.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ * @checkstyle MultipleStringLiteralsCheck (500 lines)
+ */
+final class TkUpload implements Take {
+
+    /**
+     * Base.
+     */
+    private final transient Base base;
+
+    /**
+     * Upload sessions.
+     */
+    private final transient Uploads uploads;
+
+    /**
+     * Ctor.
+     * @param bse Base
+     * @param upl Upload sessions
+     */
+    TkUpload(final Base bse, final Uploads upl) {
+        this.base = bse;
+        this.uploads = upl;
+    }
+
+    @Override
+    public Response act(final Request req) throws IOException {
+        return new TkFork(
+            new FkRegex(
+                "/doc/upload/open",
+                new Take() {
+                    @Override
+                    public Response act(final Request req) throws IOException {
+                        return new RsText(
+                            TkUpload.this.uploads.open(
+                                TkUpload.this.user(req).urn(),
+                                TkUpload.param(req, "file")
+                            )
+                        );
+                    }
+                }
+            ),
+            new FkRegex(
+                "/doc/upload/chunk",
+                new Take() {
+                    @Override
+                    public Response act(final Request req) throws IOException {
+                        TkUpload.this.uploads.chunk(
+                            TkUpload.this.user(req).urn(),
+                            TkUpload.param(req, "id"),
+                            TkUpload.number(req),
+                            new RqLengthAware(req).body()
+                        );
+                        return new RsWithStatus(
+                            new RsEmpty(), HttpURLConnection.HTTP_NO_CONTENT
+                        );
+                    }
+                }
+            ),
+            new FkRegex(
+                "/doc/upload/commit",
+                new Take() {
+                    @Override
+                    public Response act(final Request req) throws IOException {
+                        final User user = TkUpload.this.user(req);
+                        final String name = TkUpload.this.uploads.commit(
+                            user.urn(), TkUpload.param(req, "id"), user.docs()
+                        );
+                        return new RsForward(
+                            new RsFlash(
+                                String.format("file \"%s\" uploaded", name)
+                            )
+                        );
+                    }
+                }
+            ),
+            new FkRegex(
+                "/doc/upload/cancel",
+                new Take() {
+                    @Override
+                    public Response act(final Request req) throws IOException {
+                        TkUpload.this.uploads.cancel(
+                            TkUpload.this.user(req).urn(),
+                            TkUpload.param(req, "id")
+                        );
+                        return new RsWithStatus(
+                            new RsEmpty(), HttpURLConnection.HTTP_NO_CONTENT
+                        );
+                    }
+                }
+            )
+        ).act(req);
+    }
+
+    /**
+     * Current user.
+     * @param req Request
+     * @return User
+     * @throws IOException If fails
+     */
+    private User user(final Request req) throws IOException {
+        return new RqUser(req, this.base).user();
+    }
+
+    /**
+     * Query parameter.
+     * @param req Request
+     * @param name Name of the parameter
+     * @return Value
+     * @throws IOException If fails
+     */
+    private static String param(final Request req, final String name)
+        throws IOException {
+        return new RqHref.Smart(new RqHref.Base(req)).single(name);
+    }
+
+    /**
+     * Number of the chunk.
+     * @param req Request
+     * @return Number
+     * @throws IOException If fails
+     */
+    private static int number(final Request req) throws IOException {
+        try {
+            return Integer.parseInt(TkUpload.param(req, "number"));
+        } catch (final NumberFormatException ex) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST, "invalid chunk number", ex
+            );
+        }
+    }
+
+}
@@ -29,34 +29,80 @@
  */
 package com.libre.takes.doc;
 
+import com.google.common.base.Joiner;
+import com.google.common.util.concurrent.Futures;
 import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
 import com.libre.om.Base;
 import com.libre.om.Doc;
+import com.libre.om.Docs;
+import com.libre.om.Spool;
 import com.libre.takes.RqDisposition;
 import com.libre.takes.RqUser;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import org.takes.HttpException;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
 import org.takes.facets.flash.RsFlash;
 import org.takes.facets.forward.RsForward;
-import org.takes.rq.RqBuffered;
-import org.takes.rq.RqLengthAware;
-import org.takes.rq.RqMultipart;
+import org.takes.rq.RqHeaders;
 
 /**
- * Write file content.
+ * Write content of files.
+ *
+ * <p>Every "file" part of the request is stored. A small file is spooled,
+ * see {@link Spool}, and written by a thread pool shared by the node, a few
+ * files of a request at a time, while the next parts are being received.
+ * A large file is streamed from the socket into the document while it is
+ * being received, without buffering; its size is usually not known until
+ * the end, so the document gets it as unknown. If a part declares
+ * checksums of the file and they match the stored ones, the document is
+ * not written: its body is still received, since it's on the way in the
+ * same request, but it's discarded while the next part is looked for,
+ * instead of being uploaded to the storage. The flash message reports
+ * the outcome for every file.
  *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 0.2
- * @todo #151:30min This class should work with a batch of documents, not just
- *  with a single document. Use the new interface Batch in place of the current
- *  Doc interface.
  */
+@SuppressWarnings("PMD.DoNotUseThreads")
 final class TkWrite implements Take {
 
+    /**
+     * Largest file read into memory, in bytes.
+     */
+    private static final int SMALL = 1 << 20;
+
+    /**
+     * Files of one request written at the same time.
+     */
+    private static final int WINDOW = 4;
+
+    /**
+     * Threads writing small files.
+     */
+    private static final ExecutorService WRITERS =
+        Executors.newFixedThreadPool(
+            // @checkstyle MagicNumber (1 line)
+            8, new VerboseThreads(TkWrite.class)
+        );
+
     /**
      * Base.
      */
@@ -72,18 +118,177 @@ final class TkWrite implements Take {
 
     @Override
     public Response act(final Request req) throws IOException {
-        final RqMultipart multi = new RqMultipart.Base(new RqBuffered(req));
-        Logger.info(
-            this, "%d bytes received and parsed",
-            new RqLengthAware(req).body().available()
+        final Docs docs = new RqUser(req, this.base).user().docs();
+        final RqUpload.Parts parts = new RqUpload(req).parts("file");
+        final AtomicInteger failed = new AtomicInteger();
+        final List<Future<String>> outcomes = new LinkedList<>();
+        final Deque<Future<String>> running = new LinkedList<>();
+        while (parts.next()) {
+            final Request part = parts.part();
+            final String name = new RqDisposition(part).filename();
+            final Doc doc = docs.doc(name);
+            if (new RqChecksum(part).same(doc)) {
+                Logger.info(
+                    this, "%s isn't changed, body discarded, not stored", name
+                );
+                outcomes.add(
+                    Futures.immediateFuture(
+                        String.format("\"%s\" is not changed", name)
+                    )
+                );
+            } else {
+                final InputStream body = part.body();
+                final Spool.Content head = Spool.NODE.read(
+                    body, (long) TkWrite.SMALL
+                );
+                if (head.size() < (long) TkWrite.SMALL) {
+                    while (running.size() >= TkWrite.WINDOW) {
+                        TkWrite.await(running.poll());
+                    }
+                    final Future<String> future = TkWrite.WRITERS.submit(
+                        TkWrite.task(doc, name, head, failed)
+                    );
+                    running.add(future);
+                    outcomes.add(future);
+                } else {
+                    try {
+                        outcomes.add(
+                            Futures.immediateFuture(
+                                TkWrite.write(
+                                    doc, name,
+                                    new SequenceInputStream(
+                                        head.stream(), body
+                                    ),
+                                    TkWrite.size(part), failed
+                                )
+                            )
+                        );
+                    } finally {
+                        head.close();
+                    }
+                }
+            }
+        }
+        if (outcomes.isEmpty()) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                "there is no part \"file\" in the request"
+            );
+        }
+        final List<String> messages = new LinkedList<>();
+        for (final Future<String> outcome : outcomes) {
+            messages.add(TkWrite.await(outcome));
+        }
+        final Level level;
+        if (failed.get() == 0) {
+            level = Level.INFO;
+        } else {
+            level = Level.WARNING;
+        }
+        return new RsForward(
+            new RsFlash(Joiner.on("; ").join(messages), level)
         );
-        final Request part = multi.part("file").iterator().next();
-        final Doc doc = new RqUser(req, this.base).user().docs().doc(
-            new RqDisposition(part).filename()
-        );
-        final InputStream body = part.body();
-        doc.write(body, body.available());
-        return new RsForward(new RsFlash("file uploaded"));
+    }
+
+    /**
+     * Task writing the spooled file into the document.
+     * @param doc Document
+     * @param name Name of the file
+     * @param content Content, will be closed
+     * @param failed Counter of failed files
+     * @return Task
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private static Callable<String> task(final Doc doc, final String name,
+        final Spool.Content content, final AtomicInteger failed) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                try (final InputStream input = content.stream()) {
+                    return TkWrite.write(
+                        doc, name, input, content.size(), failed
+                    );
+                } finally {
+                    content.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Write the file into the document.
+     * @param doc Document
+     * @param name Name of the file
+     * @param input Content
+     * @param size Size in bytes or -1 if it is unknown
+     * @param failed Counter of failed files
+     * @return Outcome, for the user
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private static String write(final Doc doc, final String name,
+        final InputStream input, final long size, final AtomicInteger failed) {
+        String outcome;
+        try {
+            doc.write(input, size);
+            Logger.info(
+                TkWrite.class, "%s received, %d bytes declared", name, size
+            );
+            outcome = String.format("\"%s\" uploaded", name);
+        } catch (final IOException | RuntimeException ex) {
+            Logger.warn(TkWrite.class, "%s failed: %[exception]s", name, ex);
+            failed.incrementAndGet();
+            outcome = String.format(
+                "\"%s\" failed: %s", name, ex.getLocalizedMessage()
+            );
+        }
+        return outcome;
+    }
+
+    /**
+     * Wait for the outcome of a file.
+     * @param outcome Future outcome
+     * @return Outcome
+     * @throws IOException If fails
+     */
+    private static String await(final Future<String> outcome)
+        throws IOException {
+        try {
+            return outcome.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Size of the part, if it is declared.
+     * @param part Part of the request
+     * @return Size in bytes or -1 if it is unknown
+     * @throws IOException If fails or the size is not a valid number
+     */
+    private static long size(final Request part) throws IOException {
+        final Iterator<String> length = new RqHeaders.Base(part)
+            .header("Content-Length").iterator();
+        long size = -1L;
+        if (length.hasNext()) {
+            try {
+                size = Long.parseLong(length.next().trim());
+            } catch (final NumberFormatException ex) {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_BAD_REQUEST,
+                    "invalid part length", ex
+                );
+            }
+            if (size < 0L) {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_BAD_REQUEST,
+                    String.format("negative part length %d", size)
+                );
+            }
+        }
+        return size;
     }
 
 }
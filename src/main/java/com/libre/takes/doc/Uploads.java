@@ -0,0 +1,530 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import com.jcabi.log.Logger;
+import com.libre.om.Docs;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.FileUtils;
+import org.takes.HttpException;
+
+/**
+ * Upload sessions of the node, with chunks staged on local disk.
+ *
+ * <p>A client opens a session for a document, sends its numbered chunks
+ * in any order, retrying any of them if needed, and commits the session.
+ * The chunks are then written into the document as one stream, by a single
+ * {@link com.libre.om.Doc#write(InputStream, long)}. A session is closed
+ * by its commit before the document is written, so a second commit of
+ * it fails with 409 and no chunk can change under the commit; it's open
+ * again if the write fails. Sessions idle for a day are forgotten.
+ * A user may have a few sessions open at a time, with chunks of not more
+ * than the given number of bytes in all of them. The class is
+ * thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class Uploads {
+
+    /**
+     * Maximum number of chunks in a session.
+     */
+    private static final int CHUNKS = 10_000;
+
+    /**
+     * Maximum number of open sessions of a user.
+     */
+    private static final int SESSIONS = 10;
+
+    /**
+     * HTTP status of a user with too many open sessions.
+     */
+    private static final int TOO_MANY = 429;
+
+    /**
+     * Size of the buffer for copying, in bytes.
+     */
+    private static final int BUFFER = 65_536;
+
+    /**
+     * Time after which an idle session is forgotten, in milliseconds.
+     */
+    private static final long IDLE = TimeUnit.DAYS.toMillis(1L);
+
+    /**
+     * Directory with sessions.
+     */
+    private final transient File dir;
+
+    /**
+     * Maximum size of a document, in bytes.
+     */
+    private final transient long max;
+
+    /**
+     * Maximum size of chunks of a user, in all sessions, in bytes.
+     */
+    private final transient long quota;
+
+    /**
+     * Sessions by their IDs.
+     */
+    private final transient ConcurrentMap<String, Uploads.Session> sessions;
+
+    /**
+     * Size of chunks by URNs of users, in bytes.
+     */
+    private final transient ConcurrentMap<String, AtomicLong> spooled;
+
+    /**
+     * Ctor.
+     * @param path Directory for chunks
+     * @param limit Maximum size of a document, in bytes
+     */
+    Uploads(final File path, final long limit) {
+        this(path, limit, limit);
+    }
+
+    /**
+     * Ctor.
+     * @param path Directory for chunks
+     * @param limit Maximum size of a document, in bytes
+     * @param bytes Maximum size of chunks of a user, in bytes
+     */
+    Uploads(final File path, final long limit, final long bytes) {
+        this.dir = path;
+        this.max = limit;
+        this.quota = bytes;
+        this.sessions = new ConcurrentHashMap<>(0);
+        this.spooled = new ConcurrentHashMap<>(0);
+    }
+
+    /**
+     * Open a new session.
+     * @param user URN of the user
+     * @param name Name of the document
+     * @return ID of the session
+     * @throws IOException If fails
+     */
+    public String open(final String user, final String name)
+        throws IOException {
+        this.expire();
+        final String id = UUID.randomUUID().toString();
+        final File path = new File(this.dir, id);
+        synchronized (this.sessions) {
+            int open = 0;
+            for (final Uploads.Session session : this.sessions.values()) {
+                if (session.user.equals(user)) {
+                    ++open;
+                }
+            }
+            if (open >= Uploads.SESSIONS) {
+                throw new HttpException(
+                    Uploads.TOO_MANY,
+                    String.format(
+                        "you have %d uploads open, commit or cancel them",
+                        open
+                    )
+                );
+            }
+            FileUtils.forceMkdir(path);
+            this.sessions.put(id, new Uploads.Session(user, name, path));
+        }
+        Logger.info(this, "upload %s of \"%s\" opened by %s", id, name, user);
+        return id;
+    }
+
+    /**
+     * Save a chunk, replacing the one with the same number, if any.
+     * @param user URN of the user
+     * @param id ID of the session
+     * @param number Number of the chunk, starting from one
+     * @param input Content of the chunk
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public void chunk(final String user, final String id, final int number,
+        final InputStream input) throws IOException {
+        if (number < 1 || number > Uploads.CHUNKS) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                String.format("chunk number must be in 1..%d", Uploads.CHUNKS)
+            );
+        }
+        this.expire();
+        final Uploads.Session session = this.session(user, id);
+        final AtomicLong usage = this.usage(user);
+        final File temp = File.createTempFile("chunk-", ".tmp", session.path);
+        try {
+            final long size = this.copy(
+                input, temp, this.max - session.others(number), usage
+            );
+            try {
+                usage.addAndGet(-session.put(number, temp, size, this.max));
+            } catch (final IOException ex) {
+                usage.addAndGet(-size);
+                throw ex;
+            }
+        } finally {
+            FileUtils.deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Write all chunks into the document and close the session.
+     * @param user URN of the user
+     * @param id ID of the session
+     * @param docs Documents of the user
+     * @return Name of the document
+     * @throws IOException If fails
+     */
+    public String commit(final String user, final String id, final Docs docs)
+        throws IOException {
+        this.expire();
+        final Uploads.Session session = this.session(user, id);
+        synchronized (session) {
+            if (session.closed) {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_CONFLICT,
+                    String.format("upload session %s is closed", id)
+                );
+            }
+            final SortedMap<Integer, Long> chunks = session.chunks;
+            if (chunks.isEmpty() || chunks.lastKey() != chunks.size()) {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_BAD_REQUEST,
+                    String.format(
+                        "%d chunk(s) received, some are missing",
+                        chunks.size()
+                    )
+                );
+            }
+            session.closed = true;
+            this.sessions.remove(id, session);
+            boolean written = false;
+            try (final InputStream input = session.stream()) {
+                docs.doc(session.name).write(input, session.others(0));
+                written = true;
+            } finally {
+                if (!written) {
+                    session.closed = false;
+                    this.sessions.put(id, session);
+                }
+            }
+        }
+        this.discard(session);
+        Logger.info(this, "upload %s of \"%s\" committed", id, session.name);
+        return session.name;
+    }
+
+    /**
+     * Close the session, forgetting all its chunks.
+     * @param user URN of the user
+     * @param id ID of the session
+     * @throws IOException If fails
+     */
+    public void cancel(final String user, final String id)
+        throws IOException {
+        final Uploads.Session session = this.session(user, id);
+        if (this.close(session, id)) {
+            this.discard(session);
+        }
+    }
+
+    /**
+     * Find the session of the user.
+     * @param user URN of the user
+     * @param id ID of the session
+     * @return Session
+     * @throws HttpException If there is no such session
+     */
+    private Uploads.Session session(final String user, final String id)
+        throws HttpException {
+        final Uploads.Session session = this.sessions.get(id);
+        if (session == null || !session.user.equals(user)) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_NOT_FOUND,
+                String.format("upload session %s not found", id)
+            );
+        }
+        session.touched = System.currentTimeMillis();
+        return session;
+    }
+
+    /**
+     * Forget sessions idle for too long.
+     */
+    private void expire() {
+        final long oldest = System.currentTimeMillis() - Uploads.IDLE;
+        for (final Map.Entry<String, Uploads.Session> entry
+            : this.sessions.entrySet()) {
+            final Uploads.Session session = entry.getValue();
+            if (session.touched < oldest
+                && this.close(session, entry.getKey())) {
+                this.discard(session);
+                Logger.info(this, "upload %s expired", entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Close the session, unless it's closed already.
+     * @param session Session
+     * @param id Its ID
+     * @return TRUE if it was open
+     */
+    private boolean close(final Uploads.Session session, final String id) {
+        synchronized (session) {
+            final boolean open = !session.closed;
+            session.closed = true;
+            this.sessions.remove(id, session);
+            return open;
+        }
+    }
+
+    /**
+     * Delete chunks of the closed session and free their space.
+     * @param session Session
+     */
+    private void discard(final Uploads.Session session) {
+        FileUtils.deleteQuietly(session.path);
+        this.usage(session.user).addAndGet(-session.others(0));
+    }
+
+    /**
+     * Size of chunks of the user.
+     * @param user URN of the user
+     * @return Bytes
+     */
+    private AtomicLong usage(final String user) {
+        this.spooled.putIfAbsent(user, new AtomicLong());
+        return this.spooled.get(user);
+    }
+
+    /**
+     * Copy the stream into the file, as long as it is not too big, taking
+     * its space from the user.
+     * @param input Input stream
+     * @param file File
+     * @param limit Maximum number of bytes
+     * @param usage Size of chunks of the user
+     * @return Number of bytes copied
+     * @throws IOException If fails or the stream is too big
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private long copy(final InputStream input, final File file,
+        final long limit, final AtomicLong usage) throws IOException {
+        final byte[] buffer = new byte[Uploads.BUFFER];
+        long total = 0L;
+        try (final OutputStream output =
+            Files.newOutputStream(file.toPath())) {
+            while (true) {
+                final int len = input.read(buffer);
+                if (len < 0) {
+                    break;
+                }
+                if (total + (long) len > limit) {
+                    throw Uploads.tooLarge();
+                }
+                if (usage.addAndGet((long) len) > this.quota) {
+                    usage.addAndGet((long) -len);
+                    throw new HttpException(
+                        HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+                        "your uploads take too much space, commit them first"
+                    );
+                }
+                total += (long) len;
+                output.write(buffer, 0, len);
+            }
+        } catch (final IOException ex) {
+            usage.addAndGet(-total);
+            throw ex;
+        }
+        return total;
+    }
+
+    /**
+     * Error about a document that is too large.
+     * @return Exception
+     */
+    private static HttpException tooLarge() {
+        return new HttpException(
+            HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+            "the document is too large"
+        );
+    }
+
+    /**
+     * Upload session.
+     */
+    private static final class Session {
+        /**
+         * URN of the user.
+         */
+        private final transient String user;
+        /**
+         * Name of the document.
+         */
+        private final transient String name;
+        /**
+         * Directory with chunks.
+         */
+        private final transient File path;
+        /**
+         * Sizes of chunks by their numbers.
+         */
+        private final transient SortedMap<Integer, Long> chunks;
+        /**
+         * When it was used last time.
+         */
+        private transient volatile long touched;
+        /**
+         * Is it closed, by a commit or otherwise.
+         */
+        private transient boolean closed;
+        /**
+         * Ctor.
+         * @param urn URN of the user
+         * @param doc Name of the document
+         * @param dir Directory with chunks
+         */
+        Session(final String urn, final String doc, final File dir) {
+            this.user = urn;
+            this.name = doc;
+            this.path = dir;
+            this.chunks = new TreeMap<>();
+            this.touched = System.currentTimeMillis();
+        }
+        /**
+         * Total size of all chunks except the given one.
+         * @param number Number of the chunk to exclude
+         * @return Bytes
+         */
+        public synchronized long others(final int number) {
+            long total = 0L;
+            for (final Map.Entry<Integer, Long> entry
+                : this.chunks.entrySet()) {
+                if (entry.getKey() != number) {
+                    total += entry.getValue();
+                }
+            }
+            return total;
+        }
+        /**
+         * Save the chunk.
+         * @param number Number of the chunk
+         * @param temp File with its content, will be moved
+         * @param size Size of the chunk
+         * @param max Maximum size of the document
+         * @return Size of the chunk replaced, zero if there was none
+         * @throws IOException If fails, the session is closed or
+         *  the document becomes too big
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        public synchronized long put(final int number, final File temp,
+            final long size, final long max) throws IOException {
+            if (this.closed) {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_CONFLICT,
+                    "the upload session is closed"
+                );
+            }
+            if (this.others(number) + size > max) {
+                throw Uploads.tooLarge();
+            }
+            Files.move(
+                temp.toPath(), this.file(number).toPath(),
+                StandardCopyOption.REPLACE_EXISTING
+            );
+            final Long before = this.chunks.put(number, size);
+            long replaced = 0L;
+            if (before != null) {
+                replaced = before;
+            }
+            return replaced;
+        }
+        /**
+         * All chunks, in order, as one stream.
+         * @return Stream
+         */
+        public InputStream stream() {
+            final Iterator<Integer> numbers = this.chunks.keySet().iterator();
+            return new SequenceInputStream(
+                new Enumeration<InputStream>() {
+                    @Override
+                    public boolean hasMoreElements() {
+                        return numbers.hasNext();
+                    }
+                    @Override
+                    public InputStream nextElement() {
+                        try {
+                            return new FileInputStream(
+                                Session.this.file(numbers.next())
+                            );
+                        } catch (final FileNotFoundException ex) {
+                            throw new NoSuchElementException(ex.getMessage());
+                        }
+                    }
+                }
+            );
+        }
+        /**
+         * File of the chunk.
+         * @param number Number of the chunk
+         * @return File
+         */
+        private File file(final int number) {
+            return new File(this.path, String.format("%05d", number));
+        }
+    }
+
+}
@@ -38,7 +38,28 @@
  </xsl:template>
  <xsl:template match="page" mode="body">
   <article>
+   <xsl:apply-templates select="stats"/>
    <xsl:apply-templates select="docs"/>
+   <xsl:if test="links/link[@rel='prev' or @rel='first' or @rel='next']">
+    <p>
+     <xsl:if test="links/link[@rel='prev']">
+      <a href="{links/link[@rel='prev']/@href}">
+       <xsl:text>&#8592; previous</xsl:text>
+      </a>
+     </xsl:if>
+     <xsl:if test="links/link[@rel='first']">
+      <a href="{links/link[@rel='first']/@href}">
+       <xsl:text>&#8676; first</xsl:text>
+      </a>
+     </xsl:if>
+     <xsl:if test="links/link[@rel='next']">
+      <xsl:text> </xsl:text>
+      <a href="{links/link[@rel='next']/@href}">
+       <xsl:text>next &#8594;</xsl:text>
+      </a>
+     </xsl:if>
+    </p>
+   </xsl:if>
   </article>
  </xsl:template>
  <xsl:template match="docs[doc]">
@@ -55,6 +76,12 @@
    </tbody>
   </table>
  </xsl:template>
+ <xsl:template match="stats[. != '']">
+  <pre>
+   <xsl:value-of select="."/>
+  </pre>
+ </xsl:template>
+ <xsl:template match="stats"/>
  <xsl:template match="doc">
   <tr>
    <td>
@@ -45,7 +45,31 @@
     <input id="fileinput" name="file" type="file"/>
     <button type="submit">Upload</button>
    </form>
+   <form method="get" action="{links/link[@rel='search']/@href}">
+    <input name="q" type="search" placeholder="part of a file name"/>
+    <button type="submit">Find</button>
+   </form>
    <xsl:apply-templates select="docs"/>
+   <xsl:if test="links/link[@rel='prev' or @rel='first' or @rel='next']">
+    <p>
+     <xsl:if test="links/link[@rel='prev']">
+      <a href="{links/link[@rel='prev']/@href}">
+       <xsl:text>&#8592; previous</xsl:text>
+      </a>
+     </xsl:if>
+     <xsl:if test="links/link[@rel='first']">
+      <a href="{links/link[@rel='first']/@href}">
+       <xsl:text>&#8676; first</xsl:text>
+      </a>
+     </xsl:if>
+     <xsl:if test="links/link[@rel='next']">
+      <xsl:text> </xsl:text>
+      <a href="{links/link[@rel='next']/@href}">
+       <xsl:text>next &#8594;</xsl:text>
+      </a>
+     </xsl:if>
+    </p>
+   </xsl:if>
   </article>
  </xsl:template>
  <xsl:template match="docs[doc]">
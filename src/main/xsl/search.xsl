@@ -0,0 +1,81 @@
+<?xml version="1.0"?>
+<!--
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ -->
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform" xmlns="http://www.w3.org/1999/xhtml" version="1.0">
+ <xsl:output method="html" doctype-system="about:legacy-compat" encoding="UTF-8" indent="yes"/>
+ <xsl:include href="/xsl/layout.xsl"/>
+ <xsl:template match="page" mode="head">
+  <title>
+   <xsl:text>search</xsl:text>
+  </title>
+ </xsl:template>
+ <xsl:template match="page" mode="body">
+  <article>
+   <form method="get" action="">
+    <input name="q" type="search" value="{query}" placeholder="part of a file name"/>
+    <button type="submit">Find</button>
+   </form>
+   <xsl:apply-templates select="docs"/>
+   <p>
+    <a href="{links/link[@rel='home']/@href}">
+     <xsl:text>&#8592; all documents</xsl:text>
+    </a>
+   </p>
+  </article>
+ </xsl:template>
+ <xsl:template match="docs[doc]">
+  <table>
+   <thead>
+    <tr>
+     <th>
+      <xsl:text>Files</xsl:text>
+     </th>
+    </tr>
+   </thead>
+   <tbody>
+    <xsl:apply-templates select="doc"/>
+   </tbody>
+  </table>
+ </xsl:template>
+ <xsl:template match="docs[not(doc) and ../query != '']">
+  <p>
+   <xsl:text>Nothing found.</xsl:text>
+  </p>
+ </xsl:template>
+ <xsl:template match="doc">
+  <tr>
+   <td>
+    <a href="{links/link[@rel='read']/@href}" style="display:block">
+     <xsl:value-of select="name"/>
+    </a>
+   </td>
+  </tr>
+ </xsl:template>
+</xsl:stylesheet>
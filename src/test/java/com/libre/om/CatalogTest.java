@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import com.jcabi.aspects.Tv;
+import java.util.Arrays;
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Catalog}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class CatalogTest {
+
+    /**
+     * Names of documents.
+     */
+    private static final List<String> NAMES = Arrays.asList(
+        "Reports/2015.pdf", "reports/2016.PDF", "photo.jpg", "re.txt"
+    );
+
+    /**
+     * Catalog can find names starting with a short query.
+     */
+    @Test
+    public void findsByPrefix() {
+        MatcherAssert.assertThat(
+            new Catalog(CatalogTest.NAMES).find("RE", Tv.TEN),
+            Matchers.contains("re.txt", "Reports/2015.pdf", "reports/2016.PDF")
+        );
+    }
+
+    /**
+     * Catalog can find names containing a longer query.
+     */
+    @Test
+    public void findsBySubstring() {
+        final Catalog catalog = new Catalog(CatalogTest.NAMES);
+        MatcherAssert.assertThat(
+            catalog.find(".pdf", Tv.TEN),
+            Matchers.contains("Reports/2015.pdf", "reports/2016.PDF")
+        );
+        MatcherAssert.assertThat(
+            catalog.find("016.pd", 1),
+            Matchers.contains("reports/2016.PDF")
+        );
+        MatcherAssert.assertThat(
+            catalog.find("xyz", Tv.TEN),
+            Matchers.emptyIterable()
+        );
+        MatcherAssert.assertThat(
+            catalog.find("", Tv.TEN),
+            Matchers.emptyIterable()
+        );
+    }
+
+    /**
+     * Catalog can follow names added and removed.
+     */
+    @Test
+    public void followsChanges() {
+        final Catalog catalog = new Catalog(CatalogTest.NAMES);
+        final int weight = catalog.weight();
+        catalog.add("photo.png");
+        catalog.remove("photo.jpg");
+        MatcherAssert.assertThat(
+            catalog.find("photo", Tv.TEN),
+            Matchers.contains("photo.png")
+        );
+        catalog.remove("photo.png");
+        catalog.add("photo.jpg");
+        MatcherAssert.assertThat(catalog.weight(), Matchers.equalTo(weight));
+    }
+
+    /**
+     * Catalog can find names in a list the same way.
+     */
+    @Test
+    public void findsInList() {
+        final Catalog catalog = new Catalog(CatalogTest.NAMES);
+        for (final String query : new String[] {"r", "rep", ".pdf", "o.j"}) {
+            MatcherAssert.assertThat(
+                Catalog.find(CatalogTest.NAMES, query, 2),
+                Matchers.equalTo(catalog.find(query, 2))
+            );
+        }
+    }
+
+}
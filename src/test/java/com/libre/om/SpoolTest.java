@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Spool}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class SpoolTest {
+
+    /**
+     * Spool can keep small content in memory.
+     * @throws IOException If fails
+     */
+    @Test
+    public void keepsSmallContentInMemory() throws IOException {
+        // @checkstyle MagicNumber (1 line)
+        try (final Spool.Content content = new Spool(8, 1).read(
+            IOUtils.toInputStream("small"), 100L
+        )) {
+            MatcherAssert.assertThat(
+                content.stream(),
+                Matchers.instanceOf(ByteArrayInputStream.class)
+            );
+            MatcherAssert.assertThat(
+                IOUtils.toString(content.stream()),
+                Matchers.equalTo("small")
+            );
+        }
+    }
+
+    /**
+     * Spool can spill large content to disk, up to the maximum.
+     * @throws IOException If fails
+     */
+    @Test
+    public void spillsLargeContentToDisk() throws IOException {
+        final InputStream input = IOUtils.toInputStream("large content");
+        // @checkstyle MagicNumber (1 line)
+        try (final Spool.Content content = new Spool(4, 1).read(input, 7L)) {
+            MatcherAssert.assertThat(
+                content.stream(),
+                Matchers.instanceOf(FileInputStream.class)
+            );
+            MatcherAssert.assertThat(
+                IOUtils.toString(content.stream()),
+                Matchers.equalTo("large c")
+            );
+        }
+        MatcherAssert.assertThat(
+            IOUtils.toString(input),
+            Matchers.equalTo("ontent")
+        );
+    }
+
+    /**
+     * Spool can spill content to disk when all buffers are busy and
+     * reuse them when they are released.
+     * @throws IOException If fails
+     */
+    @Test
+    public void spillsWhenBuffersAreBusy() throws IOException {
+        // @checkstyle MagicNumber (1 line)
+        final Spool spool = new Spool(8, 1);
+        final Spool.Content first = spool.read(
+            IOUtils.toInputStream("first"), 8L
+        );
+        try (final Spool.Content second = spool.read(
+            IOUtils.toInputStream("second"), 8L
+        )) {
+            MatcherAssert.assertThat(
+                IOUtils.toString(second.stream()),
+                Matchers.equalTo("second")
+            );
+            MatcherAssert.assertThat(
+                second.stream(),
+                Matchers.instanceOf(FileInputStream.class)
+            );
+        }
+        first.close();
+        try (final Spool.Content third = spool.read(
+            IOUtils.toInputStream("third"), 8L
+        )) {
+            MatcherAssert.assertThat(
+                third.stream(),
+                Matchers.instanceOf(ByteArrayInputStream.class)
+            );
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import com.jcabi.aspects.Tv;
+import com.libre.om.mock.MkBase;
+import java.io.ByteArrayInputStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link SrBase}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class SrBaseTest {
+
+    /**
+     * URN of the user.
+     */
+    private static final String URN = "urn:test:1";
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * SrBase can find documents written and deleted after its catalog
+     * was built.
+     * @throws Exception If fails
+     */
+    @Test
+    public void findsChangedDocuments() throws Exception {
+        final Base origin = new MkBase(this.folder.newFolder());
+        SrBaseTest.write(origin, "notes.txt");
+        final Base base = new SrBase(origin);
+        MatcherAssert.assertThat(
+            base.user(SrBaseTest.URN).docs().find("note", Tv.TEN),
+            Matchers.contains("notes.txt")
+        );
+        SrBaseTest.write(base, "old-notes.txt");
+        base.user(SrBaseTest.URN).docs().doc("notes.txt").delete();
+        SrBaseTest.write(origin, "unseen-notes.txt");
+        MatcherAssert.assertThat(
+            base.user(SrBaseTest.URN).docs().find("notes", Tv.TEN),
+            Matchers.contains("old-notes.txt")
+        );
+    }
+
+    /**
+     * SrBase can build the catalog again, after it grew much since it
+     * was built.
+     * @throws Exception If fails
+     */
+    @Test
+    public void rebuildsGrownCatalog() throws Exception {
+        final Base origin = new MkBase(this.folder.newFolder());
+        SrBaseTest.write(origin, "plan.txt");
+        final Base base = new SrBase(origin);
+        MatcherAssert.assertThat(
+            base.user(SrBaseTest.URN).docs().find("plan", Tv.TEN),
+            Matchers.contains("plan.txt")
+        );
+        SrBaseTest.write(origin, "unseen-plan.txt");
+        for (int idx = 0; idx < Tv.TWENTY; ++idx) {
+            SrBaseTest.write(base, String.format("report-%02d.txt", idx));
+        }
+        MatcherAssert.assertThat(
+            base.user(SrBaseTest.URN).docs().find("plan", Tv.TEN),
+            Matchers.contains("plan.txt", "unseen-plan.txt")
+        );
+    }
+
+    /**
+     * Write a small document.
+     * @param base Base
+     * @param name Name of the document
+     * @throws Exception If fails
+     */
+    private static void write(final Base base, final String name)
+        throws Exception {
+        base.user(SrBaseTest.URN).docs().doc(name).write(
+            new ByteArrayInputStream(new byte[] {1}), 1L
+        );
+    }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import com.jcabi.aspects.Tv;
+import com.libre.om.mock.MkBase;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/**
+ * Tests for {@link WbBase}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class WbBaseTest {
+
+    /**
+     * URN of the user.
+     */
+    private static final String URN = "urn:test:1";
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * WbBase can flush staged documents to the original base.
+     * @throws Exception If fails
+     */
+    @Test
+    public void flushesDocuments() throws Exception {
+        final Base origin = new MkBase(this.folder.newFolder());
+        final File dir = this.folder.newFolder();
+        final Doc doc = new WbBase(origin, dir).user(WbBaseTest.URN)
+            .docs().doc("a.txt");
+        doc.write(IOUtils.toInputStream("flushed"), -1L);
+        final ByteArrayOutputStream staged = new ByteArrayOutputStream();
+        doc.read(staged);
+        MatcherAssert.assertThat(
+            new String(staged.toByteArray()),
+            Matchers.equalTo("flushed")
+        );
+        WbBaseTest.await(origin, "a.txt");
+        final ByteArrayOutputStream flushed = new ByteArrayOutputStream();
+        origin.user(WbBaseTest.URN).docs().doc("a.txt").read(flushed);
+        MatcherAssert.assertThat(
+            new String(flushed.toByteArray()),
+            Matchers.equalTo("flushed")
+        );
+    }
+
+    /**
+     * WbBase can flush documents staged before a restart.
+     * @throws Exception If fails
+     */
+    @Test
+    public void flushesDocumentsAfterRestart() throws Exception {
+        final File dir = this.folder.newFolder();
+        final Doc broken = Mockito.mock(Doc.class);
+        Mockito.doThrow(new IOException("S3 is down")).when(broken)
+            .write(Mockito.any(InputStream.class), Mockito.anyLong());
+        final Docs docs = Mockito.mock(Docs.class);
+        Mockito.when(docs.doc(Mockito.anyString())).thenReturn(broken);
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.docs()).thenReturn(docs);
+        Mockito.when(user.urn()).thenReturn(WbBaseTest.URN);
+        final Base down = Mockito.mock(Base.class);
+        Mockito.when(down.user(Mockito.anyString())).thenReturn(user);
+        new WbBase(down, dir, 1, WbBase.MAX).user(WbBaseTest.URN).docs()
+            .doc("b.txt").write(IOUtils.toInputStream("survived"), -1L);
+        final Base origin = new MkBase(this.folder.newFolder());
+        new WbBase(origin, dir);
+        WbBaseTest.await(origin, "b.txt");
+        final ByteArrayOutputStream flushed = new ByteArrayOutputStream();
+        origin.user(WbBaseTest.URN).docs().doc("b.txt").read(flushed);
+        MatcherAssert.assertThat(
+            new String(flushed.toByteArray()),
+            Matchers.equalTo("survived")
+        );
+    }
+
+    /**
+     * Wait for the document to appear in the base.
+     * @param base Base
+     * @param name Name of the document
+     * @throws Exception If fails
+     */
+    private static void await(final Base base, final String name)
+        throws Exception {
+        final Doc doc = base.user(WbBaseTest.URN).docs().doc(name);
+        for (int attempt = 0; attempt < Tv.HUNDRED; ++attempt) {
+            if (doc.exists()) {
+                break;
+            }
+            // @checkstyle MagicNumber (1 line)
+            Thread.sleep(50L);
+        }
+        MatcherAssert.assertThat(doc.exists(), Matchers.is(true));
+    }
+
+}
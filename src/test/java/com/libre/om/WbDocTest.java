@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om;
+
+import com.jcabi.aspects.Tv;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests for {@link WbDoc}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class WbDocTest {
+
+    /**
+     * URN of the user.
+     */
+    private static final String URN = "urn:test:2";
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * WbDoc can show the staged version until it is flushed.
+     * @throws Exception If fails
+     */
+    @Test
+    public void showsStagedVersion() throws Exception {
+        final CountDownLatch flush = new CountDownLatch(1);
+        final Doc origin = Mockito.mock(Doc.class);
+        Mockito.doAnswer(
+            new Answer<Void>() {
+                @Override
+                public Void answer(final InvocationOnMock invocation)
+                    throws InterruptedException {
+                    flush.await(1L, TimeUnit.MINUTES);
+                    return null;
+                }
+            }
+        ).when(origin).write(Mockito.any(InputStream.class), Mockito.anyLong());
+        final Docs docs = new WbBase(
+            WbDocTest.base(origin), this.folder.newFolder()
+        ).user(WbDocTest.URN).docs();
+        docs.doc("c.txt").write(IOUtils.toInputStream("hello"), -1L);
+        final Doc doc = docs.doc("c.txt");
+        final ByteArrayOutputStream range = new ByteArrayOutputStream();
+        // @checkstyle MagicNumber (1 line)
+        doc.read(range, 1L, 3L);
+        MatcherAssert.assertThat(
+            new String(range.toByteArray()),
+            Matchers.equalTo("ell")
+        );
+        MatcherAssert.assertThat(docs.names(), Matchers.contains("c.txt"));
+        MatcherAssert.assertThat(doc.exists(), Matchers.is(true));
+        // @checkstyle MagicNumber (1 line)
+        MatcherAssert.assertThat(doc.attributes().size(), Matchers.is(5L));
+        MatcherAssert.assertThat(
+            doc.attributes().etag(),
+            Matchers.equalTo(
+                // @checkstyle LineLength (1 line)
+                "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824"
+            )
+        );
+        flush.countDown();
+        // @checkstyle MagicNumber (1 line)
+        Mockito.verify(origin, Mockito.timeout(10_000)).write(
+            Mockito.any(InputStream.class), Mockito.eq(5L)
+        );
+    }
+
+    /**
+     * WbDoc can delete a document that is only staged.
+     * @throws Exception If fails
+     */
+    @Test
+    public void deletesStagedDocument() throws Exception {
+        final Doc origin = Mockito.mock(Doc.class);
+        Mockito.doThrow(new IOException("unavailable")).when(origin)
+            .write(Mockito.any(InputStream.class), Mockito.anyLong());
+        final Doc doc = new WbBase(
+            WbDocTest.base(origin), this.folder.newFolder()
+        ).user(WbDocTest.URN).docs().doc("d.txt");
+        doc.write(IOUtils.toInputStream("gone"), -1L);
+        doc.delete();
+        MatcherAssert.assertThat(doc.exists(), Matchers.is(false));
+        Mockito.verify(origin, Mockito.never()).delete();
+    }
+
+    /**
+     * WbDoc can refuse bodies which are empty or don't fit into staging.
+     * @throws Exception If fails
+     */
+    @Test
+    public void refusesBodiesBeforeStaging() throws Exception {
+        final File dir = this.folder.newFolder();
+        final Doc doc = new WbBase(
+            WbDocTest.base(Mockito.mock(Doc.class)), dir, 4L
+        ).user(WbDocTest.URN).docs().doc("e.txt");
+        for (final String body : new String[] {"", "too large"}) {
+            try {
+                doc.write(IOUtils.toInputStream(body), -1L);
+                MatcherAssert.assertThat(body, Matchers.nullValue());
+            } catch (final IOException ex) {
+                MatcherAssert.assertThat(
+                    ex.getMessage(), Matchers.notNullValue()
+                );
+            }
+        }
+        MatcherAssert.assertThat(doc.exists(), Matchers.is(false));
+        MatcherAssert.assertThat(dir.list(), Matchers.emptyArray());
+    }
+
+    /**
+     * WbDoc can keep the staged version while its flush fails.
+     * @throws Exception If fails
+     */
+    @Test
+    public void keepsVersionFailingToFlush() throws Exception {
+        final Doc origin = Mockito.mock(Doc.class);
+        Mockito.doThrow(new IOException("unreachable")).when(origin)
+            .write(Mockito.any(InputStream.class), Mockito.anyLong());
+        final Doc doc = new WbBase(
+            WbDocTest.base(origin), this.folder.newFolder()
+        ).user(WbDocTest.URN).docs().doc("f.txt");
+        doc.write(IOUtils.toInputStream("kept"), -1L);
+        // @checkstyle MagicNumber (1 line)
+        Mockito.verify(origin, Mockito.timeout(10_000).times(2)).write(
+            Mockito.any(InputStream.class), Mockito.anyLong()
+        );
+        MatcherAssert.assertThat(doc.exists(), Matchers.is(true));
+    }
+
+    /**
+     * WbDoc can give up the staged version when its flush fails for good.
+     * @throws Exception If fails
+     */
+    @Test
+    public void givesUpVersionFailingForGood() throws Exception {
+        final Doc origin = Mockito.mock(Doc.class);
+        Mockito.doThrow(new IllegalStateException("broken")).when(origin)
+            .write(Mockito.any(InputStream.class), Mockito.anyLong());
+        final File dir = this.folder.newFolder();
+        final Doc doc = new WbBase(WbDocTest.base(origin), dir)
+            .user(WbDocTest.URN).docs().doc("g.txt");
+        doc.write(IOUtils.toInputStream("doomed"), -1L);
+        // @checkstyle MagicNumber (1 line)
+        Mockito.verify(origin, Mockito.timeout(10_000).times(Tv.THREE))
+            .write(Mockito.any(InputStream.class), Mockito.anyLong());
+        final File dead = new File(dir, "dead");
+        // @checkstyle MagicNumber (1 line)
+        for (int idx = 0; idx < 100 && WbDocTest.count(dead) < 2; ++idx) {
+            TimeUnit.MILLISECONDS.sleep((long) Tv.FIFTY);
+        }
+        MatcherAssert.assertThat(WbDocTest.count(dead), Matchers.is(2));
+        MatcherAssert.assertThat(doc.exists(), Matchers.is(false));
+    }
+
+    /**
+     * Number of files in the directory.
+     * @param dir The directory
+     * @return Number of files, zero if it's absent
+     */
+    private static int count(final File dir) {
+        final String[] names = dir.list();
+        int count = 0;
+        if (names != null) {
+            count = names.length;
+        }
+        return count;
+    }
+
+    /**
+     * Base with a single document.
+     * @param doc The document
+     * @return Base
+     * @throws IOException If fails
+     */
+    private static Base base(final Doc doc) throws IOException {
+        final Docs docs = Mockito.mock(Docs.class);
+        Mockito.when(docs.doc(Mockito.anyString())).thenReturn(doc);
+        Mockito.when(docs.names()).thenReturn(Collections.<String>emptyList());
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.docs()).thenReturn(docs);
+        Mockito.when(user.urn()).thenReturn(WbDocTest.URN);
+        final Base base = Mockito.mock(Base.class);
+        Mockito.when(base.user(Mockito.anyString())).thenReturn(user);
+        return base;
+    }
+
+}
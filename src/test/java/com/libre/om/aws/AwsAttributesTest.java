@@ -91,6 +91,70 @@ public final class AwsAttributesTest {
         );
     }
 
+    /**
+     * AwsAttributes can return S3 entity tag.
+     * @throws IOException If unsuccessful.
+     */
+    @Test
+    public void returnsEntityTag() throws IOException {
+        final String etag = "d41d8cd98f00b204e9800998ecf8427e";
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setHeader(Headers.ETAG, etag);
+        MatcherAssert.assertThat(
+            new AwsAttributes(meta).etag(),
+            Matchers.is(etag)
+        );
+    }
+
+    /**
+     * AwsAttributes can return size and tag of the body of a document.
+     * @throws IOException If unsuccessful.
+     */
+    @Test
+    public void returnsSizeAndTagOfBody() throws IOException {
+        final String hash = "9f86d081884c7d659a2feaa0c55ad015";
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentLength(0L);
+        meta.setHeader(Headers.ETAG, "d41d8cd98f00b204e9800998ecf8427e");
+        meta.addUserMetadata(Blobs.HEADER, hash);
+        meta.addUserMetadata(Blobs.SIZE, "4");
+        final AwsAttributes attrs = new AwsAttributes(meta);
+        // @checkstyle MagicNumberCheck (1 line)
+        MatcherAssert.assertThat(attrs.size(), Matchers.is(4L));
+        MatcherAssert.assertThat(attrs.etag(), Matchers.is(hash));
+    }
+
+    /**
+     * AwsAttributes can return recorded checksums of the content.
+     * @throws IOException If unsuccessful.
+     */
+    @Test
+    public void returnsChecksums() throws IOException {
+        final String md5 = "5d41402abc4b2a76b9719d911017c592";
+        final ObjectMetadata plain = new ObjectMetadata();
+        plain.setHeader(Headers.ETAG, md5);
+        MatcherAssert.assertThat(
+            new AwsAttributes(plain).checksum("MD5"),
+            Matchers.is(md5)
+        );
+        MatcherAssert.assertThat(
+            new AwsAttributes(plain).checksum("SHA-256"),
+            Matchers.isEmptyString()
+        );
+        final ObjectMetadata pointer = new ObjectMetadata();
+        pointer.setHeader(Headers.ETAG, "d41d8cd98f00b204e9800998ecf8427e");
+        pointer.addUserMetadata(Blobs.HEADER, "2cf24dba5fb0a30e");
+        pointer.addUserMetadata(Blobs.MD5, md5);
+        MatcherAssert.assertThat(
+            new AwsAttributes(pointer).checksum("MD5"),
+            Matchers.is(md5)
+        );
+        MatcherAssert.assertThat(
+            new AwsAttributes(pointer).checksum("SHA-256"),
+            Matchers.is("2cf24dba5fb0a30e")
+        );
+    }
+
     /**
      * AwsAttributes can provide visibility attribute change it.
      * @throws Exception in case of error.
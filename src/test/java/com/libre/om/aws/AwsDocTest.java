@@ -29,22 +29,33 @@
  */
 package com.libre.om.aws;
 
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.collect.Lists;
+import com.jcabi.aspects.Tv;
 import com.jcabi.manifests.Manifests;
 import com.jcabi.s3.Bucket;
 import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
 import com.jcabi.s3.mock.MkBucket;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import nl.jqno.equalsverifier.Warning;
+import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -68,7 +79,9 @@ public final class AwsDocTest {
         final String label = "document-label";
         final Bucket bucket = this.mockBucket(label);
         MatcherAssert.assertThat(
-            new AwsDoc(bucket, "user-urn", "non-existent-document").exists(),
+            new AwsDoc(
+                bucket, new Redirects(), "user-urn", "non-existent-document"
+            ).exists(),
             Matchers.is(false)
         );
     }
@@ -123,6 +136,128 @@ public final class AwsDocTest {
         );
     }
 
+    /**
+     * AwsDoc can read a range with S3 ranged GET.
+     * @throws IOException If unsuccessful.
+     */
+    @Test
+    public void readsRange() throws IOException {
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        final Region region = Mockito.mock(Region.class);
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        Mockito.when(bucket.ocket(Mockito.anyString())).thenReturn(ocket);
+        Mockito.when(bucket.name()).thenReturn("bucket");
+        Mockito.when(bucket.region()).thenReturn(region);
+        Mockito.when(region.aws()).thenReturn(aws);
+        Mockito.when(ocket.bucket()).thenReturn(bucket);
+        Mockito.when(ocket.key()).thenReturn("urn/ranged");
+        Mockito.when(ocket.meta()).thenReturn(new ObjectMetadata());
+        final S3Object object = new S3Object();
+        object.setObjectContent(new ByteArrayInputStream("345".getBytes()));
+        Mockito.when(aws.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenReturn(object);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // @checkstyle MagicNumberCheck (1 line)
+        new AwsDoc(bucket, new Redirects(), "urn", "ranged")
+            .read(out, 3L, 3L);
+        MatcherAssert.assertThat(
+            new String(out.toByteArray()),
+            Matchers.equalTo("345")
+        );
+        final ArgumentCaptor<GetObjectRequest> request =
+            ArgumentCaptor.forClass(GetObjectRequest.class);
+        Mockito.verify(aws).getObject(request.capture());
+        MatcherAssert.assertThat(
+            request.getValue().getRange(),
+            // @checkstyle MagicNumberCheck (1 line)
+            Matchers.equalTo(new long[] {3L, 5L})
+        );
+    }
+
+    /**
+     * AwsDoc can read a shared document from its owner, resolving
+     * the redirect only once.
+     * @throws IOException If unsuccessful.
+     */
+    @Test
+    public void readsSharedDocument() throws IOException {
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        final Ocket stub = Mockito.mock(Ocket.class);
+        final Ocket owner = Mockito.mock(Ocket.class);
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.addUserMetadata(AwsDoc.HEADER, "owner/shared");
+        Mockito.when(stub.key()).thenReturn("friend/shared");
+        Mockito.when(stub.meta()).thenReturn(meta);
+        Mockito.when(bucket.ocket("friend/shared")).thenReturn(stub);
+        Mockito.when(bucket.ocket("owner/shared")).thenReturn(owner);
+        Mockito.when(owner.meta()).thenReturn(new ObjectMetadata());
+        final Redirects redirects = new Redirects();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AwsDoc(bucket, redirects, "friend", "shared").read(out);
+        new AwsDoc(bucket, redirects, "friend", "shared").read(out);
+        Mockito.verify(owner, Mockito.times(2)).read(out);
+        Mockito.verify(stub, Mockito.times(1)).meta();
+        Mockito.verify(stub, Mockito.never())
+            .read(Mockito.any(OutputStream.class));
+    }
+
+    /**
+     * AwsDoc can compress a text document and read it back.
+     * @throws IOException If unsuccessful.
+     */
+    @Test
+    public void compressesTextDocument() throws IOException {
+        final AwsDoc doc = new AwsDoc(
+            this.mockBucket("compresses"), new Redirects(), "u", "b.json"
+        );
+        final String text = StringUtils.repeat("{\"a\":1}", Tv.HUNDRED);
+        doc.write(new ByteArrayInputStream(text.getBytes()), -1L);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.read(out);
+        MatcherAssert.assertThat(
+            new String(out.toByteArray()), Matchers.equalTo(text)
+        );
+        MatcherAssert.assertThat(
+            doc.attributes().size(), Matchers.equalTo((long) text.length())
+        );
+        MatcherAssert.assertThat(
+            doc.attributes().encoding(), Matchers.equalTo("deflate")
+        );
+        final ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        doc.encoded(stored);
+        MatcherAssert.assertThat(
+            stored.size(), Matchers.lessThan(text.length())
+        );
+    }
+
+    /**
+     * AwsDoc can release the old body when it's written again.
+     * @throws IOException If unsuccessful.
+     */
+    @Test
+    public void releasesOldBody() throws IOException {
+        final Bucket bucket = this.mockBucket("rewrites");
+        final AwsDoc doc = new AwsDoc(bucket, new Redirects(), "u", "a.txt");
+        doc.write(new ByteArrayInputStream("old".getBytes()), 3L);
+        doc.write(new ByteArrayInputStream("new".getBytes()), 3L);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.read(out);
+        MatcherAssert.assertThat(
+            new String(out.toByteArray()),
+            Matchers.equalTo("new")
+        );
+        MatcherAssert.assertThat(
+            Lists.newArrayList(bucket.list("blobs/")),
+            Matchers.hasSize(1)
+        );
+        doc.delete();
+        MatcherAssert.assertThat(
+            Lists.newArrayList(bucket.list("blobs/")),
+            Matchers.empty()
+        );
+    }
+
     /**
      * AwsDoc can write from an InputStream.
      * @throws IOException If unsuccessful.
@@ -163,19 +298,17 @@ public final class AwsDocTest {
         final Bucket bucket = Mockito.mock(Bucket.class);
         final Ocket ocket = Mockito.mock(Ocket.class);
         Mockito.when(bucket.ocket(Mockito.anyString())).thenReturn(ocket);
-        final AtomicBoolean found = new AtomicBoolean(false);
+        Mockito.when(bucket.list(Mockito.anyString()))
+            .thenReturn(Collections.<String>emptyList());
+        final Collection<Long> lengths = new LinkedList<>();
         Mockito.doAnswer(
             new Answer<Void>() {
                 @Override
                 public Void answer(final InvocationOnMock invocation) {
-                    final ObjectMetadata meta = invocation.getArgumentAt(
-                        1, ObjectMetadata.class
+                    lengths.add(
+                        invocation.getArgumentAt(1, ObjectMetadata.class)
+                            .getContentLength()
                     );
-                    MatcherAssert.assertThat(
-                        meta.getContentLength(),
-                        Matchers.equalTo((long) data.getBytes().length)
-                    );
-                    found.set(true);
                     return null;
                 }
             }
@@ -184,11 +317,14 @@ public final class AwsDocTest {
                 Mockito.any(InputStream.class),
                 Mockito.any(ObjectMetadata.class)
             );
-        new AwsDoc(bucket, "", "name").write(
+        new AwsDoc(bucket, new Redirects(), "", "name").write(
             new ByteArrayInputStream(data.getBytes()),
             data.getBytes().length
         );
-        MatcherAssert.assertThat(found.get(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            lengths,
+            Matchers.hasItem((long) data.getBytes().length)
+        );
     }
 
     /**
@@ -197,10 +333,10 @@ public final class AwsDocTest {
      * @throws IOException In case of failure.
      * @return The mock bucket.
      */
-    private MkBucket mockBucket(final String name) throws IOException {
+    private Bucket mockBucket(final String name) throws IOException {
         final TemporaryFolder folder = new TemporaryFolder();
         folder.create();
-        return new MkBucket(folder.getRoot(), name);
+        return new FkBucket(new MkBucket(folder.getRoot(), name));
     }
 
     /**
@@ -213,7 +349,7 @@ public final class AwsDocTest {
     private AwsDoc createDoc(final String name, final String contents)
         throws IOException {
         final Bucket bucket = this.mockBucket(name);
-        final AwsDoc doc = new AwsDoc(bucket, "", name);
+        final AwsDoc doc = new AwsDoc(bucket, new Redirects(), "", name);
         doc.write(
             new ByteArrayInputStream(contents.getBytes()),
             contents.getBytes().length
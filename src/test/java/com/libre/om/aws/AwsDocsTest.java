@@ -29,12 +29,19 @@
  */
 package com.libre.om.aws;
 
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.jcabi.aspects.Tv;
 import com.jcabi.s3.Bucket;
 import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
 import com.jcabi.s3.mock.MkBucket;
+import com.libre.om.Doc;
 import com.libre.om.Docs;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -42,6 +49,7 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import nl.jqno.equalsverifier.Warning;
 import org.hamcrest.MatcherAssert;
@@ -50,6 +58,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
@@ -86,7 +95,7 @@ public final class AwsDocsTest {
     public void obtainsDoc() throws Exception {
         final Bucket bucket = this.mockBucket("any-name", "any-file");
         MatcherAssert.assertThat(
-            new AwsDocs(bucket, "urn2").doc("doc1"),
+            new AwsDocs(bucket, new Redirects(), "urn2").doc("doc1"),
             Matchers.notNullValue()
         );
     }
@@ -107,17 +116,88 @@ public final class AwsDocsTest {
         final Bucket bucket = Mockito.mock(Bucket.class);
         final Ocket ocket = Mockito.mock(Ocket.class);
         Mockito.doReturn(ocket).when(bucket).ocket(Mockito.anyString());
-        Mockito.doReturn(Collections.singleton("test"))
+        Mockito.doReturn(Collections.singleton("urn3/test"))
             .when(bucket).list(Mockito.anyString());
         final ObjectMetadata meta = new ObjectMetadata();
         meta.setContentLength(size);
         Mockito.doReturn(meta).when(ocket).meta();
         MatcherAssert.assertThat(
-            new AwsDocs(bucket, "urn3").size(),
+            new AwsDocs(bucket, new Redirects(), "urn3").size(),
             Matchers.is(size)
         );
     }
 
+    /**
+     * AwsDocs can list a page of names after a marker.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void listsPageOfNames() throws Exception {
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        final Region region = Mockito.mock(Region.class);
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        Mockito.when(bucket.name()).thenReturn("paged");
+        Mockito.when(bucket.region()).thenReturn(region);
+        Mockito.when(region.aws()).thenReturn(aws);
+        final ObjectListing first = new ObjectListing();
+        first.getObjectSummaries().add(AwsDocsTest.summary("urn:p/b.txt"));
+        first.setTruncated(true);
+        final ObjectListing second = new ObjectListing();
+        second.getObjectSummaries().add(AwsDocsTest.summary("urn:p/c.txt"));
+        Mockito.when(aws.listObjects(Mockito.any(ListObjectsRequest.class)))
+            .thenReturn(first, second);
+        MatcherAssert.assertThat(
+            new AwsDocs(bucket, new Redirects(), "urn:p").names("a.txt", 2),
+            Matchers.contains("b.txt", "c.txt")
+        );
+        final ArgumentCaptor<ListObjectsRequest> request =
+            ArgumentCaptor.forClass(ListObjectsRequest.class);
+        Mockito.verify(aws, Mockito.times(2)).listObjects(request.capture());
+        MatcherAssert.assertThat(
+            request.getAllValues().get(0).getMarker(),
+            Matchers.equalTo("urn:p/a.txt")
+        );
+        MatcherAssert.assertThat(
+            request.getAllValues().get(1).getMarker(),
+            Matchers.equalTo("urn:p/b.txt")
+        );
+        MatcherAssert.assertThat(
+            request.getAllValues().get(1).getMaxKeys(),
+            Matchers.equalTo(1)
+        );
+    }
+
+    /**
+     * AwsDocs can list a shared document with attributes of its owner.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void snapshotsSharedDocument() throws Exception {
+        final Bucket bucket = new FkBucket(
+            new MkBucket(this.folder.newFolder(), "snapshots")
+        );
+        final Redirects redirects = new Redirects();
+        new AwsDoc(bucket, redirects, "urn:o", "s.txt").write(
+            new ByteArrayInputStream("hello".getBytes()), -1L
+        );
+        final ObjectMetadata stub = new ObjectMetadata();
+        stub.addUserMetadata(AwsDoc.HEADER, "urn:o/s.txt");
+        bucket.ocket("urn:f/s.txt").write(
+            new ByteArrayInputStream(new byte[0]), stub
+        );
+        final Docs docs = new AwsDocs(bucket, redirects, "urn:f");
+        final Map<String, Doc> snapshot = docs.snapshot("", Tv.TEN);
+        MatcherAssert.assertThat(
+            snapshot.keySet(), Matchers.contains("s.txt")
+        );
+        MatcherAssert.assertThat(
+            snapshot.get("s.txt").attributes().size(),
+            // @checkstyle MagicNumberCheck (1 line)
+            Matchers.equalTo(5L)
+        );
+        MatcherAssert.assertThat(docs.size(), Matchers.equalTo(0L));
+    }
+
     /**
      * AwsDocs conforms to equals and hashCode contract.
      */
@@ -142,7 +222,8 @@ public final class AwsDocsTest {
             // @checkstyle MultipleStringLiteralsCheck (1 line)
             Paths.get("sub", "file").toString()
         );
-        final List<String> names = new AwsDocs(bucket, label).names();
+        final List<String> names =
+            new AwsDocs(bucket, new Redirects(), label).names();
         Collections.sort(names);
         MatcherAssert.assertThat(names, Matchers.equalTo(expected));
     }
@@ -156,7 +237,7 @@ public final class AwsDocsTest {
         final String label = "finds";
         final String exists = "finds-exists";
         final Bucket bucket = this.mockBucket(label, exists);
-        final Docs docs = new AwsDocs(bucket, label);
+        final Docs docs = new AwsDocs(bucket, new Redirects(), label);
         MatcherAssert.assertThat(
             docs.doc(exists).exists(),
             Matchers.equalTo(true)
@@ -167,6 +248,17 @@ public final class AwsDocsTest {
         );
     }
 
+    /**
+     * Summary of an object in a listing.
+     * @param key Key of the object
+     * @return Summary
+     */
+    private static S3ObjectSummary summary(final String key) {
+        final S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setKey(key);
+        return summary;
+    }
+
     /**
      * Builds a mock Bucket.
      * @param name Bucket name.
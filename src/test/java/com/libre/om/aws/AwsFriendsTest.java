@@ -73,7 +73,7 @@ public final class AwsFriendsTest {
     @Ignore
     public void ejectsLastFriend() throws IOException {
         final AwsFriends friends = new AwsFriends(
-            Mockito.mock(Bucket.class), "user", "doc"
+            Mockito.mock(Bucket.class), new Redirects(), "user", "doc"
         );
         final String friend = "friend";
         friends.add(friend);
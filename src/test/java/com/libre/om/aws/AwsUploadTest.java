@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Tests for {@link AwsUpload}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class AwsUploadTest {
+
+    /**
+     * AwsUpload can upload a large stream in parts.
+     * @throws Exception If fails
+     */
+    @Test
+    public void uploadsInParts() throws Exception {
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        final Ocket ocket = AwsUploadTest.ocket(aws);
+        Mockito.when(aws.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenReturn(new UploadPartResult());
+        // @checkstyle MagicNumber (1 line)
+        final byte[] content = new byte[12 << 20];
+        MatcherAssert.assertThat(
+            new AwsUpload(ocket).write(
+                new ByteArrayInputStream(content), new ObjectMetadata()
+            ),
+            Matchers.equalTo((long) content.length)
+        );
+        final ArgumentCaptor<UploadPartRequest> parts =
+            ArgumentCaptor.forClass(UploadPartRequest.class);
+        // @checkstyle MagicNumber (1 line)
+        Mockito.verify(aws, Mockito.times(3)).uploadPart(parts.capture());
+        long last = 0L;
+        for (final UploadPartRequest part : parts.getAllValues()) {
+            // @checkstyle MagicNumber (1 line)
+            if (part.getPartNumber() == 3) {
+                last = part.getPartSize();
+            }
+        }
+        // @checkstyle MagicNumber (1 line)
+        MatcherAssert.assertThat(last, Matchers.equalTo(2L << 20));
+        Mockito.verify(aws).completeMultipartUpload(
+            Mockito.any(CompleteMultipartUploadRequest.class)
+        );
+        Mockito.verify(ocket, Mockito.never()).write(
+            Mockito.any(InputStream.class), Mockito.any(ObjectMetadata.class)
+        );
+    }
+
+    /**
+     * AwsUpload can write a small stream as a usual object.
+     * @throws Exception If fails
+     */
+    @Test
+    public void writesSmallStreamAtOnce() throws Exception {
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        final Ocket ocket = AwsUploadTest.ocket(aws);
+        final ObjectMetadata meta = new ObjectMetadata();
+        new AwsUpload(ocket).write(
+            new ByteArrayInputStream("small".getBytes()), meta
+        );
+        Mockito.verify(ocket)
+            .write(Mockito.any(InputStream.class), Mockito.eq(meta));
+        MatcherAssert.assertThat(
+            meta.getContentLength(),
+            // @checkstyle MagicNumber (1 line)
+            Matchers.equalTo(5L)
+        );
+        Mockito.verifyZeroInteractions(aws);
+    }
+
+    /**
+     * AwsUpload can retry a failed part on its own.
+     * @throws Exception If fails
+     */
+    @Test
+    public void retriesFailedPart() throws Exception {
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        Mockito.when(aws.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenThrow(new AmazonClientException("timeout"))
+            .thenReturn(new UploadPartResult());
+        new AwsUpload(AwsUploadTest.ocket(aws)).write(
+            // @checkstyle MagicNumber (1 line)
+            new ByteArrayInputStream(new byte[6 << 20]),
+            new ObjectMetadata()
+        );
+        // @checkstyle MagicNumber (1 line)
+        Mockito.verify(aws, Mockito.times(3))
+            .uploadPart(Mockito.any(UploadPartRequest.class));
+        Mockito.verify(aws).completeMultipartUpload(
+            Mockito.any(CompleteMultipartUploadRequest.class)
+        );
+    }
+
+    /**
+     * AwsUpload can abort the upload if it fails.
+     * @throws Exception If fails
+     */
+    @Test
+    public void abortsFailedUpload() throws Exception {
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        Mockito.when(aws.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenThrow(new AmazonClientException("network is down"));
+        IOException failure = null;
+        try {
+            new AwsUpload(AwsUploadTest.ocket(aws)).write(
+                // @checkstyle MagicNumber (1 line)
+                new ByteArrayInputStream(new byte[6 << 20]),
+                new ObjectMetadata()
+            );
+        } catch (final IOException ex) {
+            failure = ex;
+        }
+        MatcherAssert.assertThat(
+            failure.getCause(),
+            Matchers.instanceOf(AmazonClientException.class)
+        );
+        Mockito.verify(aws).abortMultipartUpload(
+            Mockito.any(AbortMultipartUploadRequest.class)
+        );
+    }
+
+    /**
+     * AwsUpload can report the failure of the upload, even if it can't
+     * abort it.
+     * @throws Exception If fails
+     */
+    @Test
+    public void keepsFailureWhenAbortFails() throws Exception {
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        Mockito.when(aws.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenThrow(new AmazonClientException("part is lost"));
+        Mockito.doThrow(new AmazonClientException("abort is lost"))
+            .when(aws)
+            .abortMultipartUpload(
+                Mockito.any(AbortMultipartUploadRequest.class)
+            );
+        IOException failure = null;
+        try {
+            new AwsUpload(AwsUploadTest.ocket(aws)).write(
+                // @checkstyle MagicNumber (1 line)
+                new ByteArrayInputStream(new byte[6 << 20]),
+                new ObjectMetadata()
+            );
+        } catch (final IOException ex) {
+            failure = ex;
+        }
+        MatcherAssert.assertThat(
+            failure.getCause().getMessage(),
+            Matchers.containsString("part is lost")
+        );
+    }
+
+    /**
+     * Mock ocket in a bucket with the S3 client.
+     * @param aws S3 client
+     * @return Ocket
+     */
+    private static Ocket ocket(final AmazonS3 aws) {
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        final Region region = Mockito.mock(Region.class);
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        final InitiateMultipartUploadResult init =
+            new InitiateMultipartUploadResult();
+        init.setUploadId("upload");
+        Mockito.when(
+            aws.initiateMultipartUpload(
+                Mockito.any(InitiateMultipartUploadRequest.class)
+            )
+        ).thenReturn(init);
+        Mockito.when(bucket.region()).thenReturn(region);
+        Mockito.when(bucket.name()).thenReturn("bucket");
+        Mockito.when(region.aws()).thenReturn(aws);
+        Mockito.when(ocket.bucket()).thenReturn(bucket);
+        Mockito.when(ocket.key()).thenReturn("urn/large");
+        return ocket;
+    }
+
+}
@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.mock.MkBucket;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests for {@link Blobs}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class BlobsTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Blobs can store equal bodies once.
+     * @throws IOException If fails
+     */
+    @Test
+    public void storesEqualBodiesOnce() throws IOException {
+        final Bucket bucket = new MkBucket(this.temp.getRoot(), "blobs");
+        final Blobs blobs = new Blobs(bucket);
+        final ObjectMetadata first = new ObjectMetadata();
+        blobs.save("a/x.txt", IOUtils.toInputStream("same"), first, false);
+        final ObjectMetadata second = new ObjectMetadata();
+        blobs.save("b/y.txt", IOUtils.toInputStream("same"), second, false);
+        MatcherAssert.assertThat(
+            second.getUserMetaDataOf(Blobs.HEADER),
+            Matchers.equalTo(first.getUserMetaDataOf(Blobs.HEADER))
+        );
+        MatcherAssert.assertThat(
+            first.getUserMetaDataOf(Blobs.SIZE),
+            Matchers.equalTo("4")
+        );
+        MatcherAssert.assertThat(
+            Lists.newArrayList(bucket.list("blobs/")),
+            Matchers.contains(
+                Blobs.key(first.getUserMetaDataOf(Blobs.HEADER))
+            )
+        );
+    }
+
+    /**
+     * Blobs can store a body deflated and keep its coding for equal ones.
+     * @throws IOException If fails
+     */
+    @Test
+    public void storesDeflatedBody() throws IOException {
+        final Bucket bucket = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "deflated")
+        );
+        final Blobs blobs = new Blobs(bucket);
+        final String text = StringUtils.repeat("text ", Tv.THOUSAND);
+        final ObjectMetadata first = new ObjectMetadata();
+        blobs.save("e/x.txt", IOUtils.toInputStream(text), first, true);
+        MatcherAssert.assertThat(
+            Blobs.deflated(first), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            first.getUserMetaDataOf(Blobs.SIZE),
+            Matchers.equalTo(Integer.toString(text.length()))
+        );
+        final ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        bucket.ocket(Blobs.key(first.getUserMetaDataOf(Blobs.HEADER)))
+            .read(stored);
+        MatcherAssert.assertThat(
+            stored.size(), Matchers.lessThan(text.length())
+        );
+        try (final InputStream input = new InflaterInputStream(
+            new ByteArrayInputStream(stored.toByteArray())
+        )) {
+            MatcherAssert.assertThat(
+                IOUtils.toString(input), Matchers.equalTo(text)
+            );
+        }
+        final ObjectMetadata second = new ObjectMetadata();
+        blobs.save("f/x.bin", IOUtils.toInputStream(text), second, false);
+        MatcherAssert.assertThat(
+            Blobs.deflated(second), Matchers.is(true)
+        );
+    }
+
+    /**
+     * Blobs can remove a body with its last reference.
+     * @throws IOException If fails
+     */
+    @Test
+    public void removesBodyWithLastReference() throws IOException {
+        final Bucket bucket = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "refs")
+        );
+        final Blobs blobs = new Blobs(bucket);
+        final ObjectMetadata meta = new ObjectMetadata();
+        blobs.save("c/x.txt", IOUtils.toInputStream("body"), meta, false);
+        blobs.save("d/x.txt", IOUtils.toInputStream("body"), meta, false);
+        final String hash = meta.getUserMetaDataOf(Blobs.HEADER);
+        blobs.release(hash, "c/x.txt");
+        MatcherAssert.assertThat(
+            bucket.ocket(Blobs.key(hash)).exists(),
+            Matchers.is(true)
+        );
+        blobs.release(hash, "d/x.txt");
+        MatcherAssert.assertThat(
+            bucket.ocket(Blobs.key(hash)).exists(),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * Blobs can put a body back if it's referred to while being removed.
+     * @throws IOException If fails
+     */
+    @Test
+    public void restoresBodyReferredWhileRemoved() throws IOException {
+        final Bucket origin = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "race")
+        );
+        final ObjectMetadata meta = new ObjectMetadata();
+        new Blobs(origin).save(
+            "g/x.txt", IOUtils.toInputStream("race"), meta, false
+        );
+        final String hash = meta.getUserMetaDataOf(Blobs.HEADER);
+        final Bucket bucket = Mockito.mock(
+            Bucket.class, AdditionalAnswers.delegatesTo(origin)
+        );
+        Mockito.doAnswer(
+            new Answer<Void>() {
+                @Override
+                public Void answer(final InvocationOnMock inv)
+                    throws IOException {
+                    new Blobs(origin).save(
+                        "h/x.txt", IOUtils.toInputStream("race"),
+                        new ObjectMetadata(), false
+                    );
+                    origin.remove(Blobs.key(hash));
+                    return null;
+                }
+            }
+        ).when(bucket).remove(Blobs.key(hash));
+        new Blobs(bucket).release(hash, "g/x.txt");
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        origin.ocket(Blobs.key(hash)).read(body);
+        MatcherAssert.assertThat(
+            body.toString(), Matchers.equalTo("race")
+        );
+        MatcherAssert.assertThat(
+            Lists.newArrayList(origin.list("blobs/tmp/")),
+            Matchers.emptyIterable()
+        );
+    }
+
+    /**
+     * Blobs can release the marker of a body that fails to be stored.
+     * @throws IOException If fails
+     */
+    @Test
+    public void releasesMarkerOfLostBody() throws IOException {
+        final Bucket origin = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "lost")
+        );
+        final String hash = Hashing.sha256()
+            .hashString("lost", StandardCharsets.UTF_8).toString();
+        final Ocket blob = Mockito.mock(Ocket.class);
+        Mockito.doThrow(new IOException("broken")).when(blob).write(
+            Mockito.any(InputStream.class), Mockito.any(ObjectMetadata.class)
+        );
+        final Bucket bucket = Mockito.mock(
+            Bucket.class, AdditionalAnswers.delegatesTo(origin)
+        );
+        Mockito.doReturn(blob).when(bucket).ocket(Blobs.key(hash));
+        try {
+            new Blobs(bucket).save(
+                "i/x.txt", IOUtils.toInputStream("lost"),
+                new ObjectMetadata(), false
+            );
+        } catch (final IOException ex) {
+            MatcherAssert.assertThat(
+                ex.getMessage(), Matchers.equalTo("broken")
+            );
+        }
+        MatcherAssert.assertThat(
+            origin.ocket(String.format("refs/%s/i/x.txt", hash)).exists(),
+            Matchers.is(false)
+        );
+    }
+
+}
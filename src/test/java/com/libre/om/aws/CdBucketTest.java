@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests for {@link CdBucket}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class CdBucketTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * CdBucket can read content from disk the second time.
+     * @throws IOException If fails
+     */
+    @Test
+    public void readsContentFromDisk() throws IOException {
+        final Ocket ocket = CdBucketTest.ocket("cached", "a");
+        final Bucket bucket = new CdBucket(
+            CdBucketTest.bucket(ocket), this.folder.newFolder(), 100L
+        );
+        MatcherAssert.assertThat(
+            CdBucketTest.read(bucket.ocket("a")),
+            Matchers.equalTo("cached")
+        );
+        MatcherAssert.assertThat(
+            CdBucketTest.read(bucket.ocket("a")),
+            Matchers.equalTo("cached")
+        );
+        Mockito.verify(ocket, Mockito.times(1))
+            .read(Mockito.any(OutputStream.class));
+    }
+
+    /**
+     * CdBucket can forget content when it is written.
+     * @throws IOException If fails
+     */
+    @Test
+    public void forgetsWrittenContent() throws IOException {
+        final Ocket ocket = CdBucketTest.ocket("written", "b");
+        final Bucket bucket = new CdBucket(
+            CdBucketTest.bucket(ocket), this.folder.newFolder(), 100L
+        );
+        CdBucketTest.read(bucket.ocket("b"));
+        bucket.ocket("b").write(
+            new ByteArrayInputStream(new byte[0]), new ObjectMetadata()
+        );
+        CdBucketTest.read(bucket.ocket("b"));
+        bucket.remove("b");
+        CdBucketTest.read(bucket.ocket("b"));
+        Mockito.verify(ocket, Mockito.times(3))
+            .read(Mockito.any(OutputStream.class));
+    }
+
+    /**
+     * CdBucket can read cached content while another ocket waits for S3.
+     * @throws Exception If fails
+     */
+    @Test
+    public void readsWhileOtherOcketWaits() throws Exception {
+        final Ocket fast = CdBucketTest.ocket("fast", "c");
+        final Ocket slow = Mockito.mock(Ocket.class);
+        final CountDownLatch asked = new CountDownLatch(1);
+        final CountDownLatch answer = new CountDownLatch(1);
+        Mockito.doAnswer(
+            new Answer<ObjectMetadata>() {
+                @Override
+                public ObjectMetadata answer(final InvocationOnMock inv)
+                    throws InterruptedException {
+                    asked.countDown();
+                    answer.await(1L, TimeUnit.MINUTES);
+                    return new ObjectMetadata();
+                }
+            }
+        ).when(slow).meta();
+        final Bucket origin = CdBucketTest.bucket(fast);
+        Mockito.doReturn(slow).when(origin).ocket("d");
+        final Bucket bucket = new CdBucket(
+            origin, this.folder.newFolder(), 100L
+        );
+        CdBucketTest.read(bucket.ocket("c"));
+        final ExecutorService threads = Executors.newSingleThreadExecutor();
+        try {
+            final Future<ObjectMetadata> head = threads.submit(
+                new Callable<ObjectMetadata>() {
+                    @Override
+                    public ObjectMetadata call() throws IOException {
+                        return bucket.ocket("d").meta();
+                    }
+                }
+            );
+            asked.await(1L, TimeUnit.MINUTES);
+            MatcherAssert.assertThat(
+                CdBucketTest.read(bucket.ocket("c")),
+                Matchers.equalTo("fast")
+            );
+            answer.countDown();
+            head.get(1L, TimeUnit.MINUTES);
+        } finally {
+            answer.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * CdBucket conforms to equals and hashCode contract.
+     */
+    @Test
+    public void conformsToEqualsHashCodeContract() {
+        EqualsVerifier.forClass(CdBucket.class)
+            .suppress(Warning.TRANSIENT_FIELDS)
+            .verify();
+    }
+
+    /**
+     * Read the ocket into a string.
+     * @param ocket Ocket
+     * @return Content
+     * @throws IOException If fails
+     */
+    private static String read(final Ocket ocket) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ocket.read(output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Mock bucket with the ocket.
+     * @param ocket Ocket
+     * @return Bucket
+     */
+    private static Bucket bucket(final Ocket ocket) {
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        Mockito.doReturn(ocket).when(bucket).ocket(Mockito.anyString());
+        return bucket;
+    }
+
+    /**
+     * Mock ocket with content.
+     * @param content Content
+     * @param etag Entity tag, also used as a key
+     * @return Ocket
+     * @throws IOException If fails
+     */
+    private static Ocket ocket(final String content, final String etag)
+        throws IOException {
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setHeader("ETag", etag);
+        meta.setContentLength((long) content.length());
+        Mockito.doReturn(meta).when(ocket).meta();
+        Mockito.doReturn(etag).when(ocket).key();
+        Mockito.doAnswer(
+            new Answer<Void>() {
+                @Override
+                public Void answer(final InvocationOnMock inv)
+                    throws IOException {
+                    OutputStream.class.cast(inv.getArguments()[0])
+                        .write(content.getBytes(StandardCharsets.UTF_8));
+                    return null;
+                }
+            }
+        ).when(ocket).read(Mockito.any(OutputStream.class));
+        return ocket;
+    }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link DiskCache}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class DiskCacheTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * DiskCache can return cached content.
+     * @throws IOException If fails
+     */
+    @Test
+    public void returnsCachedContent() throws IOException {
+        final DiskCache cache = new DiskCache(this.folder.newFolder(), 10L);
+        cache.put("a", "1", this.file(cache, "hello"));
+        try (final InputStream input = cache.get("a", "1")) {
+            MatcherAssert.assertThat(
+                IOUtils.toString(input, StandardCharsets.UTF_8),
+                Matchers.equalTo("hello")
+            );
+        }
+    }
+
+    /**
+     * DiskCache can ignore content with another entity tag.
+     * @throws IOException If fails
+     */
+    @Test
+    public void ignoresStaleContent() throws IOException {
+        final DiskCache cache = new DiskCache(this.folder.newFolder(), 10L);
+        cache.put("b", "1", this.file(cache, "old"));
+        MatcherAssert.assertThat(cache.get("b", "2"), Matchers.nullValue());
+        MatcherAssert.assertThat(cache.get("b", "1"), Matchers.nullValue());
+    }
+
+    /**
+     * DiskCache can evict least recently used entries.
+     * @throws IOException If fails
+     */
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        final File dir = this.folder.newFolder();
+        final DiskCache cache = new DiskCache(dir, 10L);
+        cache.put("x", "1", this.file(cache, "xxxx"));
+        cache.put("y", "1", this.file(cache, "yyyy"));
+        cache.get("x", "1").close();
+        cache.put("z", "1", this.file(cache, "zzzz"));
+        MatcherAssert.assertThat(cache.get("y", "1"), Matchers.nullValue());
+        cache.get("x", "1").close();
+        cache.get("z", "1").close();
+        MatcherAssert.assertThat(dir.list().length, Matchers.equalTo(2));
+    }
+
+    /**
+     * DiskCache can skip content larger than the budget.
+     * @throws IOException If fails
+     */
+    @Test
+    public void skipsLargeContent() throws IOException {
+        final File dir = this.folder.newFolder();
+        final DiskCache cache = new DiskCache(dir, 2L);
+        cache.put("c", "1", this.file(cache, "large"));
+        MatcherAssert.assertThat(cache.get("c", "1"), Matchers.nullValue());
+        MatcherAssert.assertThat(dir.list().length, Matchers.equalTo(0));
+    }
+
+    /**
+     * Make a temporary file with content.
+     * @param cache Cache
+     * @param content Content
+     * @return File
+     * @throws IOException If fails
+     */
+    private File file(final DiskCache cache, final String content)
+        throws IOException {
+        final File file = cache.temp();
+        FileUtils.write(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+}
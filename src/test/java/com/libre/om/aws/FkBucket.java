@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.collect.Lists;
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Bucket that keeps user metadata of objects in memory, on top of
+ * a bucket that doesn't, like {@link com.jcabi.s3.mock.MkBucket}.
+ * Every write gives an object a new entity tag and time of change, as
+ * S3 does, and its region lists objects with them and copies them.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+final class FkBucket implements Bucket {
+
+    /**
+     * Original bucket.
+     */
+    private final transient Bucket origin;
+
+    /**
+     * Metadata by keys.
+     */
+    private final transient ConcurrentMap<String, ObjectMetadata> metas;
+
+    /**
+     * Ctor.
+     * @param bucket Original bucket
+     */
+    FkBucket(final Bucket bucket) {
+        this.origin = bucket;
+        this.metas = new ConcurrentHashMap<>(0);
+    }
+
+    @Override
+    public Region region() {
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        Mockito.when(aws.listObjects(Mockito.any(ListObjectsRequest.class)))
+            .thenAnswer(
+                new Answer<ObjectListing>() {
+                    @Override
+                    public ObjectListing answer(final InvocationOnMock inv)
+                        throws IOException {
+                        return FkBucket.this.listing(
+                            ListObjectsRequest.class.cast(
+                                inv.getArguments()[0]
+                            )
+                        );
+                    }
+                }
+            );
+        Mockito.when(
+            aws.copyObject(
+                Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyString(), Mockito.anyString()
+            )
+        ).thenAnswer(
+            new Answer<CopyObjectResult>() {
+                @Override
+                public CopyObjectResult answer(final InvocationOnMock inv)
+                    throws IOException {
+                    FkBucket.this.copy(
+                        inv.getArguments()[1].toString(),
+                        inv.getArguments()[Tv.THREE].toString()
+                    );
+                    return new CopyObjectResult();
+                }
+            }
+        );
+        return new Region() {
+            @Override
+            public Bucket bucket(final String name) {
+                return FkBucket.this;
+            }
+            @Override
+            public AmazonS3 aws() {
+                return aws;
+            }
+        };
+    }
+
+    @Override
+    public String name() {
+        return this.origin.name();
+    }
+
+    @Override
+    public Ocket ocket(final String key) {
+        final Ocket ocket = this.origin.ocket(key);
+        return new Ocket() {
+            @Override
+            public Bucket bucket() {
+                return FkBucket.this;
+            }
+            @Override
+            public String key() {
+                return key;
+            }
+            @Override
+            public ObjectMetadata meta() throws IOException {
+                ObjectMetadata meta = FkBucket.this.metas.get(key);
+                if (meta == null) {
+                    meta = ocket.meta();
+                }
+                return meta;
+            }
+            @Override
+            public boolean exists() throws IOException {
+                return ocket.exists();
+            }
+            @Override
+            public void read(final OutputStream output) throws IOException {
+                ocket.read(output);
+            }
+            @Override
+            public void write(final InputStream input,
+                final ObjectMetadata meta) throws IOException {
+                ocket.write(input, meta);
+                final ObjectMetadata stored = meta.clone();
+                stored.setHeader(Headers.ETAG, UUID.randomUUID().toString());
+                stored.setLastModified(new Date());
+                FkBucket.this.metas.put(key, stored);
+            }
+            @Override
+            public int compareTo(final Ocket other) {
+                return key.compareTo(other.key());
+            }
+        };
+    }
+
+    @Override
+    public void remove(final String key) throws IOException {
+        this.origin.remove(key);
+        this.metas.remove(key);
+    }
+
+    @Override
+    public Iterable<String> list(final String pref) throws IOException {
+        return this.origin.list(pref);
+    }
+
+    @Override
+    public int compareTo(final Bucket bucket) {
+        return this.origin.compareTo(bucket);
+    }
+
+    /**
+     * Copy an object with its metadata.
+     * @param source Key of the source
+     * @param target Key of the target
+     * @throws IOException If fails
+     */
+    private void copy(final String source, final String target)
+        throws IOException {
+        final Ocket ocket = this.ocket(source);
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ocket.read(body);
+        this.ocket(target).write(
+            new ByteArrayInputStream(body.toByteArray()), ocket.meta()
+        );
+    }
+
+    /**
+     * List objects, with entity tags and times of change taken from
+     * their metadata, in one page.
+     * @param request Request
+     * @return Listing
+     * @throws IOException If fails
+     */
+    private ObjectListing listing(final ListObjectsRequest request)
+        throws IOException {
+        final ObjectListing listing = new ObjectListing();
+        for (final String key
+            : new TreeSet<>(Lists.newArrayList(this.list(request.getPrefix())))
+        ) {
+            if (request.getMarker() != null
+                && key.compareTo(request.getMarker()) <= 0) {
+                continue;
+            }
+            final ObjectMetadata meta = this.ocket(key).meta();
+            final S3ObjectSummary summary = new S3ObjectSummary();
+            summary.setKey(key);
+            summary.setSize(meta.getContentLength());
+            summary.setETag(meta.getETag());
+            summary.setLastModified(meta.getLastModified());
+            listing.getObjectSummaries().add(summary);
+        }
+        return listing;
+    }
+
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.mock.MkBucket;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+
+/**
+ * Tests for {@link Index}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class IndexTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Index can follow writes and deletes of documents.
+     * @throws IOException If fails
+     */
+    @Test
+    public void followsChangesOfDocuments() throws IOException {
+        final Bucket bucket = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "follows")
+        );
+        final Redirects redirects = new Redirects();
+        new AwsDoc(bucket, redirects, "urn:a", "one.bin").write(
+            new ByteArrayInputStream(new byte[] {1, 2, 3}), -1L
+        );
+        new AwsDoc(bucket, redirects, "urn:a", "two.bin").write(
+            new ByteArrayInputStream(new byte[] {1}), -1L
+        );
+        new AwsDoc(bucket, redirects, "urn:a", "one.bin").delete();
+        final Map<String, Index.Entry> entries =
+            new Index(bucket, "urn:a").entries();
+        MatcherAssert.assertThat(
+            entries.keySet(), Matchers.contains("two.bin")
+        );
+        MatcherAssert.assertThat(
+            entries.get("two.bin").size(), Matchers.equalTo(1L)
+        );
+    }
+
+    /**
+     * Index can be reconciled, asking metadata only of documents changed
+     * since their entries were made.
+     * @throws IOException If fails
+     */
+    @Test
+    public void reconcilesChangedDocuments() throws IOException {
+        final Bucket bucket = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "stamps")
+        );
+        new AwsDoc(bucket, new Redirects(), "urn:s", "s.txt").write(
+            new ByteArrayInputStream("hi".getBytes()), -1L
+        );
+        MatcherAssert.assertThat(
+            new Index(bucket, "urn:s").reconcile(), Matchers.is(true)
+        );
+        final Bucket same = Mockito.mock(
+            Bucket.class, AdditionalAnswers.delegatesTo(bucket)
+        );
+        MatcherAssert.assertThat(
+            new Index(same, "urn:s").reconcile(), Matchers.is(false)
+        );
+        Mockito.verify(same, Mockito.never()).ocket("urn:s/s.txt");
+        final ObjectMetadata meta = bucket.ocket("urn:s/s.txt").meta();
+        meta.addUserMetadata(Blobs.SIZE, "7");
+        bucket.ocket("urn:s/s.txt").write(
+            new ByteArrayInputStream(new byte[0]), meta
+        );
+        MatcherAssert.assertThat(
+            new Index(bucket, "urn:s").reconcile(), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            new Index(bucket, "urn:s").bytes(),
+            // @checkstyle MagicNumberCheck (1 line)
+            Matchers.equalTo(7L)
+        );
+    }
+
+    /**
+     * Index can be built from documents, when it's missing.
+     * @throws IOException If fails
+     */
+    @Test
+    public void buildsMissingIndex() throws IOException {
+        final Bucket bucket = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "builds")
+        );
+        new AwsDoc(bucket, new Redirects(), "urn:b", "a b/c.txt").write(
+            new ByteArrayInputStream("hello".getBytes()), -1L
+        );
+        final ObjectMetadata stub = new ObjectMetadata();
+        stub.addUserMetadata(AwsDoc.HEADER, "urn:c/shared.txt");
+        new Index(bucket, "urn:b").put("shared.txt", Index.Entry.of(stub));
+        final Map<String, Index.Entry> before =
+            new Index(bucket, "urn:b").entries();
+        for (final String key : bucket.list("indexes/urn:b/")) {
+            bucket.remove(key);
+        }
+        final Map<String, Index.Entry> after =
+            new Index(bucket, "urn:b").entries();
+        MatcherAssert.assertThat(
+            after.keySet(), Matchers.contains("a b/c.txt")
+        );
+        MatcherAssert.assertThat(
+            after.get("a b/c.txt").size(),
+            Matchers.equalTo(before.get("a b/c.txt").size())
+        );
+        MatcherAssert.assertThat(
+            before.get("shared.txt").target(),
+            Matchers.equalTo("urn:c/shared.txt")
+        );
+    }
+
+    /**
+     * Index can keep many documents in a few chunks and read pages of
+     * them.
+     * @throws IOException If fails
+     */
+    @Test
+    public void keepsDocumentsInChunks() throws IOException {
+        final Bucket bucket = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "chunks")
+        );
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentLength(1L);
+        for (int idx = 0; idx <= Index.CHUNK; ++idx) {
+            bucket.ocket(String.format("urn:k/%04d.txt", idx)).write(
+                new ByteArrayInputStream(new byte[] {1}), meta
+            );
+        }
+        final Index index = new Index(bucket, "urn:k");
+        MatcherAssert.assertThat(index.reconcile(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            Lists.newArrayList(bucket.list("indexes/urn:k/")),
+            // @checkstyle MagicNumberCheck (1 line)
+            Matchers.hasSize(3)
+        );
+        index.put("0500.txt", null);
+        MatcherAssert.assertThat(
+            index.entries().keySet(),
+            Matchers.allOf(
+                Matchers.hasItem("1000.txt"),
+                Matchers.not(Matchers.hasItem("0500.txt"))
+            )
+        );
+        MatcherAssert.assertThat(
+            index.bytes(), Matchers.equalTo((long) Index.CHUNK)
+        );
+        MatcherAssert.assertThat(
+            // @checkstyle MagicNumberCheck (1 line)
+            index.entries("0498.txt", 3).keySet(),
+            Matchers.contains("0499.txt", "0501.txt", "0502.txt")
+        );
+        MatcherAssert.assertThat(
+            index.entry("1000.txt"), Matchers.notNullValue()
+        );
+    }
+
+    /**
+     * Index can make a change again, if the chunk was changed by somebody
+     * else meanwhile.
+     * @throws IOException If fails
+     */
+    @Test
+    public void retriesChangeOfChangedChunk() throws IOException {
+        final Bucket bucket = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "retries")
+        );
+        new AwsDoc(bucket, new Redirects(), "urn:t", "first.txt").write(
+            new ByteArrayInputStream("first".getBytes()), -1L
+        );
+        final Index.Entry entry = Index.Entry.of(new ObjectMetadata());
+        final AtomicBoolean meanwhile = new AtomicBoolean();
+        new Index(bucket, "urn:t").update(
+            "second.txt",
+            new Function<Index.Entry, Index.Entry>() {
+                @Override
+                public Index.Entry apply(final Index.Entry before) {
+                    if (!meanwhile.getAndSet(true)) {
+                        try {
+                            new Index(bucket, "urn:t").put("third.txt", entry);
+                        } catch (final IOException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                    return entry;
+                }
+            }
+        );
+        MatcherAssert.assertThat(
+            new Index(bucket, "urn:t").entries().keySet(),
+            Matchers.contains("first.txt", "second.txt", "third.txt")
+        );
+    }
+
+}
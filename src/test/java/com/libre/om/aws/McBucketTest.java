@@ -0,0 +1,251 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test case for {@link McBucket}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class McBucketTest {
+
+    /**
+     * McBucket can ask metadata of an object only once in a request.
+     * @throws Exception If fails
+     */
+    @Test
+    public void asksMetadataOnce() throws Exception {
+        final Bucket origin = Mockito.mock(Bucket.class);
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        Mockito.when(ocket.key()).thenReturn("urn/a.txt");
+        Mockito.when(origin.ocket("urn/a.txt")).thenReturn(ocket);
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.addUserMetadata(AwsFriends.HEADER, "friend");
+        Mockito.when(ocket.meta()).thenReturn(meta);
+        final Bucket bucket = new McBucket(origin);
+        bucket.ocket("urn/a.txt").meta().getUserMetadata().clear();
+        MatcherAssert.assertThat(
+            bucket.ocket("urn/a.txt").exists(),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            bucket.ocket("urn/a.txt").meta()
+                .getUserMetaDataOf(AwsFriends.HEADER),
+            Matchers.equalTo("friend")
+        );
+        Mockito.verify(ocket, Mockito.times(1)).meta();
+        Mockito.verify(ocket, Mockito.never()).exists();
+    }
+
+    /**
+     * McBucket can list a prefix only once in a request.
+     * @throws Exception If fails
+     */
+    @Test
+    public void listsOnce() throws Exception {
+        final Bucket origin = Mockito.mock(Bucket.class);
+        Mockito.when(origin.list("urn/"))
+            .thenReturn(Collections.singletonList("urn/b.txt"));
+        final Bucket bucket = new McBucket(origin);
+        bucket.list("urn/");
+        MatcherAssert.assertThat(
+            bucket.list("urn/"),
+            Matchers.contains("urn/b.txt")
+        );
+        Mockito.verify(origin, Mockito.times(1)).list("urn/");
+    }
+
+    /**
+     * McBucket can forget an object written through it.
+     * @throws Exception If fails
+     */
+    @Test
+    public void forgetsWrittenObject() throws Exception {
+        final Bucket origin = Mockito.mock(Bucket.class);
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        Mockito.when(ocket.key()).thenReturn("urn/c.txt");
+        Mockito.when(origin.ocket("urn/c.txt")).thenReturn(ocket);
+        Mockito.when(ocket.exists()).thenReturn(false);
+        Mockito.when(origin.list("urn/"))
+            .thenReturn(Collections.<String>emptyList());
+        final Bucket bucket = new McBucket(origin);
+        bucket.ocket("urn/c.txt").exists();
+        bucket.list("urn/");
+        bucket.ocket("urn/c.txt").write(
+            new ByteArrayInputStream(new byte[0]), new ObjectMetadata()
+        );
+        bucket.ocket("urn/c.txt").exists();
+        bucket.list("urn/");
+        Mockito.verify(ocket, Mockito.times(2)).exists();
+        Mockito.verify(origin, Mockito.times(2)).list("urn/");
+    }
+
+    /**
+     * McBucket can keep metadata until it's forgotten.
+     * @throws Exception If fails
+     */
+    @Test
+    public void keepsMetadataUntilForgotten() throws Exception {
+        final Bucket origin = Mockito.mock(Bucket.class);
+        final Ocket ocket = McBucketTest.ocket(origin, "urn/a.txt");
+        Mockito.when(ocket.meta()).thenReturn(new ObjectMetadata());
+        Mockito.when(origin.list("urn/"))
+            .thenReturn(Collections.singletonList("urn/a.txt"));
+        final McBucket bucket = new McBucket(origin, Tv.TEN, Tv.SIXTY);
+        bucket.ocket("urn/a.txt").meta();
+        bucket.ocket("urn/a.txt").meta();
+        bucket.list("urn/");
+        bucket.list("urn/");
+        new Forgetful.Smart(bucket).forget("urn/a.txt");
+        bucket.ocket("urn/a.txt").meta();
+        bucket.list("urn/");
+        Mockito.verify(ocket, Mockito.times(2)).meta();
+        Mockito.verify(origin, Mockito.times(2)).list("urn/");
+        MatcherAssert.assertThat(
+            bucket.stats(),
+            Matchers.startsWith("metadata: 1 hits, 2 misses, 0 evictions")
+        );
+    }
+
+    /**
+     * McBucket can forget metadata when its time is out.
+     * @throws Exception If fails
+     */
+    @Test
+    public void expiresMetadata() throws Exception {
+        final Bucket origin = Mockito.mock(Bucket.class);
+        final Ocket ocket = McBucketTest.ocket(origin, "urn/b.txt");
+        Mockito.when(ocket.exists()).thenReturn(true);
+        final McBucket bucket = new McBucket(origin, Tv.TEN, 0L);
+        bucket.ocket("urn/b.txt").exists();
+        bucket.ocket("urn/b.txt").exists();
+        Mockito.verify(ocket, Mockito.times(2)).exists();
+    }
+
+    /**
+     * McBucket can ask S3 every time about bodies and markers.
+     * @throws Exception If fails
+     */
+    @Test
+    public void asksAboutBodiesEveryTime() throws Exception {
+        final Bucket origin = Mockito.mock(Bucket.class);
+        final Ocket ocket = McBucketTest.ocket(origin, "blobs/abc");
+        Mockito.when(ocket.exists()).thenReturn(true, false);
+        final McBucket bucket = new McBucket(origin, Tv.TEN, Tv.SIXTY);
+        MatcherAssert.assertThat(
+            bucket.ocket("blobs/abc").exists(), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            bucket.ocket("blobs/abc").exists(), Matchers.is(false)
+        );
+        bucket.list("refs/abc/");
+        bucket.list("refs/abc/");
+        Mockito.verify(origin, Mockito.times(2)).list("refs/abc/");
+    }
+
+    /**
+     * McBucket can ask S3 once for threads missing the same key.
+     * @throws Exception If fails
+     */
+    @Test
+    public void collapsesConcurrentMisses() throws Exception {
+        final Bucket origin = Mockito.mock(Bucket.class);
+        final Ocket ocket = McBucketTest.ocket(origin, "urn/c.txt");
+        final CountDownLatch asked = new CountDownLatch(1);
+        final CountDownLatch answer = new CountDownLatch(1);
+        Mockito.when(ocket.meta()).thenAnswer(
+            new Answer<ObjectMetadata>() {
+                @Override
+                public ObjectMetadata answer(final InvocationOnMock inv)
+                    throws InterruptedException {
+                    asked.countDown();
+                    answer.await();
+                    return new ObjectMetadata();
+                }
+            }
+        );
+        final McBucket bucket = new McBucket(origin, Tv.TEN, Tv.SIXTY);
+        final ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            final Callable<ObjectMetadata> task =
+                new Callable<ObjectMetadata>() {
+                    @Override
+                    public ObjectMetadata call() throws Exception {
+                        return bucket.ocket("urn/c.txt").meta();
+                    }
+                };
+            final Future<ObjectMetadata> first = threads.submit(task);
+            asked.await(1L, TimeUnit.MINUTES);
+            final Future<ObjectMetadata> second = threads.submit(task);
+            answer.countDown();
+            first.get(1L, TimeUnit.MINUTES);
+            second.get(1L, TimeUnit.MINUTES);
+        } finally {
+            threads.shutdownNow();
+        }
+        Mockito.verify(ocket, Mockito.times(1)).meta();
+    }
+
+    /**
+     * Mock an ocket in the bucket.
+     * @param bucket Bucket
+     * @param key Key of the ocket
+     * @return Ocket
+     */
+    private static Ocket ocket(final Bucket bucket, final String key) {
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        Mockito.when(ocket.key()).thenReturn(key);
+        Mockito.when(bucket.ocket(key)).thenReturn(ocket);
+        return ocket;
+    }
+
+}
@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests for {@link PlBucket}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class PlBucketTest {
+
+    /**
+     * Latency of every request to the bucket, in milliseconds.
+     */
+    private static final long LATENCY = 200L;
+
+    /**
+     * PlBucket can read a large object in parallel parts, faster than
+     * reading them one by one.
+     * @throws Exception If fails
+     */
+    @Test
+    public void readsLargeObjectInParallel() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final byte[] content = new byte[8000];
+        new Random().nextBytes(content);
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger busy = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // @checkstyle MagicNumber (1 line)
+        final Bucket bucket = PlBucketTest.bucket(
+            content, requests, busy, peak, 1000, 4
+        );
+        bucket.ocket("warm-up").read(new ByteArrayOutputStream());
+        requests.set(0);
+        final long start = System.nanoTime();
+        bucket.ocket("large").read(output);
+        final long msec = TimeUnit.NANOSECONDS.toMillis(
+            System.nanoTime() - start
+        );
+        MatcherAssert.assertThat(
+            Arrays.equals(output.toByteArray(), content),
+            Matchers.is(true)
+        );
+        // @checkstyle MagicNumber (1 line)
+        MatcherAssert.assertThat(requests.get(), Matchers.equalTo(8));
+        MatcherAssert.assertThat(peak.get(), Matchers.greaterThan(1));
+        MatcherAssert.assertThat(
+            msec,
+            // @checkstyle MagicNumber (1 line)
+            Matchers.lessThan(PlBucketTest.LATENCY * 6L)
+        );
+    }
+
+    /**
+     * PlBucket can read a small object with one request.
+     * @throws Exception If fails
+     */
+    @Test
+    public void readsSmallObjectAtOnce() throws Exception {
+        final byte[] content = "small".getBytes();
+        final AtomicInteger requests = new AtomicInteger();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PlBucketTest.bucket(
+            content, requests, new AtomicInteger(), new AtomicInteger(),
+            // @checkstyle MagicNumber (1 line)
+            1000, 4
+        ).ocket("small").read(output);
+        MatcherAssert.assertThat(
+            new String(output.toByteArray()),
+            Matchers.equalTo("small")
+        );
+        MatcherAssert.assertThat(requests.get(), Matchers.equalTo(1));
+    }
+
+    /**
+     * PlBucket can request the first part again if S3 fails, and resume
+     * reading it if the connection breaks.
+     * @throws Exception If fails
+     */
+    @Test
+    public void retriesFirstPart() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final byte[] content = new byte[1000];
+        new Random().nextBytes(content);
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        final Region region = Mockito.mock(Region.class);
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        Mockito.when(bucket.region()).thenReturn(region);
+        Mockito.when(bucket.name()).thenReturn("bucket");
+        Mockito.when(bucket.ocket(Mockito.anyString())).thenReturn(ocket);
+        Mockito.when(ocket.key()).thenReturn("flaky");
+        Mockito.when(region.aws()).thenReturn(aws);
+        final AtomicInteger requests = new AtomicInteger();
+        Mockito.when(aws.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenAnswer(
+                new Answer<S3Object>() {
+                    @Override
+                    public S3Object answer(final InvocationOnMock inv) {
+                        final long[] range = GetObjectRequest.class
+                            .cast(inv.getArguments()[0]).getRange();
+                        final int number = requests.incrementAndGet();
+                        if (number == 1) {
+                            throw new AmazonClientException("timeout");
+                        }
+                        final S3Object object = PlBucketTest.range(
+                            content, range
+                        );
+                        if (number == 2) {
+                            object.setObjectContent(
+                                new SequenceInputStream(
+                                    new ByteArrayInputStream(content, 0, 100),
+                                    new InputStream() {
+                                        @Override
+                                        public int read() throws IOException {
+                                            throw new IOException("reset");
+                                        }
+                                    }
+                                )
+                            );
+                        }
+                        return object;
+                    }
+                }
+            );
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // @checkstyle MagicNumber (1 line)
+        new PlBucket(bucket, 1000, 4).ocket("flaky").read(output);
+        MatcherAssert.assertThat(
+            Arrays.equals(output.toByteArray(), content),
+            Matchers.is(true)
+        );
+        // @checkstyle MagicNumber (1 line)
+        MatcherAssert.assertThat(requests.get(), Matchers.equalTo(3));
+    }
+
+    /**
+     * PlBucket can refuse to read an object replaced in the middle of
+     * the read.
+     * @throws Exception If fails
+     */
+    @Test(expected = IOException.class)
+    public void refusesObjectChangedWhileRead() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final byte[] content = new byte[3000];
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        final Region region = Mockito.mock(Region.class);
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        Mockito.when(bucket.region()).thenReturn(region);
+        Mockito.when(bucket.name()).thenReturn("bucket");
+        Mockito.when(bucket.ocket(Mockito.anyString())).thenReturn(ocket);
+        Mockito.when(ocket.key()).thenReturn("replaced");
+        Mockito.when(region.aws()).thenReturn(aws);
+        Mockito.when(aws.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenAnswer(
+                new Answer<S3Object>() {
+                    @Override
+                    public S3Object answer(final InvocationOnMock inv) {
+                        final GetObjectRequest request =
+                            GetObjectRequest.class.cast(inv.getArguments()[0]);
+                        S3Object object = null;
+                        if (request.getMatchingETagConstraints().isEmpty()) {
+                            object = PlBucketTest.range(
+                                content, request.getRange()
+                            );
+                            object.getObjectMetadata().setHeader(
+                                "ETag", "first"
+                            );
+                        }
+                        return object;
+                    }
+                }
+            );
+        // @checkstyle MagicNumber (1 line)
+        new PlBucket(bucket, 1000, 4).ocket("replaced")
+            .read(new ByteArrayOutputStream());
+    }
+
+    /**
+     * PlBucket conforms to equals and hashCode contract.
+     */
+    @Test
+    public void conformsToEqualsHashCodeContract() {
+        EqualsVerifier.forClass(PlBucket.class)
+            .suppress(Warning.TRANSIENT_FIELDS)
+            .verify();
+    }
+
+    /**
+     * Bucket with a single object, answering every request with a delay.
+     * @param content Content of the object
+     * @param requests Counter of requests
+     * @param busy Counter of requests in progress
+     * @param peak Maximum number of requests in progress
+     * @param part Size of a part
+     * @param window Number of parts fetched ahead
+     * @return Bucket
+     * @checkstyle ParameterNumberCheck (4 lines)
+     */
+    private static Bucket bucket(final byte[] content,
+        final AtomicInteger requests, final AtomicInteger busy,
+        final AtomicInteger peak, final int part, final int window) {
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        final Region region = Mockito.mock(Region.class);
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        Mockito.when(bucket.region()).thenReturn(region);
+        Mockito.when(bucket.name()).thenReturn("bucket");
+        Mockito.when(region.aws()).thenReturn(aws);
+        Mockito.when(bucket.ocket(Mockito.anyString())).thenAnswer(
+            new Answer<Ocket>() {
+                @Override
+                public Ocket answer(final InvocationOnMock inv) {
+                    final Ocket ocket = Mockito.mock(Ocket.class);
+                    Mockito.when(ocket.key())
+                        .thenReturn((String) inv.getArguments()[0]);
+                    return ocket;
+                }
+            }
+        );
+        Mockito.when(aws.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenAnswer(
+                new Answer<S3Object>() {
+                    @Override
+                    public S3Object answer(final InvocationOnMock inv)
+                        throws InterruptedException {
+                        requests.incrementAndGet();
+                        peak.set(Math.max(peak.get(), busy.incrementAndGet()));
+                        Thread.sleep(PlBucketTest.LATENCY);
+                        busy.decrementAndGet();
+                        return PlBucketTest.range(
+                            content,
+                            GetObjectRequest.class.cast(inv.getArguments()[0])
+                                .getRange()
+                        );
+                    }
+                }
+            );
+        return new PlBucket(bucket, part, window);
+    }
+
+    /**
+     * Object with a range of the content.
+     * @param content Content
+     * @param range First and last positions
+     * @return Object
+     */
+    private static S3Object range(final byte[] content, final long[] range) {
+        final int first = (int) range[0];
+        final int last = (int) Math.min(range[1], content.length - 1L);
+        final S3Object object = new S3Object();
+        object.getObjectMetadata().setHeader(
+            "Content-Range",
+            String.format("bytes %d-%d/%d", first, last, content.length)
+        );
+        object.setObjectContent(
+            new ByteArrayInputStream(
+                Arrays.copyOfRange(content, first, last + 1)
+            )
+        );
+        return object;
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.mock.MkBucket;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link Reconciliation}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class ReconciliationTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Reconciliation can correct usage of a user.
+     * @throws IOException If fails
+     */
+    @Test
+    public void correctsUsage() throws IOException {
+        final Bucket bucket = new FkBucket(
+            new MkBucket(this.temp.getRoot(), "usage")
+        );
+        new AwsDoc(bucket, new Redirects(), "urn:r", "a.bin").write(
+            new ByteArrayInputStream(new byte[] {1, 2}), -1L
+        );
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentLength(1L);
+        bucket.ocket("urn:r/lost.bin").write(
+            new ByteArrayInputStream(new byte[] {1}), meta
+        );
+        MatcherAssert.assertThat(
+            new Index(bucket, "urn:r").bytes(), Matchers.equalTo(2L)
+        );
+        new Reconciliation(bucket).run();
+        MatcherAssert.assertThat(
+            new Index(bucket, "urn:r").bytes(),
+            // @checkstyle MagicNumberCheck (1 line)
+            Matchers.equalTo(3L)
+        );
+        MatcherAssert.assertThat(
+            new Index(bucket, "urn:r").reconcile(), Matchers.is(false)
+        );
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.om.aws;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.jcabi.s3.Ocket;
+import java.io.IOException;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Tests for {@link Redirects}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class RedirectsTest {
+
+    /**
+     * Redirects can resolve the target of a shared document once.
+     * @throws IOException If fails
+     */
+    @Test
+    public void resolvesTargetOnce() throws IOException {
+        final Ocket ocket = RedirectsTest.ocket("friend/doc", "owner/doc");
+        final Redirects redirects = new Redirects();
+        redirects.target(ocket);
+        MatcherAssert.assertThat(
+            redirects.target(ocket),
+            Matchers.equalTo("owner/doc")
+        );
+        Mockito.verify(ocket, Mockito.times(1)).meta();
+    }
+
+    /**
+     * Redirects can resolve the target again, after it expires.
+     * @throws IOException If fails
+     */
+    @Test
+    public void resolvesExpiredTargetAgain() throws IOException {
+        final Ocket ocket = RedirectsTest.ocket("friend/old", "owner/old");
+        final Redirects redirects = new Redirects(0L);
+        redirects.target(ocket);
+        redirects.target(ocket);
+        Mockito.verify(ocket, Mockito.times(2)).meta();
+    }
+
+    /**
+     * Redirects can resolve a document without redirect to itself.
+     * @throws IOException If fails
+     */
+    @Test
+    public void resolvesOwnDocument() throws IOException {
+        MatcherAssert.assertThat(
+            new Redirects().target(RedirectsTest.ocket("owner/own", null)),
+            Matchers.equalTo("owner/own")
+        );
+    }
+
+    /**
+     * Redirects can forget the target.
+     * @throws IOException If fails
+     */
+    @Test
+    public void forgetsTarget() throws IOException {
+        final Ocket ocket = RedirectsTest.ocket("friend/gone", "owner/gone");
+        final Redirects redirects = new Redirects();
+        redirects.target(ocket);
+        redirects.forget("friend/gone");
+        redirects.target(ocket);
+        Mockito.verify(ocket, Mockito.times(2)).meta();
+    }
+
+    /**
+     * Mock ocket.
+     * @param key Key
+     * @param target Target of the redirect or NULL
+     * @return Ocket
+     * @throws IOException If fails
+     */
+    private static Ocket ocket(final String key, final String target)
+        throws IOException {
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        final ObjectMetadata meta = new ObjectMetadata();
+        if (target != null) {
+            meta.addUserMetadata(AwsDoc.HEADER, target);
+        }
+        Mockito.when(ocket.key()).thenReturn(key);
+        Mockito.when(ocket.meta()).thenReturn(meta);
+        return ocket;
+    }
+
+}
@@ -76,6 +76,31 @@ public final class MkAttributesTest {
         );
     }
 
+    /**
+     * MkAttributes can change entity tag when content changes.
+     * @throws IOException In case of error
+     */
+    @Test
+    public void changesEntityTagWithContent() throws IOException {
+        final File file = new File(this.folder.newFolder(), "tagged");
+        final Attributes attrs = new MkAttributes(file);
+        Files.write(
+            file.toPath(),
+            "first".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE
+        );
+        final String etag = attrs.etag();
+        Files.write(
+            file.toPath(),
+            "second".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.TRUNCATE_EXISTING
+        );
+        MatcherAssert.assertThat(
+            attrs.etag(),
+            Matchers.not(Matchers.equalTo(etag))
+        );
+    }
+
     /**
      * MkAttributes can count bytes in document.
      * @throws IOException In case of error
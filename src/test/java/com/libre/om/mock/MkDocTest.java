@@ -34,8 +34,11 @@ import com.libre.om.Doc;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import nl.jqno.equalsverifier.Warning;
 import org.hamcrest.MatcherAssert;
@@ -128,6 +131,45 @@ public final class MkDocTest {
         );
     }
 
+    /**
+     * MkDoc can transfer a large file into a file stream.
+     * @throws IOException In case of error
+     */
+    @Test
+    public void transfersLargeFileIntoFile() throws IOException {
+        final File file = new File(this.folder.newFolder(), "large");
+        final byte[] content = new byte[5_000_000];
+        Arrays.fill(content, (byte) 'x');
+        Files.write(content, file);
+        final File copy = this.folder.newFile();
+        try (final OutputStream output = new FileOutputStream(copy)) {
+            new MkDoc(file, "", "").read(output);
+        }
+        MatcherAssert.assertThat(
+            Files.toByteArray(copy),
+            Matchers.equalTo(content)
+        );
+    }
+
+    /**
+     * MkDoc can read a range from file.
+     * @throws IOException In case of error
+     */
+    @Test
+    public void readsRangeFromFile() throws IOException {
+        final File file = new File(this.folder.newFolder(), "ranged");
+        Files.write(
+            "0123456789".getBytes(StandardCharsets.UTF_8), file
+        );
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        // @checkstyle MagicNumberCheck (1 line)
+        new MkDoc(file, "", "").read(stream, 3L, 4L);
+        MatcherAssert.assertThat(
+            new String(stream.toByteArray(), StandardCharsets.UTF_8),
+            Matchers.equalTo("3456")
+        );
+    }
+
     /**
      * MkDoc can write to file.
      * @throws IOException In case of error
@@ -84,6 +84,26 @@ public final class MkDocsTest {
         );
     }
 
+    /**
+     * MkDocs can list a page of names after a name.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void listsPageOfNames() throws Exception {
+        final MkDocs docs = new MkDocs(this.temp.newFolder(), "user4");
+        for (final String file : new String[] {"c.txt", "a.txt", "b.txt"}) {
+            docs.doc(file).write(IOUtils.toInputStream(file), file.length());
+        }
+        MatcherAssert.assertThat(
+            docs.names("a.txt", 1),
+            Matchers.contains("b.txt")
+        );
+        MatcherAssert.assertThat(
+            docs.names("b.txt", 2),
+            Matchers.contains("c.txt")
+        );
+    }
+
     /**
      * MkDocs can return existing Doc.
      * @throws Exception If fails.
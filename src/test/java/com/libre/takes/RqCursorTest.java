@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes;
+
+import com.jcabi.matchers.XhtmlMatchers;
+import org.apache.commons.lang3.StringUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.rq.RqFake;
+import org.takes.rs.xe.RsXembly;
+import org.takes.rs.xe.XeAppend;
+
+/**
+ * Test case for {@link RqCursor}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class RqCursorTest {
+
+    /**
+     * RqCursor can find the name the page starts after.
+     * @throws Exception If fails
+     */
+    @Test
+    public void findsNameToStartAfter() throws Exception {
+        MatcherAssert.assertThat(
+            new RqCursor(new RqFake("GET", "/docs?after=b.txt")).after(),
+            Matchers.equalTo("b.txt")
+        );
+        MatcherAssert.assertThat(
+            new RqCursor(new RqFake()).after(),
+            Matchers.isEmptyString()
+        );
+    }
+
+    /**
+     * RqCursor can link the next page and the previous one.
+     * @throws Exception If fails
+     */
+    @Test
+    public void linksNextAndPreviousPages() throws Exception {
+        MatcherAssert.assertThat(
+            XhtmlMatchers.xhtml(
+                new RsXembly(
+                    new XeAppend(
+                        "page",
+                        new RqCursor(
+                            new RqFake("GET", "/docs?after=d&back=b")
+                        ).links("f", true)
+                    )
+                ).body()
+            ),
+            XhtmlMatchers.hasXPaths(
+                "/page/links/link[@rel='prev' and contains(@href,'after=b')]",
+                "/page/links/link[@rel='next' and contains(@href,'after=f')]",
+                "/page/links/link[@rel='next' and contains(@href,'back=d')]"
+            )
+        );
+    }
+
+    /**
+     * RqCursor can skip links to pages which don't exist.
+     * @throws Exception If fails
+     */
+    @Test
+    public void skipsMissingPages() throws Exception {
+        MatcherAssert.assertThat(
+            XhtmlMatchers.xhtml(
+                new RsXembly(
+                    new XeAppend(
+                        "page",
+                        new RqCursor(new RqFake()).links("a", false)
+                    )
+                ).body()
+            ),
+            XhtmlMatchers.hasXPath("/page[not(links/link)]")
+        );
+    }
+
+    /**
+     * RqCursor can link the first page when the trail of previous pages
+     * runs out.
+     * @throws Exception If fails
+     */
+    @Test
+    public void linksFirstPageAfterLongTrail() throws Exception {
+        final StringBuilder uri = new StringBuilder("/docs?after=z");
+        for (char name = 'a'; name < 'n'; ++name) {
+            uri.append("&back=").append(name);
+        }
+        MatcherAssert.assertThat(
+            XhtmlMatchers.xhtml(
+                new RsXembly(
+                    new XeAppend(
+                        "page",
+                        new RqCursor(new RqFake("GET", uri.toString()))
+                            .links("zz", true)
+                    )
+                ).body()
+            ),
+            XhtmlMatchers.hasXPath(
+                StringUtils.join(
+                    "/page/links/link[@rel='next'",
+                    " and contains(@href,'?back&back=e&')",
+                    " and not(contains(@href,'back=d'))]"
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            XhtmlMatchers.xhtml(
+                new RsXembly(
+                    new XeAppend(
+                        "page",
+                        new RqCursor(
+                            new RqFake("GET", "/docs?after=e&back")
+                        ).links("f", false)
+                    )
+                ).body()
+            ),
+            XhtmlMatchers.hasXPaths(
+                // @checkstyle LineLength (1 line)
+                "/page/links/link[@rel='first' and not(contains(@href,'after'))]",
+                "/page/links[not(link[@rel='prev'])]"
+            )
+        );
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.rs.RsPrint;
+
+/**
+ * Tests for {@link RsPiped}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class RsPipedTest {
+
+    /**
+     * RsPiped can stream content larger than its pipe.
+     * @throws IOException If fails
+     */
+    @Test
+    public void streamsLargeContent() throws IOException {
+        final String content = StringUtils.repeat("0123456789", 50_000);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new RsPiped(
+                    new RsPiped.Source() {
+                        @Override
+                        public void write(final OutputStream output)
+                            throws IOException {
+                            IOUtils.write(content, output);
+                        }
+                    }
+                )
+            ).printBody(),
+            Matchers.equalTo(content)
+        );
+    }
+
+    /**
+     * RsPiped can report a failure of the source.
+     * @throws IOException If fails
+     */
+    @Test(expected = IOException.class)
+    public void reportsSourceFailure() throws IOException {
+        new RsPrint(
+            new RsPiped(
+                new RsPiped.Source() {
+                    @Override
+                    public void write(final OutputStream output)
+                        throws IOException {
+                        IOUtils.write("partial", output);
+                        throw new IOException("source is broken");
+                    }
+                }
+            )
+        ).printBody();
+    }
+
+    /**
+     * RsPiped can stop the source when the client stops reading.
+     * @throws Exception If fails
+     */
+    @Test
+    public void stopsSourceOfAbandonedPipe() throws Exception {
+        final CountDownLatch stopped = new CountDownLatch(1);
+        final InputStream body = new RsPiped(
+            new RsPiped.Source() {
+                @Override
+                public void write(final OutputStream output)
+                    throws IOException {
+                    try {
+                        // @checkstyle MagicNumber (1 line)
+                        output.write(new byte[1 << 20]);
+                    } catch (final IOException ex) {
+                        stopped.countDown();
+                        throw ex;
+                    }
+                }
+            },
+            // @checkstyle MagicNumber (1 line)
+            100L
+        ).body();
+        MatcherAssert.assertThat(body.read(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(
+            stopped.await(1L, TimeUnit.MINUTES), Matchers.is(true)
+        );
+    }
+
+}
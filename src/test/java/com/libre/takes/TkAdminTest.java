@@ -29,6 +29,7 @@
  */
 package com.libre.takes;
 
+import com.google.common.base.Suppliers;
 import com.jcabi.matchers.XhtmlMatchers;
 import com.libre.om.Base;
 import com.libre.om.User;
@@ -91,6 +92,31 @@ public final class TkAdminTest {
         );
     }
 
+    /**
+     * TkAdmin can show statistics of the node.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void showsStatistics() throws Exception {
+        final String urn = "urn:test:4";
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkAdmin(
+                    new MkBase(), Suppliers.ofInstance("metadata: 5 hits")
+                ).act(
+                    new RqWithHeader(
+                        new RqFake(),
+                        TkAuth.class.getSimpleName(),
+                        new String(
+                            new CcPlain().encode(new Identity.Simple(urn))
+                        )
+                    )
+                )
+            ).printBody(),
+            XhtmlMatchers.hasXPath("/page/stats[.='metadata: 5 hits']")
+        );
+    }
+
     /**
      * TkAdmin can return a list of docs of several users.
      * @throws Exception If fails.
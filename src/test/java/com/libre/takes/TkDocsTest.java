@@ -29,7 +29,9 @@
  */
 package com.libre.takes;
 
+import com.jcabi.aspects.Tv;
 import com.jcabi.matchers.XhtmlMatchers;
+import com.libre.om.Attributes;
 import com.libre.om.Base;
 import com.libre.om.Doc;
 import com.libre.om.User;
@@ -37,11 +39,18 @@ import com.libre.om.mock.MkBase;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.takes.facets.auth.Identity;
 import org.takes.facets.auth.TkAuth;
 import org.takes.facets.auth.codecs.CcPlain;
@@ -105,6 +114,65 @@ public final class TkDocsTest {
         );
     }
 
+    /**
+     * TkDocs can ask a few docs at a time and keep their order.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void asksDocsConcurrentlyInOrder() throws Exception {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger most = new AtomicInteger();
+        final Map<String, Doc> docs = new LinkedHashMap<>(0);
+        for (int idx = 0; idx < Tv.FOUR; ++idx) {
+            final long delay = (long) (Tv.FOUR - idx) * Tv.FIFTY;
+            final Doc doc = Mockito.mock(Doc.class, Mockito.RETURNS_MOCKS);
+            final Attributes attrs = Mockito.mock(Attributes.class);
+            Mockito.when(attrs.type()).thenReturn("text/plain");
+            Mockito.when(doc.shortUrl()).thenReturn("http://x/");
+            Mockito.when(doc.attributes()).thenAnswer(
+                new Answer<Attributes>() {
+                    @Override
+                    public Attributes answer(final InvocationOnMock inv)
+                        throws InterruptedException {
+                        final int now = active.incrementAndGet();
+                        most.set(Math.max(most.get(), now));
+                        TimeUnit.MILLISECONDS.sleep(delay);
+                        active.decrementAndGet();
+                        return attrs;
+                    }
+                }
+            );
+            docs.put(String.format("d%d", idx), doc);
+        }
+        final Base base = Mockito.mock(Base.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(
+            base.user(TkDocsTest.FAKE_URN).docs().snapshot(
+                Mockito.anyString(), Mockito.anyInt()
+            )
+        ).thenReturn(docs);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkDocs(base).act(
+                    new RqWithHeader(
+                        new RqFake(),
+                        TkAuth.class.getSimpleName(),
+                        new String(
+                            new CcPlain().encode(
+                                new Identity.Simple(TkDocsTest.FAKE_URN)
+                            )
+                        )
+                    )
+                )
+            ).printBody(),
+            XhtmlMatchers.hasXPaths(
+                "/page/docs[count(doc)=4]",
+                "/page/docs/doc[1]/name[.='d0']",
+                "/page/docs/doc[4]/name[.='d3']"
+            )
+        );
+        MatcherAssert.assertThat(most.get(), Matchers.greaterThan(1));
+    }
+
     /**
      * TkDocs can add short link to document in HTML.
      * @throws IOException In case of error
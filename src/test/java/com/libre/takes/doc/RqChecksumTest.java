@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import com.libre.om.Doc;
+import com.libre.om.mock.MkBase;
+import java.io.IOException;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.takes.rq.RqFake;
+import org.takes.rq.RqWithHeader;
+
+/**
+ * Tests for {@link RqChecksum}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class RqChecksumTest {
+
+    /**
+     * RqChecksum can compare declared checksums with stored ones.
+     * @throws IOException If fails
+     */
+    @Test
+    public void comparesChecksums() throws IOException {
+        final Doc doc = new MkBase().user("urn:test:1").docs().doc("a.txt");
+        final String content = "hello";
+        doc.write(IOUtils.toInputStream(content), (long) content.length());
+        MatcherAssert.assertThat(
+            RqChecksumTest.checksum("Content-MD5", "XUFAKrxLKna5cZ2REBfFkg==")
+                .same(doc),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            RqChecksumTest.checksum(
+                "Digest", "SHA-256=LPJNul+wow4m6DsqxbninhsWHlwfp0JecwQzYpOLmCQ="
+            ).same(doc),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            RqChecksumTest.checksum("Content-MD5", "1B2M2Y8AsgTpgAmY7PhCfg==")
+                .same(doc),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            RqChecksumTest.checksum("Content-MD5", "broken!").same(doc),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * RqChecksum can ignore the document without declared checksums.
+     * @throws IOException If fails
+     */
+    @Test
+    public void ignoresDocumentWithoutChecksums() throws IOException {
+        final Doc doc = Mockito.mock(Doc.class);
+        MatcherAssert.assertThat(
+            new RqChecksum(new RqFake()).same(doc),
+            Matchers.is(false)
+        );
+        Mockito.verifyZeroInteractions(doc);
+    }
+
+    /**
+     * Make a request with a header.
+     * @param name Name of the header
+     * @param value Value of it
+     * @return Request
+     */
+    private static RqChecksum checksum(final String name, final String value) {
+        return new RqChecksum(new RqWithHeader(new RqFake(), name, value));
+    }
+
+}
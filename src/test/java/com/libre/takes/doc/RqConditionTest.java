@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import java.io.IOException;
+import java.util.Date;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.rq.RqFake;
+import org.takes.rq.RqWithHeader;
+
+/**
+ * Tests for {@link RqCondition}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class RqConditionTest {
+
+    /**
+     * RqCondition can match entity tags.
+     * @throws IOException If fails
+     */
+    @Test
+    public void matchesEntityTags() throws IOException {
+        final Date now = new Date();
+        MatcherAssert.assertThat(
+            RqConditionTest.condition("If-None-Match", "\"a\", W/\"b\"")
+                .fresh("b", now),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            RqConditionTest.condition("If-None-Match", "\"a\"")
+                .fresh("c", now),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            new RqCondition(new RqFake()).fresh("c", now),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * RqCondition can compare modification dates.
+     * @throws IOException If fails
+     */
+    @Test
+    public void comparesModificationDates() throws IOException {
+        final Date date = new Date(1_450_000_000_123L);
+        final String since = RqCondition.format(date);
+        MatcherAssert.assertThat(
+            RqConditionTest.condition("If-Modified-Since", since)
+                .fresh("x", date),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            RqConditionTest.condition("If-Modified-Since", since)
+                .fresh("x", new Date(date.getTime() + 60_000L)),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            RqConditionTest.condition("If-Modified-Since", "broken")
+                .fresh("x", date),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * RqCondition can validate range condition.
+     * @throws IOException If fails
+     */
+    @Test
+    public void validatesRangeCondition() throws IOException {
+        final Date date = new Date();
+        MatcherAssert.assertThat(
+            RqConditionTest.condition("If-Range", "\"v1\"").ranged("v1", date),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            RqConditionTest.condition("If-Range", "\"v1\"").ranged("v2", date),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            RqConditionTest.condition("If-Range", RqCondition.format(date))
+                .ranged("v2", date),
+            Matchers.is(true)
+        );
+    }
+
+    /**
+     * Make a request with a header.
+     * @param name Name of the header
+     * @param value Value of the header
+     * @return Request
+     */
+    private static RqCondition condition(final String name,
+        final String value) {
+        return new RqCondition(new RqWithHeader(new RqFake(), name, value));
+    }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import java.io.IOException;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.rq.RqFake;
+import org.takes.rq.RqWithHeader;
+
+/**
+ * Tests for {@link RqEncoding}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class RqEncodingTest {
+
+    /**
+     * RqEncoding can find listed codings.
+     * @throws IOException If fails
+     */
+    @Test
+    public void acceptsListedCodings() throws IOException {
+        final RqEncoding enc = RqEncodingTest.encoding("gzip, Deflate;q=0.5");
+        MatcherAssert.assertThat(enc.accepts("deflate"), Matchers.is(true));
+        MatcherAssert.assertThat(enc.accepts("br"), Matchers.is(false));
+        MatcherAssert.assertThat(
+            new RqEncoding(new RqFake()).accepts("deflate"),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * RqEncoding can refuse codings with zero quality.
+     * @throws IOException If fails
+     */
+    @Test
+    public void refusesCodingsWithZeroQuality() throws IOException {
+        MatcherAssert.assertThat(
+            RqEncodingTest.encoding("*, deflate;q=0").accepts("deflate"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            RqEncodingTest.encoding("*;q=0.1").accepts("deflate"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            RqEncodingTest.encoding("deflate;q=x").accepts("deflate"),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * Request with this "Accept-Encoding" header.
+     * @param header Value of the header
+     * @return Request
+     */
+    private static RqEncoding encoding(final String header) {
+        return new RqEncoding(
+            new RqWithHeader(new RqFake(), "Accept-Encoding", header)
+        );
+    }
+
+}
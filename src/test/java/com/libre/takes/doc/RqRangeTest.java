@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import com.jcabi.aspects.Tv;
+import java.io.IOException;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.rq.RqFake;
+import org.takes.rq.RqWithHeader;
+
+/**
+ * Tests for {@link RqRange}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class RqRangeTest {
+
+    /**
+     * RqRange can parse a closed range.
+     * @throws IOException If fails
+     */
+    @Test
+    public void parsesClosedRange() throws IOException {
+        final RqRange range = RqRangeTest.range("bytes=10-19");
+        MatcherAssert.assertThat(range.exists(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            range.satisfiable(Tv.HUNDRED), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            range.first(Tv.HUNDRED), Matchers.equalTo((long) Tv.TEN)
+        );
+        MatcherAssert.assertThat(
+            range.last(Tv.HUNDRED), Matchers.equalTo(19L)
+        );
+    }
+
+    /**
+     * RqRange can parse an open and a suffix range.
+     * @throws IOException If fails
+     */
+    @Test
+    public void parsesOpenAndSuffixRanges() throws IOException {
+        MatcherAssert.assertThat(
+            RqRangeTest.range("bytes=90-").last(Tv.HUNDRED),
+            Matchers.equalTo(99L)
+        );
+        MatcherAssert.assertThat(
+            RqRangeTest.range("bytes=-30").first(Tv.HUNDRED),
+            Matchers.equalTo(70L)
+        );
+        MatcherAssert.assertThat(
+            RqRangeTest.range("bytes=-300").first(Tv.HUNDRED),
+            Matchers.equalTo(0L)
+        );
+    }
+
+    /**
+     * RqRange can clip the range to the size of the content.
+     * @throws IOException If fails
+     */
+    @Test
+    public void clipsRangeToSize() throws IOException {
+        MatcherAssert.assertThat(
+            RqRangeTest.range("bytes=50-500").last(Tv.HUNDRED),
+            Matchers.equalTo(99L)
+        );
+        MatcherAssert.assertThat(
+            RqRangeTest.range("bytes=100-").satisfiable(Tv.HUNDRED),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * RqRange can ignore broken and multiple ranges.
+     * @throws IOException If fails
+     */
+    @Test
+    public void ignoresUnsupportedRanges() throws IOException {
+        MatcherAssert.assertThat(
+            new RqRange(new RqFake()).exists(), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            RqRangeTest.range("bytes=5-1").exists(), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            RqRangeTest.range("bytes=-").exists(), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            RqRangeTest.range("bytes=0-1,5-6").exists(), Matchers.is(false)
+        );
+    }
+
+    /**
+     * Make a request with a range.
+     * @param header Value of the "Range" header
+     * @return Request
+     */
+    private static RqRange range(final String header) {
+        return new RqRange(new RqWithHeader(new RqFake(), "Range", header));
+    }
+
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import com.google.common.base.Joiner;
+import com.libre.takes.RqDisposition;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.rq.RqFake;
+import org.takes.rq.RqWithHeader;
+
+/**
+ * Tests for {@code RqUpload}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class RqUploadTest {
+
+    /**
+     * RqUpload can find a part after other parts.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void findsPartAfterOthers() throws Exception {
+        final Request part = new RqUpload(
+            RqUploadTest.request(
+                Joiner.on("\r\n").join(
+                    "preamble",
+                    "--xyz",
+                    "Content-Disposition: form-data; name=\"name\"",
+                    "",
+                    "a.txt",
+                    "--xyz",
+                    // @checkstyle LineLength (1 line)
+                    "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"",
+                    "",
+                    "first line\r\n--xy\r\nlast line",
+                    "--xyz--",
+                    ""
+                )
+            )
+        ).part("file");
+        MatcherAssert.assertThat(
+            new RqDisposition(part).filename(),
+            Matchers.equalTo("a.txt")
+        );
+        MatcherAssert.assertThat(
+            IOUtils.toString(part.body()),
+            Matchers.equalTo("first line\r\n--xy\r\nlast line")
+        );
+    }
+
+    /**
+     * RqUpload can stream a part larger than its buffer.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void streamsLargePart() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final byte[] content = new byte[300_000];
+        new Random().nextBytes(content);
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(
+            Joiner.on("\r\n").join(
+                "--b",
+                "Content-Disposition: form-data; name=\"file\"",
+                "",
+                ""
+            ).getBytes()
+        );
+        body.write(content);
+        body.write("\r\n--b--".getBytes());
+        final byte[] read = IOUtils.toByteArray(
+            new RqUpload(
+                new RqFake(
+                    Arrays.asList(
+                        "POST / HTTP/1.1",
+                        "Content-Type: multipart/form-data; boundary=b"
+                    ),
+                    body.toByteArray()
+                )
+            ).part("file").body()
+        );
+        MatcherAssert.assertThat(
+            Arrays.equals(read, content),
+            Matchers.is(true)
+        );
+    }
+
+    /**
+     * RqUpload can read all parts with the same name.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void readsPartsWithSameName() throws Exception {
+        final RqUpload.Parts parts = new RqUpload(
+            RqUploadTest.request(
+                Joiner.on("\r\n").join(
+                    "--xyz",
+                    "Content-Disposition: form-data; name=\"file\"",
+                    "",
+                    "first",
+                    "--xyz",
+                    "Content-Disposition: form-data; name=\"other\"",
+                    "",
+                    "skipped",
+                    "--xyz",
+                    "Content-Disposition: form-data; name=\"file\"",
+                    "",
+                    "second",
+                    "--xyz",
+                    "Content-Disposition: form-data; name=\"file\"",
+                    "",
+                    "third",
+                    "--xyz--"
+                )
+            )
+        ).parts("file");
+        final List<String> bodies = new LinkedList<>();
+        while (parts.next()) {
+            if (bodies.size() != 1) {
+                bodies.add(IOUtils.toString(parts.part().body()));
+            } else {
+                bodies.add("unread");
+            }
+        }
+        MatcherAssert.assertThat(
+            bodies,
+            Matchers.contains("first", "unread", "third")
+        );
+    }
+
+    /**
+     * RqUpload can reject a request without the part.
+     * @throws Exception If fails.
+     */
+    @Test(expected = HttpException.class)
+    public void rejectsAbsentPart() throws Exception {
+        new RqUpload(
+            RqUploadTest.request(
+                Joiner.on("\r\n").join(
+                    "--xyz",
+                    "Content-Disposition: form-data; name=\"name\"",
+                    "",
+                    "nothing",
+                    "--xyz--"
+                )
+            )
+        ).part("file");
+    }
+
+    /**
+     * Multipart request.
+     * @param body Body
+     * @return Request
+     */
+    private static Request request(final String body) {
+        return new RqWithHeader(
+            new RqFake("POST", "/", body),
+            "Content-Type", "multipart/form-data; boundary=xyz"
+        );
+    }
+
+}
@@ -29,16 +29,23 @@
  */
 package com.libre.takes.doc;
 
+import com.libre.om.Attributes;
 import com.libre.om.Base;
 import com.libre.om.Doc;
 import com.libre.om.mock.MkBase;
 import com.libre.takes.RqWithTester;
+import java.io.IOException;
+import java.io.OutputStream;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.takes.Response;
 import org.takes.rq.RqFake;
+import org.takes.rq.RqWithHeader;
 import org.takes.rs.RsPrint;
 
 /**
@@ -75,6 +82,157 @@ public final class TkReadTest {
                 "Content-Disposition: attachment; filename=\"hey\""
             )
         );
+        MatcherAssert.assertThat(
+            new RsPrint(resp).printHead(),
+            Matchers.containsString(
+                String.format("Content-Length: %d", input.length())
+            )
+        );
+    }
+
+    /**
+     * TkRead can read a range of file content.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void readsRangeOfFileContent() throws Exception {
+        final Base base = new MkBase();
+        final Doc doc = base.user("urn:test:1").docs().doc("range");
+        final String input = "hello, world!";
+        doc.write(IOUtils.toInputStream(input), input.getBytes().length);
+        final Response resp = new TkRead(base).act(
+            new RqWithTester(
+                new RqWithHeader(
+                    new RqFake("GET", "/?file=range"),
+                    "Range",
+                    "bytes=7-11"
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(resp).printBody(),
+            Matchers.equalTo("world")
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(resp).printHead(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 206 Partial Content"),
+                Matchers.containsString("Content-Range: bytes 7-11/13"),
+                Matchers.containsString("Content-Length: 5")
+            )
+        );
+    }
+
+    /**
+     * TkRead can reject a range outside of file content.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void rejectsUnsatisfiableRange() throws Exception {
+        final Base base = new MkBase();
+        final Doc doc = base.user("urn:test:1").docs().doc("short");
+        final String input = "short";
+        doc.write(IOUtils.toInputStream(input), input.getBytes().length);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkRead(base).act(
+                    new RqWithTester(
+                        new RqWithHeader(
+                            new RqFake("GET", "/?file=short"),
+                            "Range",
+                            "bytes=10-"
+                        )
+                    )
+                )
+            ).printHead(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 416"),
+                Matchers.containsString("Content-Range: bytes */5")
+            )
+        );
+    }
+
+    /**
+     * TkRead can answer with 304 when the file content is not modified.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void answersNotModified() throws Exception {
+        final Base base = new MkBase();
+        final Doc doc = base.user("urn:test:1").docs().doc("cached");
+        final String input = "cached content";
+        doc.write(IOUtils.toInputStream(input), input.getBytes().length);
+        final String etag = doc.attributes().etag();
+        final Response resp = new TkRead(base).act(
+            new RqWithTester(
+                new RqWithHeader(
+                    new RqFake("GET", "/?file=cached"),
+                    "If-None-Match",
+                    String.format("\"%s\"", etag)
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(resp).printHead(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 304"),
+                Matchers.containsString(String.format("ETag: \"%s\"", etag))
+            )
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(resp).printBody(),
+            Matchers.isEmptyString()
+        );
+    }
+
+    /**
+     * TkRead can send the content as it is stored, if the client
+     * accepts its coding.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void sendsContentAsStored() throws Exception {
+        final Doc doc = Mockito.mock(Doc.class);
+        final Attributes attrs = Mockito.mock(Attributes.class);
+        Mockito.when(doc.attributes()).thenReturn(attrs);
+        Mockito.when(attrs.encoding()).thenReturn("deflate");
+        Mockito.when(attrs.etag()).thenReturn("abc");
+        Mockito.doAnswer(
+            new Answer<Void>() {
+                @Override
+                public Void answer(final InvocationOnMock inv)
+                    throws IOException {
+                    OutputStream.class.cast(inv.getArguments()[0])
+                        .write("stored".getBytes());
+                    return null;
+                }
+            }
+        ).when(doc).encoded(Mockito.any(OutputStream.class));
+        final Base base = Mockito.mock(Base.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(
+            base.user(Mockito.anyString()).docs().doc("z.txt")
+        ).thenReturn(doc);
+        final Response resp = new TkRead(base).act(
+            new RqWithTester(
+                new RqWithHeader(
+                    new RqFake("GET", "/?file=z.txt"),
+                    "Accept-Encoding",
+                    "gzip, deflate"
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(resp).printHead(),
+            Matchers.allOf(
+                Matchers.containsString("Content-Encoding: deflate"),
+                Matchers.containsString("Vary: Accept-Encoding"),
+                Matchers.containsString("ETag: \"abc-deflate\"")
+            )
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(resp).printBody(),
+            Matchers.equalTo("stored")
+        );
     }
 
 }
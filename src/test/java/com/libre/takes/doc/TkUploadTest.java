@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import com.libre.om.Base;
+import com.libre.om.mock.MkBase;
+import com.libre.takes.RqWithTester;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.Take;
+import org.takes.rq.RqFake;
+import org.takes.rq.RqWithHeader;
+import org.takes.rs.RsPrint;
+
+/**
+ * Tests for {@code TkUpload}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class TkUploadTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * TkUpload can upload a document in chunks.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void uploadsInChunks() throws Exception {
+        final Base base = new MkBase();
+        final Take take = new TkUpload(
+            base, new Uploads(this.folder.newFolder(), 100L)
+        );
+        final String id = new RsPrint(
+            take.act(TkUploadTest.request("/doc/upload/open?file=a.txt", ""))
+        ).printBody();
+        final String chunk = String.format("/doc/upload/chunk?id=%s", id);
+        take.act(TkUploadTest.request(chunk + "&number=2", "world"));
+        take.act(TkUploadTest.request(chunk + "&number=1", "hello, "));
+        take.act(TkUploadTest.request(chunk + "&number=2", "world!"));
+        MatcherAssert.assertThat(
+            new RsPrint(
+                take.act(
+                    TkUploadTest.request(
+                        String.format("/doc/upload/commit?id=%s", id), ""
+                    )
+                )
+            ).printHead(),
+            Matchers.startsWith("HTTP/1.1 303 See Other")
+        );
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        base.user("urn:test:1").docs().doc("a.txt").read(baos);
+        MatcherAssert.assertThat(
+            new String(baos.toByteArray()),
+            Matchers.equalTo("hello, world!")
+        );
+    }
+
+    /**
+     * TkUpload can reject a chunk that makes the document too large.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void rejectsTooLargeDocument() throws Exception {
+        final Take take = new TkUpload(
+            new MkBase(), new Uploads(this.folder.newFolder(), 10L)
+        );
+        final String id = new RsPrint(
+            take.act(TkUploadTest.request("/doc/upload/open?file=b.txt", ""))
+        ).printBody();
+        final String chunk = String.format("/doc/upload/chunk?id=%s", id);
+        take.act(TkUploadTest.request(chunk + "&number=1", "123456"));
+        int code = 0;
+        try {
+            take.act(TkUploadTest.request(chunk + "&number=2", "789012"));
+        } catch (final HttpException ex) {
+            code = ex.code();
+        }
+        // @checkstyle MagicNumber (1 line)
+        MatcherAssert.assertThat(code, Matchers.equalTo(413));
+    }
+
+    /**
+     * TkUpload can refuse to commit a session with missing chunks.
+     * @throws Exception If fails.
+     */
+    @Test(expected = HttpException.class)
+    public void refusesIncompleteSession() throws Exception {
+        final Take take = new TkUpload(
+            new MkBase(), new Uploads(this.folder.newFolder(), 100L)
+        );
+        final String id = new RsPrint(
+            take.act(TkUploadTest.request("/doc/upload/open?file=c.txt", ""))
+        ).printBody();
+        take.act(
+            TkUploadTest.request(
+                String.format("/doc/upload/chunk?id=%s&number=2", id), "x"
+            )
+        );
+        take.act(
+            TkUploadTest.request(
+                String.format("/doc/upload/commit?id=%s", id), ""
+            )
+        );
+    }
+
+    /**
+     * TkUpload can refuse to commit a session twice.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void refusesSecondCommit() throws Exception {
+        final Take take = new TkUpload(
+            new MkBase(), new Uploads(this.folder.newFolder(), 100L)
+        );
+        final String id = new RsPrint(
+            take.act(TkUploadTest.request("/doc/upload/open?file=d.txt", ""))
+        ).printBody();
+        take.act(
+            TkUploadTest.request(
+                String.format("/doc/upload/chunk?id=%s&number=1", id), "once"
+            )
+        );
+        final String commit = String.format("/doc/upload/commit?id=%s", id);
+        take.act(TkUploadTest.request(commit, ""));
+        int code = 0;
+        try {
+            take.act(TkUploadTest.request(commit, ""));
+        } catch (final HttpException ex) {
+            code = ex.code();
+        }
+        // @checkstyle MagicNumber (1 line)
+        MatcherAssert.assertThat(code, Matchers.equalTo(404));
+    }
+
+    /**
+     * TkUpload can limit sessions and chunks of a user.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void limitsSessionsOfUser() throws Exception {
+        final Take take = new TkUpload(
+            // @checkstyle MagicNumber (1 line)
+            new MkBase(), new Uploads(this.folder.newFolder(), 100L, 8L)
+        );
+        final String open = "/doc/upload/open?file=e.txt";
+        final String first = new RsPrint(
+            take.act(TkUploadTest.request(open, ""))
+        ).printBody();
+        take.act(
+            TkUploadTest.request(
+                String.format("/doc/upload/chunk?id=%s&number=1", first),
+                "123456"
+            )
+        );
+        final String second = new RsPrint(
+            take.act(TkUploadTest.request(open, ""))
+        ).printBody();
+        int code = 0;
+        try {
+            take.act(
+                TkUploadTest.request(
+                    String.format("/doc/upload/chunk?id=%s&number=1", second),
+                    "789012"
+                )
+            );
+        } catch (final HttpException ex) {
+            code = ex.code();
+        }
+        // @checkstyle MagicNumber (1 line)
+        MatcherAssert.assertThat(code, Matchers.equalTo(413));
+        // @checkstyle MagicNumber (1 line)
+        for (int idx = 0; idx < 8; ++idx) {
+            take.act(TkUploadTest.request(open, ""));
+        }
+        try {
+            take.act(TkUploadTest.request(open, ""));
+        } catch (final HttpException ex) {
+            code = ex.code();
+        }
+        // @checkstyle MagicNumber (1 line)
+        MatcherAssert.assertThat(code, Matchers.equalTo(429));
+    }
+
+    /**
+     * Request of the test user.
+     * @param uri URI
+     * @param body Body
+     * @return Request
+     * @throws IOException If fails
+     */
+    private static Request request(final String uri, final String body)
+        throws IOException {
+        return new RqWithTester(
+            new RqWithHeader(
+                new RqFake("POST", uri, body),
+                "Content-Length",
+                String.valueOf(body.length())
+            )
+        );
+    }
+
+}
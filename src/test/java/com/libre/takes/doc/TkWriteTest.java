@@ -35,6 +35,9 @@ import com.libre.om.User;
 import com.libre.om.mock.MkBase;
 import com.libre.takes.RqWithTester;
 import java.io.ByteArrayOutputStream;
+import java.util.LinkedList;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -104,4 +107,106 @@ public final class TkWriteTest {
         );
     }
 
+
+    /**
+     * TkWrite can avoid storing a file that isn't changed.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void skipsUnchangedFile() throws Exception {
+        final Base base = new MkBase();
+        final String file = "same.txt";
+        final String content = "hello";
+        base.user("urn:test:1").docs().doc(file).write(
+            IOUtils.toInputStream(content), (long) content.length()
+        );
+        final String body = Joiner.on("\r\n").join(
+            "--AaB03x",
+            String.format(
+                // @checkstyle LineLength (1 line)
+                "Content-Disposition: form-data; name=\"file\"; filename=\"%s\"",
+                file
+            ),
+            "Content-MD5: XUFAKrxLKna5cZ2REBfFkg==",
+            "",
+            "changed",
+            "--AaB03x--"
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkWrite(base).act(
+                    new RqWithTester(
+                        new RqWithHeader(
+                            new RqFake("POST", "/", body),
+                            "Content-Type",
+                            "multipart/form-data; boundary=AaB03x"
+                        )
+                    )
+                )
+            ).print(),
+            Matchers.containsString("not+changed")
+        );
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        base.user("urn:test:1").docs().doc(file).read(baos);
+        MatcherAssert.assertThat(
+            new String(baos.toByteArray()),
+            Matchers.equalTo(content)
+        );
+    }
+
+
+    /**
+     * TkWrite can write every file of the request and report each.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void writesSeveralFiles() throws Exception {
+        final Base base = new MkBase();
+        final List<String> lines = new LinkedList<>();
+        for (final String file : new String[] {"a.txt", "b.txt", "c.txt"}) {
+            lines.add("--AaB03x");
+            lines.add(
+                String.format(
+                    // @checkstyle LineLength (1 line)
+                    "Content-Disposition: form-data; name=\"file\"; filename=\"%s\"",
+                    file
+                )
+            );
+            lines.add("");
+            lines.add(String.format("content of %s", file));
+        }
+        lines.add("--AaB03x");
+        lines.add(
+            "Content-Disposition: form-data; name=\"file\"; filename=\"e\""
+        );
+        lines.add("");
+        lines.add("");
+        lines.add("--AaB03x--");
+        final String response = new RsPrint(
+            new TkWrite(base).act(
+                new RqWithTester(
+                    new RqWithHeader(
+                        new RqFake("POST", "/", Joiner.on("\r\n").join(lines)),
+                        "Content-Type",
+                        "multipart/form-data; boundary=AaB03x"
+                    )
+                )
+            )
+        ).print();
+        MatcherAssert.assertThat(
+            response,
+            Matchers.allOf(
+                Matchers.containsString("%22c.txt%22+uploaded"),
+                Matchers.containsString("%22e%22+failed"),
+                Matchers.containsString("WARNING")
+            )
+        );
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        base.user("urn:test:1").docs().doc("b.txt").read(baos);
+        MatcherAssert.assertThat(
+            new String(baos.toByteArray()),
+            Matchers.equalTo("content of b.txt")
+        );
+    }
+
 }
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2016, libre.io
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the libre.io nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.libre.takes.doc;
+
+import com.libre.om.Base;
+import com.libre.om.Docs;
+import com.libre.om.mock.MkBase;
+import com.libre.takes.RqWithTester;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.HttpURLConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.HttpException;
+import org.takes.Response;
+import org.takes.rq.RqFake;
+import org.takes.rs.RsPrint;
+
+/**
+ * Tests for {@code TkZip}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 0.5
+ */
+public final class TkZipTest {
+
+    /**
+     * TkZip can archive a few documents.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void archivesDocuments() throws Exception {
+        final Base base = new MkBase();
+        final Docs docs = base.user("urn:test:1").docs();
+        final String[] names = {"a.txt", "b.txt", "c.txt", "d.txt", "e.txt"};
+        for (final String name : names) {
+            docs.doc(name).write(
+                IOUtils.toInputStream(name), (long) name.length()
+            );
+        }
+        final Response resp = new TkZip(base).act(
+            new RqWithTester(
+                new RqFake(
+                    "GET",
+                    "/?file=a.txt&file=b.txt&file=c.txt&file=d.txt&file=e.txt"
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(resp).printHead(),
+            Matchers.containsString("Content-Type: application/zip")
+        );
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        new RsPrint(resp).printBody(body);
+        final Map<String, String> entries = new LinkedHashMap<>(0);
+        try (final ZipInputStream zip = new ZipInputStream(
+            new ByteArrayInputStream(body.toByteArray())
+        )) {
+            ZipEntry entry = zip.getNextEntry();
+            while (entry != null) {
+                entries.put(entry.getName(), IOUtils.toString(zip));
+                entry = zip.getNextEntry();
+            }
+        }
+        MatcherAssert.assertThat(
+            entries.keySet(),
+            Matchers.contains(names)
+        );
+        MatcherAssert.assertThat(
+            entries,
+            Matchers.hasEntry("c.txt", "c.txt")
+        );
+    }
+
+    /**
+     * TkZip can reject a request without documents.
+     * @throws Exception If fails.
+     */
+    @Test(expected = HttpException.class)
+    public void rejectsEmptyRequest() throws Exception {
+        new TkZip(new MkBase()).act(
+            new RqWithTester(new RqFake("GET", "/"))
+        );
+    }
+
+    /**
+     * TkZip can reject a request with too many documents.
+     * @throws Exception If fails.
+     */
+    @Test
+    public void rejectsTooManyDocuments() throws Exception {
+        final StringBuilder uri = new StringBuilder("/?file=0.txt");
+        for (int idx = 1; idx <= TkZip.MAX; ++idx) {
+            uri.append("&file=").append(idx).append(".txt");
+        }
+        HttpException failure = null;
+        try {
+            new TkZip(new MkBase()).act(
+                new RqWithTester(new RqFake("GET", uri.toString()))
+            );
+        } catch (final HttpException ex) {
+            failure = ex;
+        }
+        MatcherAssert.assertThat(
+            failure.code(),
+            Matchers.equalTo(HttpURLConnection.HTTP_BAD_REQUEST)
+        );
+    }
+
+}